@@ -0,0 +1,18 @@
+package ru.ms.second.team.registration.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces reflective getter and constructor calls of the DTOs with generated lambdas. Picked up by the
+     * auto-configured ObjectMapper, so it applies to both HTTP responses and Feign decoding.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.ms.second.team.registration.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.ms.second.team.registration.converter.RegistrationListProtobufHttpMessageConverter;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Added after the default converters, so JSON stays the default for clients that accept any media type.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new RegistrationListProtobufHttpMessageConverter());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.ms.second.team.registration.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * Separate Hikari pools for read and write traffic behind a {@link RoutingDataSource}, so that polling reads
+ * cannot take every connection away from registration writes.
+ * <p>
+ * Pools are configured with {@code app.bulkhead.datasource.read.*} and {@code app.bulkhead.datasource.write.*},
+ * which accept any Hikari setting. Connection details come from {@code spring.datasource.*} or from a service
+ * connection, as they would for the auto-configured pool. Off by default, the single auto-configured pool is used
+ * unless {@code app.bulkhead.datasource.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "app.bulkhead.datasource.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("app.bulkhead.datasource.write")
+    public HikariDataSource writeDataSource(ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                            DataSourceProperties properties) {
+        return createPool(resolve(connectionDetails, properties), "write-pool", 15);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("app.bulkhead.datasource.read")
+    public HikariDataSource readDataSource(ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                           DataSourceProperties properties) {
+        return createPool(resolve(connectionDetails, properties), "read-pool", 10);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        return new RoutingDataSource(writeDataSource, readDataSource);
+    }
+
+    private static JdbcConnectionDetails resolve(ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                                 DataSourceProperties properties) {
+        return connectionDetails.getIfAvailable(() -> new JdbcConnectionDetails() {
+            @Override
+            public String getUsername() {
+                return properties.determineUsername();
+            }
+
+            @Override
+            public String getPassword() {
+                return properties.determinePassword();
+            }
+
+            @Override
+            public String getJdbcUrl() {
+                return properties.determineUrl();
+            }
+
+            @Override
+            public String getDriverClassName() {
+                return properties.determineDriverClassName();
+            }
+        });
+    }
+
+    private static HikariDataSource createPool(JdbcConnectionDetails connectionDetails, String poolName,
+                                               int maximumPoolSize) {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(connectionDetails.getJdbcUrl());
+        dataSource.setUsername(connectionDetails.getUsername());
+        dataSource.setPassword(connectionDetails.getPassword());
+        dataSource.setDriverClassName(connectionDetails.getDriverClassName());
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+}
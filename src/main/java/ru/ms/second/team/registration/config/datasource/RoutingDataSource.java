@@ -0,0 +1,56 @@
+package ru.ms.second.team.registration.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Picks the read or the write connection pool by the {@link Pool} bound to the current thread. Threads without
+ * a binding, such as background workers and Liquibase, use the write pool.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Pool> CURRENT = new ThreadLocal<>();
+
+    public RoutingDataSource(DataSource writeDataSource, DataSource readDataSource) {
+        setTargetDataSources(Map.of(Pool.WRITE, writeDataSource, Pool.READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+    }
+
+    /**
+     * Binds {@code pool} to the current thread until the returned scope is closed, then restores the previous
+     * binding.
+     */
+    public static Scope bind(Pool pool) {
+        final Pool previous = CURRENT.get();
+        CURRENT.set(pool);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static Pool current() {
+        final Pool pool = CURRENT.get();
+        return pool == null ? Pool.WRITE : pool;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+
+    public enum Pool {
+        READ,
+        WRITE
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.ms.second.team.registration.config.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Samples what {@code delegate} samples, but at most {@code maxPerSecond} traces per second, so that the cost of
+ * tracing stays bounded when traffic spikes. Traces are admitted with a one second burst, in the style of the
+ * generic cell rate algorithm.
+ */
+class RateLimitingSampler implements Sampler {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final Sampler delegate;
+    private final double maxPerSecond;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong fullAt;
+
+    RateLimitingSampler(Sampler delegate, double maxPerSecond, LongSupplier nanoClock) {
+        if (maxPerSecond <= 0) {
+            throw new IllegalArgumentException("Max traces per second must be positive");
+        }
+        this.delegate = delegate;
+        this.maxPerSecond = maxPerSecond;
+        this.intervalNanos = (long) Math.ceil(SECOND_NANOS / maxPerSecond);
+        this.nanoClock = nanoClock;
+        this.fullAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        final SamplingResult result = delegate.shouldSample(parentContext, traceId, name, spanKind, attributes,
+                parentLinks);
+        if (result.getDecision() != SamplingDecision.RECORD_AND_SAMPLE || tryAcquire()) {
+            return result;
+        }
+        return SamplingResult.drop();
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("RateLimitingSampler{%s, maxPerSecond=%s}", delegate.getDescription(), maxPerSecond);
+    }
+
+    private boolean tryAcquire() {
+        final long now = nanoClock.getAsLong();
+        while (true) {
+            final long current = fullAt.get();
+            final long next = Math.max(current, now) + intervalNanos;
+            if (next - now > SECOND_NANOS) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.ms.second.team.registration.config.tracing;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracing of incoming requests, event service calls and JDBC statements.
+ * <p>
+ * A trace is started for {@code management.tracing.sampling.probability} of the requests, but for no more than
+ * {@code app.tracing.max-traces-per-second}; requests that arrive with a sampled parent are always traced. Spans
+ * are exported over OTLP when {@code management.otlp.tracing.endpoint} is set and logged when
+ * {@code app.tracing.logging-exporter.enabled} is true.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public Sampler otelSampler(@Value("${management.tracing.sampling.probability:0.1}") double probability,
+                               @Value("${app.tracing.max-traces-per-second:100}") double maxTracesPerSecond) {
+        return Sampler.parentBased(new RateLimitingSampler(Sampler.traceIdRatioBased(probability),
+                maxTracesPerSecond, System::nanoTime));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.logging-exporter.enabled", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
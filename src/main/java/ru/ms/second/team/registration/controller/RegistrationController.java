@@ -7,13 +7,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,18 +33,28 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.ms.second.team.registration.converter.RegistrationListProtobufHttpMessageConverter;
 import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
 import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
 import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
 import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationBatchResponseDto;
 import ru.ms.second.team.registration.dto.response.RegistrationCount;
 import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
 import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
 import ru.ms.second.team.registration.exception.model.ErrorResponse;
 import ru.ms.second.team.registration.model.RegistrationStatus;
 import ru.ms.second.team.registration.service.RegistrationService;
+import ru.ms.second.team.registration.service.admission.WaitingRoom;
+import ru.ms.second.team.registration.service.stream.RegistrationCountPublisher;
+import ru.ms.second.team.registration.service.version.EventVersionRegistry;
 
+import java.net.URI;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @Slf4j
@@ -47,7 +64,15 @@ import java.util.List;
 @Tag(name = "Registrations API")
 public class RegistrationController {
 
+    private static final int MAX_BATCH_IDS = 100;
+
     private final RegistrationService registrationService;
+    private final EventVersionRegistry eventVersionRegistry;
+    private final RegistrationCountPublisher registrationCountPublisher;
+    private final WaitingRoom waitingRoom;
+
+    @Value("${app.registration.queue.enabled:false}")
+    private boolean queueEnabled;
 
     @Operation(summary = "Create registration")
     @ApiResponses(value = {
@@ -55,20 +80,79 @@ public class RegistrationController {
                     @Content(mediaType = "application/json", schema = @Schema(
                             implementation = CreatedRegistrationResponseDto.class))
             }),
+            @ApiResponse(responseCode = "202", description = "Registration request queued, when the queue is enabled",
+                    content = {
+                            @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = RegistrationTicketDto.class))
+                    }),
             @ApiResponse(responseCode = "400", description = "Validation error", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
+            @ApiResponse(responseCode = "409", description = "Registration for the event is full", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "429", description = "Request is in the waiting room, retry with the "
+                    + "X-Waiting-Room-Token header after Retry-After", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "422", description = "Idempotency key reused for a different request",
+                    content = {
+                            @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ErrorResponse.class))
+                    }),
             @ApiResponse(responseCode = "500", description = "Unknown error", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             })
     })
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public CreatedRegistrationResponseDto createRegistration(@RequestHeader("X-User-Id") @Positive Long userId,
-                                                             @Parameter(description = "New registration data")
-                                                             @RequestBody @Valid NewRegistrationDto registrationDto) {
+    public ResponseEntity<Object> createRegistration(@RequestHeader("X-User-Id") @Positive Long userId,
+                                                     @Parameter(description = "Key identifying retries of "
+                                                             + "the same registration request")
+                                                     @RequestHeader(value = "Idempotency-Key", required = false)
+                                                     @Size(max = 255) String idempotencyKey,
+                                                     @Parameter(description = "Position token issued by the "
+                                                             + "waiting room")
+                                                     @RequestHeader(value = WaitingRoom.TOKEN_HEADER,
+                                                             required = false) String waitingRoomToken,
+                                                     @Parameter(description = "New registration data")
+                                                     @RequestBody @Valid NewRegistrationDto registrationDto) {
         log.debug("RegistrationController: POST /registrations");
-        return registrationService.createRegistration(registrationDto, userId);
+        waitingRoom.admitOrThrow(registrationDto.eventId(), userId, waitingRoomToken);
+        if (queueEnabled) {
+            final RegistrationTicketDto ticket = idempotencyKey == null
+                    ? registrationService.enqueueRegistration(registrationDto, userId)
+                    : registrationService.enqueueRegistration(registrationDto, userId, idempotencyKey);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/registrations/tickets/" + ticket.ticket()))
+                    .body(ticket);
+        }
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(registrationService.createRegistration(registrationDto, userId));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(registrationService.createRegistration(registrationDto, userId, idempotencyKey));
+    }
+
+    @Operation(summary = "Get state of a queued registration request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Registration request is found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(
+                            implementation = RegistrationTicketDto.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "Ticket not found or queued by another user", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Unknown error", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @GetMapping("/tickets/{ticket}")
+    public RegistrationTicketDto findRegistrationTicket(@RequestHeader("X-User-Id") @Positive Long userId,
+                                                        @Parameter(description = "Ticket of the queued request")
+                                                        @PathVariable UUID ticket) {
+        log.debug("RegistrationController: GET /registrations/tickets/{}", ticket);
+        return registrationService.findRegistrationTicket(ticket, userId);
     }
 
     @Operation(summary = "Update registration")
@@ -83,6 +167,9 @@ public class RegistrationController {
             @ApiResponse(responseCode = "400", description = "Wrong password", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
+            @ApiResponse(responseCode = "429", description = "Too many wrong passwords", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
             @ApiResponse(responseCode = "404", description = "Registration not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -93,9 +180,10 @@ public class RegistrationController {
     @PatchMapping
     public UpdatedRegistrationResponseDto updateRegistration(@Parameter(
             description = "New registration data for updateRegistration")
-                                                             @RequestBody @Valid UpdateRegistrationDto updateDto) {
+                                                             @RequestBody @Valid UpdateRegistrationDto updateDto,
+                                                             HttpServletRequest request) {
         log.debug("RegistrationController: PATCH /registrations");
-        return registrationService.updateRegistration(updateDto);
+        return registrationService.updateRegistration(updateDto, request.getRemoteAddr());
     }
 
     @Operation(summary = "Find registration by registration id")
@@ -104,6 +192,7 @@ public class RegistrationController {
                     @Content(mediaType = "application/json", schema = @Schema(
                             implementation = UpdatedRegistrationResponseDto.class))
             }),
+            @ApiResponse(responseCode = "304", description = "Registrations of the event have not changed"),
             @ApiResponse(responseCode = "404", description = "Registration not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -113,9 +202,41 @@ public class RegistrationController {
     })
     @GetMapping("/{id}")
     public RegistrationResponseDto findRegistrationById(@Parameter(description = "Registration id")
-                                                        @PathVariable @Positive Long id) {
+                                                        @PathVariable @Positive Long id,
+                                                        WebRequest request) {
         log.debug("RegistrationController: GET /registrations/{}", id);
-        return registrationService.findRegistrationById(id);
+        final Long cachedEventId = eventVersionRegistry.parseEventId(request.getHeader(HttpHeaders.IF_NONE_MATCH));
+        if (cachedEventId != null && isNotModified(request, cachedEventId)) {
+            return null;
+        }
+        final long sequence = eventVersionRegistry.getSequence();
+        final RegistrationResponseDto registration = registrationService.findRegistrationById(id);
+        if (sequence == eventVersionRegistry.getSequence() && isNotModified(request, registration.eventId())) {
+            return null;
+        }
+        return registration;
+    }
+
+    @Operation(summary = "Find registrations by list of registration ids")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Registrations are found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(
+                            implementation = RegistrationBatchResponseDto.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Validation error", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Unknown error", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @GetMapping("/batch")
+    public RegistrationBatchResponseDto findRegistrationsByIds(@Parameter(description = "Registration ids, "
+            + "at most " + MAX_BATCH_IDS)
+                                                               @RequestParam @NotEmpty @Size(max = MAX_BATCH_IDS)
+                                                               List<@Positive Long> ids) {
+        log.debug("RegistrationController: GET /registrations/batch, ids={}", ids);
+        return registrationService.findRegistrationsByIds(ids);
     }
 
     @Operation(summary = "Find registrations by event id")
@@ -124,6 +245,7 @@ public class RegistrationController {
                     @Content(mediaType = "application/json", schema = @Schema(
                             implementation = UpdatedRegistrationResponseDto.class))
             }),
+            @ApiResponse(responseCode = "304", description = "Registrations of the event have not changed"),
             @ApiResponse(responseCode = "500", description = "Unknown error", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             })
@@ -135,9 +257,14 @@ public class RegistrationController {
                                                                                "Number of registrations per page")
                                                                        @RequestParam(defaultValue = "10") @Positive int size,
                                                                        @Parameter(description = "Event id")
-                                                                       @RequestParam @Positive Long eventId) {
-        log.info("RegistrationController: GET /registrations, params page={}, size={}, eventId={}",
+                                                                       @RequestParam @Positive Long eventId,
+                                                                       WebRequest request,
+                                                                       HttpServletResponse response) {
+        log.debug("RegistrationController: GET /registrations, params page={}, size={}, eventId={}",
                 page, size, eventId);
+        if (isListNotModified(request, response, eventId)) {
+            return null;
+        }
         return registrationService.findAllRegistrationsByEventId(page, size, eventId);
     }
 
@@ -153,6 +280,9 @@ public class RegistrationController {
             @ApiResponse(responseCode = "400", description = "Wrong password", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
+            @ApiResponse(responseCode = "429", description = "Too many wrong passwords", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
             @ApiResponse(responseCode = "404", description = "Registration not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -163,9 +293,10 @@ public class RegistrationController {
     @DeleteMapping
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteRegistration(@Parameter(description = "Registration credentials")
-                                   @RequestBody @Valid RegistrationCredentials deleteDto) {
+                                   @RequestBody @Valid RegistrationCredentials deleteDto,
+                                   HttpServletRequest request) {
         log.debug("RegistrationController: DELETE /registrations");
-        registrationService.deleteRegistration(deleteDto);
+        registrationService.deleteRegistration(deleteDto, request.getRemoteAddr());
     }
 
     @Operation(summary = "Update registration status")
@@ -180,6 +311,9 @@ public class RegistrationController {
             @ApiResponse(responseCode = "400", description = "Wrong password", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
+            @ApiResponse(responseCode = "429", description = "Too many wrong passwords", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
             @ApiResponse(responseCode = "404", description = "Registration not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -194,10 +328,12 @@ public class RegistrationController {
                                                        @Parameter(description = "New registration status")
                                                        @RequestParam RegistrationStatus newStatus,
                                                        @Parameter(description = "Registration credentials")
-                                                       @RequestBody @Valid RegistrationCredentials registrationCredentials) {
+                                                       @RequestBody @Valid RegistrationCredentials registrationCredentials,
+                                                       HttpServletRequest request) {
         validateStatus(newStatus);
         log.debug("Updating status for registration with id '{}'", registrationId);
-        return registrationService.updateRegistrationStatus(userId, registrationId, newStatus, registrationCredentials);
+        return registrationService.updateRegistrationStatus(userId, registrationId, newStatus, registrationCredentials,
+                request.getRemoteAddr());
     }
 
     @Operation(summary = "Decline registration")
@@ -212,6 +348,9 @@ public class RegistrationController {
             @ApiResponse(responseCode = "400", description = "Wrong password", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
+            @ApiResponse(responseCode = "429", description = "Too many wrong passwords", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
             @ApiResponse(responseCode = "404", description = "Registration not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -227,9 +366,11 @@ public class RegistrationController {
                                                   @RequestParam
                                                   @NotBlank(message = "Reason must be specified") String reason,
                                                   @Parameter(description = "Registration credentials")
-                                                  @RequestBody @Valid RegistrationCredentials registrationCredentials) {
+                                                  @RequestBody @Valid RegistrationCredentials registrationCredentials,
+                                                  HttpServletRequest request) {
         log.debug("Updating status for registration with id '{}'", registrationId);
-        return registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials);
+        return registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials,
+                request.getRemoteAddr());
     }
 
     @Operation(summary = "Search registrations")
@@ -238,6 +379,7 @@ public class RegistrationController {
                     @Content(mediaType = "application/json", schema = @Schema(
                             implementation = UpdatedRegistrationResponseDto.class))
             }),
+            @ApiResponse(responseCode = "304", description = "Registrations of the event have not changed"),
             @ApiResponse(responseCode = "500", description = "Unknown error", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             })
@@ -246,8 +388,13 @@ public class RegistrationController {
     public List<RegistrationResponseDto> searchRegistrations(@Parameter(description = "List of statuses")
                                                              @RequestParam List<RegistrationStatus> statuses,
                                                              @Parameter(description = "Event id")
-                                                             @RequestParam Long eventId) {
+                                                             @RequestParam Long eventId,
+                                                             WebRequest request,
+                                                             HttpServletResponse response) {
         log.debug("Requesting registrations for event with id '{}', statuses: {}", eventId, statuses);
+        if (isListNotModified(request, response, eventId)) {
+            return null;
+        }
         return registrationService.searchRegistrations(statuses, eventId);
     }
 
@@ -257,17 +404,53 @@ public class RegistrationController {
                     @Content(mediaType = "application/json", schema = @Schema(
                             implementation = UpdatedRegistrationResponseDto.class))
             }),
+            @ApiResponse(responseCode = "304", description = "Registrations of the event have not changed"),
             @ApiResponse(responseCode = "500", description = "Unknown error", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             })
     })
     @GetMapping("/count")
     public RegistrationCount getRegistrationsCountByEventId(@Parameter(description = "Event id")
-                                                            @RequestParam Long eventId) {
+                                                            @RequestParam Long eventId,
+                                                            WebRequest request) {
         log.debug("Requesting registrations count for event with id '{}'", eventId);
+        if (isNotModified(request, eventId)) {
+            return null;
+        }
         return registrationService.getRegistrationsCountByEventId(eventId);
     }
 
+    @Operation(summary = "Stream registrations count for event")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Registrations count events", content = {
+                    @Content(mediaType = "text/event-stream", schema = @Schema(implementation = RegistrationCount.class))
+            }),
+            @ApiResponse(responseCode = "503", description = "Too many subscribers")
+    })
+    @GetMapping("/count/stream")
+    public SseEmitter streamRegistrationsCountByEventId(@Parameter(description = "Event id")
+                                                        @RequestParam @Positive Long eventId) {
+        log.debug("Subscribing to registrations count for event with id '{}'", eventId);
+        return registrationCountPublisher.subscribe(eventId);
+    }
+
+    private boolean isNotModified(WebRequest request, Long eventId) {
+        final String etag = eventVersionRegistry.getETag(eventId);
+        return etag != null && request.checkNotModified(etag);
+    }
+
+    /**
+     * Lists are sent as JSON or protobuf depending on {@code Accept}, so their tags name the representation and
+     * caches are told to key them by {@code Accept} as well.
+     */
+    private boolean isListNotModified(WebRequest request, HttpServletResponse response, Long eventId) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        final String representation = RegistrationListProtobufHttpMessageConverter
+                .isSelected(request.getHeader(HttpHeaders.ACCEPT)) ? "protobuf" : null;
+        final String etag = eventVersionRegistry.getETag(eventId, representation);
+        return etag != null && request.checkNotModified(etag);
+    }
+
     private void validateStatus(RegistrationStatus newStatus) {
         if (newStatus.equals(RegistrationStatus.DECLINED)) {
             throw new IllegalArgumentException("Illegal status. To decline registration use different endpoint. " +
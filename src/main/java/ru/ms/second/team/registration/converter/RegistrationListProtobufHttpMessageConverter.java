@@ -0,0 +1,109 @@
+package ru.ms.second.team.registration.converter;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes and reads {@code List<RegistrationResponseDto>} as {@code application/x-protobuf}, chosen when the
+ * client asks for it in the {@code Accept} header. All other types are left to the JSON converter.
+ */
+public class RegistrationListProtobufHttpMessageConverter
+        extends AbstractGenericHttpMessageConverter<List<RegistrationResponseDto>> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private final RegistrationProtobufCodec codec = new RegistrationProtobufCodec();
+
+    /**
+     * Tells whether a list of registrations is written as protobuf for the given {@code Accept} header, before
+     * the response is written. Mirrors content negotiation with this converter registered after the JSON one: the
+     * most preferred accepted type decides, and JSON wins when it matches as well, e.g. for {@code *}{@code /*}.
+     */
+    public static boolean isSelected(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        final List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.isCompatibleWith(PROTOBUF)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public RegistrationListProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isRegistrationList(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isRegistrationList(type) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    protected void writeInternal(List<RegistrationResponseDto> registrations, Type type,
+                                 HttpOutputMessage outputMessage) throws IOException {
+        codec.write(registrations, outputMessage.getBody());
+    }
+
+    @Override
+    public List<RegistrationResponseDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException {
+        return codec.read(inputMessage.getBody());
+    }
+
+    @Override
+    protected List<RegistrationResponseDto> readInternal(Class<? extends List<RegistrationResponseDto>> clazz,
+                                                         HttpInputMessage inputMessage) throws IOException {
+        return codec.read(inputMessage.getBody());
+    }
+
+    private boolean isRegistrationList(Type type) {
+        return type instanceof ParameterizedType parameterizedType
+                && List.class.isAssignableFrom((Class<?>) parameterizedType.getRawType())
+                && parameterizedType.getActualTypeArguments()[0] == RegistrationResponseDto.class;
+    }
+}
@@ -0,0 +1,132 @@
+package ru.ms.second.team.registration.converter;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes lists of {@link RegistrationResponseDto} as the {@code RegistrationList} message of
+ * {@code src/main/proto/registration.proto} directly from the DTOs, without generated message classes.
+ */
+public class RegistrationProtobufCodec {
+
+    private static final int REGISTRATIONS = 1;
+    private static final int USERNAME = 1;
+    private static final int EMAIL = 2;
+    private static final int PHONE = 3;
+    private static final int EVENT_ID = 4;
+    private static final int STATUS = 5;
+    private static final int BUFFER_SIZE = 8192;
+
+    public void write(List<RegistrationResponseDto> registrations, OutputStream outputStream) throws IOException {
+        final CodedOutputStream output = CodedOutputStream.newInstance(outputStream, BUFFER_SIZE);
+        for (RegistrationResponseDto registration : registrations) {
+            output.writeTag(REGISTRATIONS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(computeSize(registration));
+            writeRegistration(registration, output);
+        }
+        output.flush();
+    }
+
+    public List<RegistrationResponseDto> read(InputStream inputStream) throws IOException {
+        final CodedInputStream input = CodedInputStream.newInstance(inputStream, BUFFER_SIZE);
+        final List<RegistrationResponseDto> registrations = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == REGISTRATIONS) {
+                final int limit = input.pushLimit(input.readRawVarint32());
+                registrations.add(readRegistration(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return registrations;
+    }
+
+    private void writeRegistration(RegistrationResponseDto registration, CodedOutputStream output)
+            throws IOException {
+        if (hasText(registration.username())) {
+            output.writeString(USERNAME, registration.username());
+        }
+        if (hasText(registration.email())) {
+            output.writeString(EMAIL, registration.email());
+        }
+        if (hasText(registration.phone())) {
+            output.writeString(PHONE, registration.phone());
+        }
+        if (registration.eventId() != null && registration.eventId() != 0) {
+            output.writeInt64(EVENT_ID, registration.eventId());
+        }
+        if (registration.status() != null) {
+            output.writeEnum(STATUS, toNumber(registration.status()));
+        }
+    }
+
+    private int computeSize(RegistrationResponseDto registration) {
+        int size = 0;
+        if (hasText(registration.username())) {
+            size += CodedOutputStream.computeStringSize(USERNAME, registration.username());
+        }
+        if (hasText(registration.email())) {
+            size += CodedOutputStream.computeStringSize(EMAIL, registration.email());
+        }
+        if (hasText(registration.phone())) {
+            size += CodedOutputStream.computeStringSize(PHONE, registration.phone());
+        }
+        if (registration.eventId() != null && registration.eventId() != 0) {
+            size += CodedOutputStream.computeInt64Size(EVENT_ID, registration.eventId());
+        }
+        if (registration.status() != null) {
+            size += CodedOutputStream.computeEnumSize(STATUS, toNumber(registration.status()));
+        }
+        return size;
+    }
+
+    private RegistrationResponseDto readRegistration(CodedInputStream input) throws IOException {
+        final RegistrationResponseDto.RegistrationResponseDtoBuilder registration = RegistrationResponseDto.builder();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case USERNAME -> registration.username(input.readStringRequireUtf8());
+                case EMAIL -> registration.email(input.readStringRequireUtf8());
+                case PHONE -> registration.phone(input.readStringRequireUtf8());
+                case EVENT_ID -> registration.eventId(input.readInt64());
+                case STATUS -> registration.status(fromNumber(input.readEnum()));
+                default -> input.skipField(tag);
+            }
+        }
+        return registration.build();
+    }
+
+    private boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private int toNumber(RegistrationStatus status) {
+        return switch (status) {
+            case PENDING -> 1;
+            case WAITING -> 2;
+            case APPROVED -> 3;
+            case DECLINED -> 4;
+        };
+    }
+
+    private RegistrationStatus fromNumber(int number) {
+        return switch (number) {
+            case 1 -> RegistrationStatus.PENDING;
+            case 2 -> RegistrationStatus.WAITING;
+            case 3 -> RegistrationStatus.APPROVED;
+            case 4 -> RegistrationStatus.DECLINED;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package ru.ms.second.team.registration.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.Map;
+
+@Builder
+@Schema(description = "Registrations found by list of ids")
+public record RegistrationBatchResponseDto(
+
+        @Schema(description = "Found registrations by id, in the order of requested ids")
+        Map<Long, RegistrationResponseDto> registrations,
+
+        @Schema(description = "Requested ids without registration")
+        List<Long> missingIds
+) {
+}
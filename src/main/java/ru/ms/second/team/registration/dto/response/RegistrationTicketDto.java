@@ -0,0 +1,28 @@
+package ru.ms.second.team.registration.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.ms.second.team.registration.model.RegistrationTicketState;
+
+import java.util.UUID;
+
+@Builder
+@Schema(description = "Queued registration request")
+public record RegistrationTicketDto(
+
+        @Schema(description = "Ticket to poll the request state with")
+        UUID ticket,
+
+        @Schema(description = "Request state")
+        RegistrationTicketState state,
+
+        @Schema(description = "Registration id, once created")
+        Long id,
+
+        @Schema(description = "Registration password, once created")
+        String password,
+
+        @Schema(description = "Reason of rejection")
+        String error
+) {
+}
@@ -3,17 +3,30 @@ package ru.ms.second.team.registration.exception.controller;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import ru.ms.second.team.registration.exception.exceptions.AlreadyExistsException;
+import ru.ms.second.team.registration.exception.exceptions.EventFullException;
+import ru.ms.second.team.registration.exception.exceptions.EventOwnedByAnotherNodeException;
+import ru.ms.second.team.registration.exception.exceptions.IdempotencyKeyReusedException;
+import ru.ms.second.team.registration.exception.exceptions.IdempotentRequestInProgressException;
+import ru.ms.second.team.registration.exception.exceptions.NotAdmittedException;
 import ru.ms.second.team.registration.exception.exceptions.NotAuthorizedException;
 import ru.ms.second.team.registration.exception.exceptions.NotFoundException;
 import ru.ms.second.team.registration.exception.exceptions.PasswordIncorrectException;
+import ru.ms.second.team.registration.exception.exceptions.SubscriberLimitExceededException;
+import ru.ms.second.team.registration.exception.exceptions.TooManyPasswordAttemptsException;
 import ru.ms.second.team.registration.exception.model.ErrorResponse;
+import ru.ms.second.team.registration.service.admission.WaitingRoom;
+
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 @Slf4j
@@ -32,6 +45,15 @@ public class ErrorHandler {
         return new ErrorResponse(HttpStatus.BAD_REQUEST.toString(), e.getMessage());
     }
 
+    @ExceptionHandler(TooManyPasswordAttemptsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyPasswordAttemptsException(
+            final TooManyPasswordAttemptsException e) {
+        log.warn("{}, {}", HttpStatus.TOO_MANY_REQUESTS, e.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.toString(), e.getMessage()));
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleConstraintViolationException(final ConstraintViolationException e) {
@@ -39,6 +61,29 @@ public class ErrorHandler {
         return new ErrorResponse(HttpStatus.BAD_REQUEST.toString(), e.getMessage());
     }
 
+    @ExceptionHandler(AlreadyExistsException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleAlreadyExistsException(final AlreadyExistsException e) {
+        log.error("{}, {}", HttpStatus.CONFLICT, e.getLocalizedMessage());
+        return new ErrorResponse(HttpStatus.CONFLICT.toString(), e.getMessage());
+    }
+
+    @ExceptionHandler(EventFullException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleEventFullException(final EventFullException e) {
+        log.warn("{}, {}", HttpStatus.CONFLICT, e.getLocalizedMessage());
+        return new ErrorResponse(HttpStatus.CONFLICT.toString(), e.getMessage());
+    }
+
+    @ExceptionHandler(NotAdmittedException.class)
+    public ResponseEntity<ErrorResponse> handleNotAdmittedException(final NotAdmittedException e) {
+        log.debug("{}, {}", HttpStatus.TOO_MANY_REQUESTS, e.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .header(WaitingRoom.TOKEN_HEADER, e.getToken())
+                .body(new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.toString(), e.getMessage()));
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleDataIntegrityException(final DataIntegrityViolationException e) {
@@ -46,6 +91,22 @@ public class ErrorHandler {
         return new ErrorResponse(HttpStatus.CONFLICT.toString(), e.getLocalizedMessage());
     }
 
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponse handleIdempotencyKeyReusedException(final IdempotencyKeyReusedException e) {
+        log.error("{}, {}", HttpStatus.UNPROCESSABLE_ENTITY, e.getLocalizedMessage());
+        return new ErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY.toString(), e.getMessage());
+    }
+
+    @ExceptionHandler(IdempotentRequestInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotentRequestInProgressException(
+            final IdempotentRequestInProgressException e) {
+        log.warn("{}, {}", HttpStatus.CONFLICT, e.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(HttpStatus.CONFLICT.toString(), e.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMethodArgumentNotValidException(final MethodArgumentNotValidException e) {
@@ -75,6 +136,29 @@ public class ErrorHandler {
                 HttpStatus.BAD_REQUEST.getReasonPhrase(), e.getLocalizedMessage());
     }
 
+    @ExceptionHandler(EventOwnedByAnotherNodeException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleEventOwnedByAnotherNodeException(final EventOwnedByAnotherNodeException e) {
+        log.warn("{}, {}", HttpStatus.SERVICE_UNAVAILABLE, e.getLocalizedMessage());
+        return new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.toString(), e.getMessage());
+    }
+
+    // Subscribers accept only text/event-stream, so the rejection carries no body
+    @ExceptionHandler(SubscriberLimitExceededException.class)
+    public ResponseEntity<Void> handleSubscriberLimitExceededException(final SubscriberLimitExceededException e) {
+        log.warn("{}, {}", HttpStatus.SERVICE_UNAVAILABLE, e.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .build();
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleRejectedExecutionException(final RejectedExecutionException e) {
+        log.error("{}, {}", HttpStatus.SERVICE_UNAVAILABLE, e.getLocalizedMessage());
+        return new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.toString(), "Too many pending status changes, retry later");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleUnknownError(final Exception e) {
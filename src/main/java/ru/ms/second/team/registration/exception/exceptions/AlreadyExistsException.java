@@ -0,0 +1,7 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+public class AlreadyExistsException extends RuntimeException {
+    public AlreadyExistsException(String message) {
+        super(message);
+    }
+}
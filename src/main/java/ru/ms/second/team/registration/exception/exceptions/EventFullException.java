@@ -0,0 +1,7 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+public class EventFullException extends RuntimeException {
+    public EventFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+public class EventOwnedByAnotherNodeException extends RuntimeException {
+    public EventOwnedByAnotherNodeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
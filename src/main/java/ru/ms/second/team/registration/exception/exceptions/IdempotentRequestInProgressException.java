@@ -0,0 +1,7 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+public class IdempotentRequestInProgressException extends RuntimeException {
+    public IdempotentRequestInProgressException(String message) {
+        super(message);
+    }
+}
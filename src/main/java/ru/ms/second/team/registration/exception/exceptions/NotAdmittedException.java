@@ -0,0 +1,15 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class NotAdmittedException extends RuntimeException {
+    private final String token;
+    private final long retryAfterSeconds;
+
+    public NotAdmittedException(String message, String token, long retryAfterSeconds) {
+        super(message);
+        this.token = token;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.ms.second.team.registration.exception.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class TooManyPasswordAttemptsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyPasswordAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.ms.second.team.registration.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit adjusted to observed latency with the gradient algorithm.
+ * <p>
+ * A long-term average of request latency serves as the no-load baseline. Every completed request compares its
+ * latency to the baseline: while latency stays within {@code tolerance} of it the limit grows by a small queue
+ * allowance, and as latency rises above it the limit shrinks in proportion, down to half per update. The limit
+ * only grows while at least half of it is in use, so an idle service does not drift to the maximum.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private static final double LONG_RTT_WINDOW = 600;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private volatile double limit;
+    private double longRtt;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit and, when {@code rttNanos} is positive, adjusts the limit to that latency sample.
+     */
+    void release(long rttNanos) {
+        final int inFlightAtCompletion = inFlight.getAndDecrement();
+        if (rttNanos > 0 && lock.tryLock()) {
+            try {
+                update(rttNanos, inFlightAtCompletion);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(long rttNanos, int inFlightAtCompletion) {
+        final double shortRtt = rttNanos;
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_RTT_WINDOW;
+        if (longRtt / shortRtt > 2) {
+            // latency dropped well below the baseline, let the baseline follow quickly
+            longRtt *= 0.95;
+        }
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+        final double queueSize = Math.sqrt(limit);
+        final double newLimit = limit * gradient + queueSize;
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+}
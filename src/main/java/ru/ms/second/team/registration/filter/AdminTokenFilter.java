@@ -0,0 +1,79 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import ru.ms.second.team.registration.exception.model.ErrorResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Lets only callers that present {@code app.admin.token} in the {@value #TOKEN_HEADER} header reach the admin
+ * paths ({@code app.admin.paths}). Without a configured token the admin paths are closed to everyone.
+ * <p>
+ * Paths are matched after decoding, dropping path parameters and resolving duplicate slashes and dot segments, the
+ * same way the request is mapped to a handler, so that {@code /actuator/%70rofiling} or
+ * {@code //actuator/profiling} are not let through.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdminTokenFilter extends OncePerRequestFilter {
+
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    private final ObjectMapper objectMapper;
+    private final List<String> paths;
+    private final byte[] token;
+
+    public AdminTokenFilter(ObjectMapper objectMapper,
+                            @Value("${app.admin.paths:/actuator/profiling,/actuator/statements}") List<String> paths,
+                            @Value("${app.admin.token:}") String token) {
+        this.objectMapper = objectMapper;
+        this.paths = List.copyOf(paths);
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        final String path = StringUtils.cleanPath(PATH_HELPER.getPathWithinApplication(request));
+        return paths.stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final String presented = request.getHeader(TOKEN_HEADER);
+        if (token.length == 0 || presented == null
+                || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected {} {} without a valid admin token", request.getMethod(), request.getRequestURI());
+            reject(response);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.FORBIDDEN.toString(), "Admin token is missing or invalid"));
+    }
+}
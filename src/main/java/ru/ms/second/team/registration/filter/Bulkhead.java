@@ -0,0 +1,57 @@
+package ru.ms.second.team.registration.filter;
+
+import lombok.Getter;
+import ru.ms.second.team.registration.config.datasource.RoutingDataSource;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of request threads an endpoint group may occupy. A request waits at most {@code maxWait} for
+ * a free slot and is rejected afterwards.
+ */
+class Bulkhead {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final RoutingDataSource.Pool pool;
+    @Getter
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+
+    Bulkhead(String name, RoutingDataSource.Pool pool, int maxConcurrent, long maxWaitNanos) {
+        this.name = name;
+        this.pool = pool;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWaitNanos;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    boolean tryAcquire() throws InterruptedException {
+        if (permits.tryAcquire() || maxWaitNanos > 0 && permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,145 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.ms.second.team.registration.config.datasource.RoutingDataSource;
+import ru.ms.second.team.registration.exception.model.ErrorResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bulkheads of the registrations API: search, count, other reads and writes each get their own share of request
+ * threads, and reads and writes take connections from separate pools (see {@link RoutingDataSource}).
+ * <p>
+ * A request whose group is full waits up to the group's {@code max-wait} and is rejected with 503 afterwards,
+ * so that a flood of polling reads is turned away while {@code POST /registrations} still finds free threads and
+ * connections. Occupancy, waiting and rejected requests of every group are published as
+ * {@code registration.bulkhead.*} metrics. Off by default, turned on with {@code app.bulkhead.enabled=true}.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+public class BulkheadFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final String API_PATH = "/registrations";
+    private static final String SEARCH_PATH = "/registrations/search";
+    private static final String COUNT_PATH = "/registrations/count";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Bulkhead search;
+    private final Bulkhead count;
+    private final Bulkhead read;
+    private final Bulkhead write;
+
+    public BulkheadFilter(ObjectMapper objectMapper,
+                          @Value("${app.bulkhead.enabled:false}") boolean enabled,
+                          @Value("${app.bulkhead.search.max-concurrent:20}") int searchMaxConcurrent,
+                          @Value("${app.bulkhead.search.max-wait:0ms}") Duration searchMaxWait,
+                          @Value("${app.bulkhead.count.max-concurrent:20}") int countMaxConcurrent,
+                          @Value("${app.bulkhead.count.max-wait:0ms}") Duration countMaxWait,
+                          @Value("${app.bulkhead.read.max-concurrent:60}") int readMaxConcurrent,
+                          @Value("${app.bulkhead.read.max-wait:50ms}") Duration readMaxWait,
+                          @Value("${app.bulkhead.write.max-concurrent:100}") int writeMaxConcurrent,
+                          @Value("${app.bulkhead.write.max-wait:500ms}") Duration writeMaxWait) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.search = new Bulkhead("search", RoutingDataSource.Pool.READ, searchMaxConcurrent,
+                searchMaxWait.toNanos());
+        this.count = new Bulkhead("count", RoutingDataSource.Pool.READ, countMaxConcurrent, countMaxWait.toNanos());
+        this.read = new Bulkhead("read", RoutingDataSource.Pool.READ, readMaxConcurrent, readMaxWait.toNanos());
+        this.write = new Bulkhead("write", RoutingDataSource.Pool.WRITE, writeMaxConcurrent,
+                writeMaxWait.toNanos());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final Bulkhead bulkhead = resolveBulkhead(request);
+        if (!acquire(bulkhead)) {
+            log.debug("Bulkhead {} is full, {} of {} requests in progress", bulkhead.getName(),
+                    bulkhead.getActive(), bulkhead.getMaxConcurrent());
+            reject(response);
+            return;
+        }
+        try (RoutingDataSource.Scope ignored = RoutingDataSource.bind(bulkhead.getPool())) {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Bulkhead bulkhead : List.of(search, count, read, write)) {
+            Gauge.builder("registration.bulkhead.active", bulkhead, Bulkhead::getActive)
+                    .description("Requests in progress")
+                    .tag("group", bulkhead.getName())
+                    .register(registry);
+            Gauge.builder("registration.bulkhead.waiting", bulkhead, Bulkhead::getWaiting)
+                    .description("Requests waiting for a free slot")
+                    .tag("group", bulkhead.getName())
+                    .register(registry);
+            Gauge.builder("registration.bulkhead.limit", bulkhead, Bulkhead::getMaxConcurrent)
+                    .description("Maximum number of requests in progress")
+                    .tag("group", bulkhead.getName())
+                    .register(registry);
+            FunctionCounter.builder("registration.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                    .description("Requests rejected because the bulkhead was full")
+                    .tag("group", bulkhead.getName())
+                    .register(registry);
+        }
+    }
+
+    private Bulkhead resolveBulkhead(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return write;
+        }
+        final String uri = request.getRequestURI();
+        if (uri.startsWith(SEARCH_PATH)) {
+            return search;
+        }
+        return uri.startsWith(COUNT_PATH) ? count : read;
+    }
+
+    private boolean acquire(Bulkhead bulkhead) {
+        try {
+            return bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.toString(), "Service is busy, retry later"));
+    }
+}
@@ -0,0 +1,98 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.ms.second.team.registration.exception.model.ErrorResponse;
+
+import java.io.IOException;
+
+/**
+ * Adaptive concurrency limiting of the registrations API, so that overload turns into fast 503 responses instead
+ * of growing queueing latency.
+ * <p>
+ * Reads and writes have separate {@link AdaptiveConcurrencyLimit}s. Writes have priority: while writes use more
+ * than {@code write-priority-threshold} of their limit, reads are shed regardless of their own limit.
+ * Long-lived async requests, such as the count stream, release their permit without a latency sample.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PATH = "/registrations";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final double writePriorityThreshold;
+    private final AdaptiveConcurrencyLimit readLimit;
+    private final AdaptiveConcurrencyLimit writeLimit;
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper,
+                                  @Value("${app.concurrency-limit.enabled:false}") boolean enabled,
+                                  @Value("${app.concurrency-limit.min-limit:10}") int minLimit,
+                                  @Value("${app.concurrency-limit.tolerance:1.5}") double tolerance,
+                                  @Value("${app.concurrency-limit.write-priority-threshold:0.8}")
+                                  double writePriorityThreshold,
+                                  @Value("${app.concurrency-limit.read.initial-limit:100}") int readInitialLimit,
+                                  @Value("${app.concurrency-limit.read.max-limit:400}") int readMaxLimit,
+                                  @Value("${app.concurrency-limit.write.initial-limit:50}") int writeInitialLimit,
+                                  @Value("${app.concurrency-limit.write.max-limit:200}") int writeMaxLimit) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.writePriorityThreshold = writePriorityThreshold;
+        this.readLimit = new AdaptiveConcurrencyLimit(readInitialLimit, minLimit, readMaxLimit, tolerance);
+        this.writeLimit = new AdaptiveConcurrencyLimit(writeInitialLimit, minLimit, writeMaxLimit, tolerance);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final boolean write = !HttpMethod.GET.matches(request.getMethod());
+        final AdaptiveConcurrencyLimit limit = write ? writeLimit : readLimit;
+        if (!write && isWritePressure() || !limit.tryAcquire()) {
+            log.debug("Concurrency limit of {} exceeded, in flight: reads {}/{}, writes {}/{}",
+                    write ? "writes" : "reads", readLimit.getInFlight(), readLimit.getLimit(),
+                    writeLimit.getInFlight(), writeLimit.getLimit());
+            reject(response);
+            return;
+        }
+        final long start = System.nanoTime();
+        boolean sample = false;
+        try {
+            filterChain.doFilter(request, response);
+            sample = !request.isAsyncStarted() && response.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            limit.release(sample ? System.nanoTime() - start : 0);
+        }
+    }
+
+    private boolean isWritePressure() {
+        return writeLimit.getInFlight() > writeLimit.getLimit() * writePriorityThreshold;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.toString(), "Service is overloaded, retry later"));
+    }
+}
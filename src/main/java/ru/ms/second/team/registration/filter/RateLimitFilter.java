@@ -0,0 +1,139 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.ms.second.team.registration.exception.model.ErrorResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token-bucket rate limiting of the registrations API, applied before any controller work.
+ * <p>
+ * Clients are identified by {@code X-User-Id}, or by remote address when the header is absent. Every client has
+ * separate buckets for search, other reads and writes. Fully refilled buckets carry no state and are dropped by
+ * a periodic sweep; when more than {@code max-buckets} clients are active, the least recently used ones are
+ * dropped as well.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+    private static final String API_PATH = "/registrations";
+    private static final String SEARCH_PATH = "/registrations/search";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBuckets;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Quota searchQuota;
+    private final Quota readQuota;
+    private final Quota writeQuota;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.max-buckets:100000}") int maxBuckets,
+                           @Value("${app.rate-limit.search.capacity:20}") int searchCapacity,
+                           @Value("${app.rate-limit.search.refill-period:1s}") Duration searchRefillPeriod,
+                           @Value("${app.rate-limit.read.capacity:100}") int readCapacity,
+                           @Value("${app.rate-limit.read.refill-period:100ms}") Duration readRefillPeriod,
+                           @Value("${app.rate-limit.write.capacity:20}") int writeCapacity,
+                           @Value("${app.rate-limit.write.refill-period:200ms}") Duration writeRefillPeriod) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBuckets = maxBuckets;
+        this.searchQuota = new Quota("search", searchCapacity, searchRefillPeriod.toNanos());
+        this.readQuota = new Quota("read", readCapacity, readRefillPeriod.toNanos());
+        this.writeQuota = new Quota("write", writeCapacity, writeRefillPeriod.toNanos());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final Quota quota = resolveQuota(request);
+        final String key = quota.name() + ":" + resolveClient(request);
+        final long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                evictBuckets(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(quota.capacity(), quota.refillNanos(), now));
+        }
+        final long waitNanos = bucket.tryConsume(now);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        log.debug("Rate limit of {} requests exceeded by {}", quota.name(), key);
+        reject(response, waitNanos);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:PT1M}")
+    public void evictFullBuckets() {
+        final long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private void evictBuckets(long now) {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        final int excess = buckets.size() - maxBuckets + maxBuckets / 10;
+        if (excess > 0) {
+            log.warn("Rate limiter tracks too many clients, evicting {} least recently used buckets", excess);
+            buckets.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().getFullAt()))
+                    .limit(excess)
+                    .toList()
+                    .forEach(entry -> buckets.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private Quota resolveQuota(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return writeQuota;
+        }
+        return request.getRequestURI().startsWith(SEARCH_PATH) ? searchQuota : readQuota;
+    }
+
+    private String resolveClient(HttpServletRequest request) {
+        final String userId = request.getHeader(USER_ID_HEADER);
+        return userId != null && !userId.isBlank() ? "user:" + userId.trim() : "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        final long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.toString(),
+                "Rate limit exceeded, retry after " + retryAfterSeconds + " s"));
+    }
+
+    private record Quota(String name, int capacity, long refillNanos) {
+    }
+}
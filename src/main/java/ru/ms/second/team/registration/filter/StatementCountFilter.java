@@ -0,0 +1,138 @@
+package ru.ms.second.team.registration.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.ms.second.team.registration.statistics.StatementCounter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the JDBC statements of every request and aggregates them per endpoint, so that an endpoint whose
+ * statement count grows with the data (an N+1 pattern) stands out. Counts are published as the
+ * {@code http.server.requests.statements} summary, tagged with {@code method} and {@code uri}, and a request that
+ * executes more than {@code app.statements.warn-threshold} statements is logged.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 40)
+public class StatementCountFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final boolean enabled;
+    private final int warnThreshold;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public StatementCountFilter(@Value("${app.statements.enabled:true}") boolean enabled,
+                                @Value("${app.statements.warn-threshold:20}") int warnThreshold) {
+        this.enabled = enabled;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final StatementCounter.Scope statements = StatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements.close();
+            record(request, statements.getCount());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns the statement statistics of every endpoint called so far, keyed by method and URI pattern.
+     */
+    public Map<String, EndpointStatements> getStatistics() {
+        final Map<String, EndpointStatements> statistics = new TreeMap<>();
+        endpoints.forEach((key, endpoint) -> statistics.put(key, endpoint.snapshot()));
+        return statistics;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private void record(HttpServletRequest request, int statements) {
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final String method = request.getMethod();
+        final String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+        final String key = method + " " + uri;
+        endpoints.computeIfAbsent(key, ignored -> new Endpoint(summary(method, uri))).record(statements);
+        if (statements > warnThreshold) {
+            log.warn("{} executed {} statements, more than {}", key, statements, warnThreshold);
+        }
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+        final MeterRegistry meterRegistry = registry;
+        if (meterRegistry == null) {
+            return null;
+        }
+        return DistributionSummary.builder("http.server.requests.statements")
+                .description("JDBC statements executed per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    public record EndpointStatements(long requests, long statements, double mean, long max) {
+    }
+
+    private static final class Endpoint {
+
+        private final DistributionSummary summary;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Endpoint(DistributionSummary summary) {
+            this.summary = summary;
+        }
+
+        private void record(int count) {
+            requests.increment();
+            statements.add(count);
+            max.accumulate(count);
+            if (summary != null) {
+                summary.record(count);
+            }
+        }
+
+        private EndpointStatements snapshot() {
+            final long requestCount = requests.sum();
+            final long statementCount = statements.sum();
+            return new EndpointStatements(requestCount, statementCount,
+                    requestCount == 0 ? 0 : (double) statementCount / requestCount, max.get());
+        }
+    }
+}
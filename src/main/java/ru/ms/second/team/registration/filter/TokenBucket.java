@@ -0,0 +1,47 @@
+package ru.ms.second.team.registration.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket of {@code capacity} tokens refilled at one token per {@code refillIntervalNanos}.
+ * <p>
+ * Instead of a token count the bucket keeps the time at which it will be full again, in the style of the generic
+ * cell rate algorithm, so that taking a token is a single compare-and-set of one {@code long}.
+ */
+class TokenBucket {
+
+    private final long refillIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(int capacity, long refillIntervalNanos, long now) {
+        this.refillIntervalNanos = refillIntervalNanos;
+        this.burstNanos = refillIntervalNanos * capacity;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token and returns {@code 0}, or returns the number of nanoseconds until a token is available.
+     */
+    long tryConsume(long now) {
+        while (true) {
+            final long current = fullAt.get();
+            final long next = Math.max(current, now) + refillIntervalNanos;
+            final long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isFull(long now) {
+        return fullAt.get() <= now;
+    }
+
+    long getFullAt() {
+        return fullAt.get();
+    }
+}
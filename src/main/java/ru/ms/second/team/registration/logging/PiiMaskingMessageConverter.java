@@ -0,0 +1,60 @@
+package ru.ms.second.team.registration.logging;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Logback {@code %maskedMsg} conversion word: the formatted message with e-mails, phone numbers and
+ * {@code username=}/{@code password=} values masked, so that personal data never reaches the log output.
+ */
+public class PiiMaskingMessageConverter extends MessageConverter {
+
+    private static final Pattern EMAIL = Pattern.compile("([\\w.+-])[\\w.+-]*@([\\w-]+(?:\\.[\\w-]+)+)");
+    private static final Pattern PHONE = Pattern.compile("(?<![\\w.])\\+?\\d{9,13}(\\d{2})(?![\\w.])");
+    private static final Pattern SECRET = Pattern.compile("(?i)\\b(username|password|phone|email)=([^,\\s)\\]}]+)");
+    private static final int PHONE_MIN_DIGITS = 11;
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return mask(event.getFormattedMessage());
+    }
+
+    static String mask(String message) {
+        if (message == null || message.isEmpty()) {
+            return message;
+        }
+        String masked = message;
+        if (masked.indexOf('=') >= 0) {
+            masked = replace(SECRET, masked, "$1=***");
+        }
+        if (masked.indexOf('@') >= 0) {
+            masked = replace(EMAIL, masked, "$1***@$2");
+        }
+        if (hasDigitRun(masked)) {
+            masked = replace(PHONE, masked, "***$1");
+        }
+        return masked;
+    }
+
+    private static String replace(Pattern pattern, String message, String replacement) {
+        final Matcher matcher = pattern.matcher(message);
+        return matcher.find() ? matcher.replaceAll(replacement) : message;
+    }
+
+    private static boolean hasDigitRun(String message) {
+        int run = 0;
+        for (int i = 0; i < message.length(); i++) {
+            if (Character.isDigit(message.charAt(i))) {
+                if (++run == PHONE_MIN_DIGITS) {
+                    return true;
+                }
+            } else {
+                run = 0;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.ms.second.team.registration.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one of every {@code rate} events of the configured loggers, so that high-frequency request logs
+ * cost a fraction of their volume. Events at {@code WARN} and above and events of other loggers always pass.
+ * <p>
+ * Events are counted per message template, before arguments are substituted, so that a chatty statement cannot
+ * crowd out rare ones: the first event of every template passes. Once {@code maxTemplates} templates are counted,
+ * for instance because messages are built by concatenation, further templates share one counter.
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicLong overflowCounter = new AtomicLong();
+    private int rate = 1;
+    private int maxTemplates = 1000;
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (rate <= 1 || event.getLevel().isGreaterOrEqual(Level.WARN) || !isSampled(event.getLoggerName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return counterOf(event).getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void addLoggerPrefix(String loggerPrefix) {
+        loggerPrefixes.add(loggerPrefix);
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    public void setMaxTemplates(int maxTemplates) {
+        this.maxTemplates = maxTemplates;
+    }
+
+    private AtomicLong counterOf(ILoggingEvent event) {
+        final String template = event.getMessage() == null ? event.getLoggerName() : event.getMessage();
+        final AtomicLong counter = counters.get(template);
+        if (counter != null) {
+            return counter;
+        }
+        if (counters.size() >= maxTemplates) {
+            return overflowCounter;
+        }
+        return counters.computeIfAbsent(template, key -> new AtomicLong());
+    }
+
+    private boolean isSampled(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
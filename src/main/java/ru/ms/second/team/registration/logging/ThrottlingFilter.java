@@ -0,0 +1,44 @@
+package ru.ms.second.team.registration.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passes at most {@code maxPerSecond} events per one-second window and drops the rest. The number of events
+ * dropped in a window is reported to the logback status manager when the next window starts.
+ */
+public class ThrottlingFilter extends Filter<ILoggingEvent> {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long maxPerSecond = 50;
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        final long now = System.nanoTime();
+        final long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            passed.set(0);
+            final long droppedInWindow = dropped.getAndSet(0);
+            if (droppedInWindow > 0) {
+                addInfo("Dropped " + droppedInWindow + " events of " + event.getLoggerName() + " over the limit of "
+                        + maxPerSecond + " per second");
+            }
+        }
+        if (passed.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        dropped.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    public void setMaxPerSecond(long maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+}
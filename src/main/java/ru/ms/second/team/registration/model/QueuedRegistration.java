@@ -0,0 +1,9 @@
+package ru.ms.second.team.registration.model;
+
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+
+/**
+ * Registration request claimed from the queue by a worker.
+ */
+public record QueuedRegistration(long id, Long userId, NewRegistrationDto registration, int attempts) {
+}
@@ -0,0 +1,10 @@
+package ru.ms.second.team.registration.model;
+
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
+
+/**
+ * Registration request found in the queue by its idempotency key, with the current state of its ticket.
+ */
+public record QueuedRequest(NewRegistrationDto registration, RegistrationTicketDto ticket) {
+}
@@ -0,0 +1,19 @@
+package ru.ms.second.team.registration.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "State of a queued registration request")
+public enum RegistrationTicketState {
+
+    @Schema(description = "Waiting in the queue")
+    QUEUED,
+
+    @Schema(description = "Taken by a worker")
+    PROCESSING,
+
+    @Schema(description = "Registration created")
+    CREATED,
+
+    @Schema(description = "Registration rejected")
+    FAILED
+}
@@ -0,0 +1,204 @@
+package ru.ms.second.team.registration.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Takes Java Flight Recorder recordings, one at a time. A recording uses one of the JDK's settings, {@code default}
+ * (about 1% overhead) or {@code profile} (more frequent CPU samples and allocation profiling, about 2%), is capped
+ * at {@code app.profiling.max-duration} and {@code app.profiling.max-size}, and is written to
+ * {@code app.profiling.directory}, which keeps the {@code app.profiling.retained-recordings} most recent ones.
+ */
+@Slf4j
+@Component
+public class FlightRecorderProfiler {
+
+    public static final Set<String> PROFILES = Set.of("default", "profile");
+
+    private static final String EXTENSION = ".jfr";
+    private static final Pattern FILE_NAME = Pattern.compile("[\\w-]+\\.jfr");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path directory;
+    private final Duration maxDuration;
+    private final long maxSize;
+    private final int retainedRecordings;
+    private final AtomicBoolean recording = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "jfr-recording");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FlightRecorderProfiler(@Value("${app.profiling.directory:${java.io.tmpdir}/registration-service-jfr}")
+                                  Path directory,
+                                  @Value("${app.profiling.max-duration:5m}") Duration maxDuration,
+                                  @Value("${app.profiling.max-size:100MB}") DataSize maxSize,
+                                  @Value("${app.profiling.retained-recordings:10}") int retainedRecordings) {
+        this.directory = directory;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize.toBytes();
+        this.retainedRecordings = retainedRecordings;
+    }
+
+    /**
+     * Starts a recording named after {@code reason} that stops after {@code duration}.
+     *
+     * @return the started recording, or empty when another recording is in progress
+     * @throws IllegalArgumentException when the profile is unknown or the duration is not positive or longer
+     *                                  than the maximum
+     */
+    public Optional<StartedRecording> record(String profile, Duration duration, String reason) {
+        if (!PROFILES.contains(profile)) {
+            throw new IllegalArgumentException("Profile must be one of " + PROFILES);
+        }
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("Duration must be positive and at most " + maxDuration);
+        }
+        if (!recording.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        Recording jfr = null;
+        try {
+            Files.createDirectories(directory);
+            final Path file = directory.resolve(reason + "-" + LocalDateTime.now().format(TIMESTAMP) + EXTENSION);
+            jfr = new Recording(Configuration.getConfiguration(profile));
+            jfr.setName("registration-service-" + reason);
+            jfr.setToDisk(true);
+            jfr.setMaxSize(maxSize);
+            jfr.start();
+            log.info("Started {} recording with '{}' settings for {}", reason, profile, duration);
+            final Recording started = jfr;
+            final CompletableFuture<Path> result = new CompletableFuture<>();
+            scheduler.schedule(() -> finish(started, file, result), duration.toMillis(), TimeUnit.MILLISECONDS);
+            return Optional.of(new StartedRecording(file.getFileName().toString(), result));
+        } catch (IOException | ParseException | RuntimeException e) {
+            if (jfr != null) {
+                jfr.close();
+            }
+            recording.set(false);
+            throw new IllegalStateException("Failed to start a recording", e);
+        }
+    }
+
+    public boolean isRecording() {
+        return recording.get();
+    }
+
+    /**
+     * Returns the kept recordings, most recent first.
+     */
+    public List<RecordingFile> findRecordings() {
+        return files().stream().map(this::toRecordingFile).toList();
+    }
+
+    /**
+     * Returns the kept recording with the given file name.
+     */
+    public Optional<Path> findRecording(String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        final Path file = directory.resolve(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void finish(Recording jfr, Path file, CompletableFuture<Path> result) {
+        try (jfr) {
+            jfr.stop();
+            // Written aside and moved, so that the file is never listed or downloaded half-written
+            final Path partial = file.resolveSibling(file.getFileName() + ".part");
+            jfr.dump(partial);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Recording written to {}, {} bytes", file, Files.size(file));
+            prune();
+            result.complete(file);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write recording to {}", file, e);
+            result.completeExceptionally(e);
+        } finally {
+            recording.set(false);
+        }
+    }
+
+    private void prune() {
+        files().stream().skip(retainedRecordings).forEach(file -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete old recording {}", file, e);
+            }
+        });
+    }
+
+    private List<Path> files() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(this::lastModified).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RecordingFile toRecordingFile(Path file) {
+        try {
+            return new RecordingFile(file.getFileName().toString(), Files.size(file), lastModified(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A recording in progress: the name its file will be listed and downloaded under, and the file, completed once
+     * the recording is written.
+     */
+    public record StartedRecording(String name, CompletableFuture<Path> file) {
+    }
+
+    public record RecordingFile(String name, long size, Instant created) {
+    }
+}
@@ -0,0 +1,137 @@
+package ru.ms.second.team.registration.profiling;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a Flight Recorder recording when the p99 latency of an endpoint over the last check interval exceeds
+ * {@code app.profiling.auto.p99-threshold}, so that a profile of a real incident is captured while it happens.
+ * The p99 is read from the {@code http.server.requests} histograms; endpoints with fewer than
+ * {@code app.profiling.auto.min-requests} requests in the interval and the actuator endpoints are ignored, and
+ * after a recording no other is started for {@code app.profiling.auto.cooldown}.
+ */
+@Slf4j
+@Component
+public class LatencyProfilingTrigger {
+
+    static final String REQUESTS_METER = "http.server.requests";
+    static final String REASON = "p99";
+
+    private static final String ACTUATOR_PATH = "/actuator";
+    private static final double PERCENTILE = 0.99;
+    private static final HistogramSnapshot EMPTY = HistogramSnapshot.empty(0, 0, 0);
+
+    private final MeterRegistry meterRegistry;
+    private final FlightRecorderProfiler profiler;
+    private final boolean enabled;
+    private final Duration threshold;
+    private final long minRequests;
+    private final String profile;
+    private final Duration duration;
+    private final Duration cooldown;
+    private final Map<Meter.Id, HistogramSnapshot> previous = new HashMap<>();
+    private Long lastTriggeredAt;
+
+    public LatencyProfilingTrigger(MeterRegistry meterRegistry,
+                                   FlightRecorderProfiler profiler,
+                                   @Value("${app.profiling.auto.enabled:false}") boolean enabled,
+                                   @Value("${app.profiling.auto.p99-threshold:2s}") Duration threshold,
+                                   @Value("${app.profiling.auto.min-requests:100}") long minRequests,
+                                   @Value("${app.profiling.auto.profile:profile}") String profile,
+                                   @Value("${app.profiling.auto.duration:60s}") Duration duration,
+                                   @Value("${app.profiling.auto.cooldown:15m}") Duration cooldown) {
+        this.meterRegistry = meterRegistry;
+        this.profiler = profiler;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.minRequests = minRequests;
+        this.profile = profile;
+        this.duration = duration;
+        this.cooldown = cooldown;
+    }
+
+    @Scheduled(fixedDelayString = "${app.profiling.auto.interval:PT10S}")
+    public void check() {
+        if (!enabled) {
+            return;
+        }
+        final double thresholdNanos = threshold.toNanos();
+        String slowest = null;
+        double slowestP99 = 0;
+        for (Timer timer : meterRegistry.find(REQUESTS_METER).timers()) {
+            final String uri = timer.getId().getTag("uri");
+            if (uri != null && uri.startsWith(ACTUATOR_PATH)) {
+                continue;
+            }
+            final HistogramSnapshot snapshot = timer.takeSnapshot();
+            final HistogramSnapshot before = previous.getOrDefault(timer.getId(), EMPTY);
+            previous.put(timer.getId(), snapshot);
+            if (snapshot.count() - before.count() < minRequests) {
+                continue;
+            }
+            final double p99 = percentile(before, snapshot, PERCENTILE);
+            if (p99 > thresholdNanos && p99 > slowestP99) {
+                slowest = timer.getId().getTag("method") + " " + uri;
+                slowestP99 = p99;
+            }
+        }
+        if (slowest != null && !coolingDown()) {
+            trigger(slowest, slowestP99);
+        }
+    }
+
+    /**
+     * Returns the percentile, in nanoseconds, of the requests recorded between two snapshots of a cumulative
+     * histogram, rounded up to a bucket boundary; infinity when it lies above the largest bucket and NaN when the
+     * snapshots have no requests in between or no histogram. A {@code before} snapshot without buckets counts as
+     * empty.
+     */
+    static double percentile(HistogramSnapshot before, HistogramSnapshot after, double percentile) {
+        final CountAtBucket[] beforeBuckets = before.histogramCounts();
+        final CountAtBucket[] afterBuckets = after.histogramCounts();
+        final long count = after.count() - before.count();
+        if (count <= 0 || afterBuckets.length == 0
+                || beforeBuckets.length != 0 && afterBuckets.length != beforeBuckets.length) {
+            return Double.NaN;
+        }
+        final double rank = Math.ceil(percentile * count);
+        for (int i = 0; i < afterBuckets.length; i++) {
+            final double beforeCount = beforeBuckets.length == 0 ? 0 : beforeBuckets[i].count();
+            if (afterBuckets[i].count() - beforeCount >= rank) {
+                return afterBuckets[i].bucket(TimeUnit.NANOSECONDS);
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private boolean coolingDown() {
+        return lastTriggeredAt != null
+                && meterRegistry.config().clock().monotonicTime() - lastTriggeredAt < cooldown.toNanos();
+    }
+
+    private void trigger(String endpoint, double p99Nanos) {
+        final String p99 = Double.isInfinite(p99Nanos) ? "more than the largest bucket"
+                : Duration.ofNanos((long) p99Nanos).toString();
+        try {
+            if (profiler.record(profile, duration, REASON).isPresent()) {
+                lastTriggeredAt = meterRegistry.config().clock().monotonicTime();
+                log.warn("p99 of {} is {}, above {}: recording a '{}' profile for {}", endpoint, p99, threshold,
+                        profile, duration);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to start a recording for slow {}", endpoint, e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.ms.second.team.registration.profiling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Actuator endpoint {@code /actuator/profiling}. A {@code POST} starts a Flight Recorder recording with the given
+ * {@code profile} and {@code duration} and answers {@code 202} with the name of its file right away; a {@code GET}
+ * lists the kept recordings, including those started by {@link LatencyProfilingTrigger}, and
+ * {@code GET /actuator/profiling/{name}} downloads one, {@code 404} until it is written. The endpoint is admin-only, see
+ * {@link ru.ms.second.team.registration.filter.AdminTokenFilter}.
+ */
+@Component
+@WebEndpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+    private static final String JFR_CONTENT_TYPE = "application/octet-stream";
+
+    private final FlightRecorderProfiler profiler;
+    private final Duration defaultDuration;
+
+    public ProfilingEndpoint(FlightRecorderProfiler profiler,
+                             @Value("${app.profiling.default-duration:30s}") Duration defaultDuration) {
+        this.profiler = profiler;
+        this.defaultDuration = defaultDuration;
+    }
+
+    @ReadOperation
+    public List<FlightRecorderProfiler.RecordingFile> recordings() {
+        return profiler.findRecordings();
+    }
+
+    @ReadOperation(produces = JFR_CONTENT_TYPE)
+    public WebEndpointResponse<Resource> recording(@Selector String name) {
+        return profiler.findRecording(name)
+                .map(file -> new WebEndpointResponse<Resource>(new FileSystemResource(file)))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingStarted> record(@Nullable String profile, @Nullable Duration duration) {
+        final Duration recordingDuration = duration == null ? defaultDuration : duration;
+        final Optional<FlightRecorderProfiler.StartedRecording> recording;
+        try {
+            recording = profiler.record(profile == null ? "profile" : profile, recordingDuration, "manual");
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        return recording
+                .map(started -> new WebEndpointResponse<>(
+                        new RecordingStarted(started.name(), recordingDuration), HttpStatus.ACCEPTED.value()))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS));
+    }
+
+    public record RecordingStarted(String name, Duration duration) {
+    }
+}
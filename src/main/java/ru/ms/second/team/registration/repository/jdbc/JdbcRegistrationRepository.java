@@ -1,8 +1,27 @@
 package ru.ms.second.team.registration.repository.jdbc;
 
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.model.Registration;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface JdbcRegistrationRepository {
 
     Map<String, Long> getStatusToNumberOfRegistrationsForEvent(Long eventId);
+
+    Optional<Registration> insertIfAbsent(Registration registration);
+
+    /**
+     * Inserts all registrations in one statement. Registrations must have distinct event and e-mail pairs; the
+     * result holds an empty element for every registration that already existed, in the order of the argument.
+     */
+    List<Optional<Registration>> insertAllIfAbsent(List<Registration> registrations);
+
+    void forEachEmailOfEvent(Long eventId, Consumer<String> consumer);
+
+    Map<Long, RegistrationResponseDto> findRegistrationsByIds(Collection<Long> ids);
 }
@@ -3,16 +3,29 @@ package ru.ms.second.team.registration.repository.jdbc;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.model.Registration;
+import ru.ms.second.team.registration.model.RegistrationStatus;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class JdbcRegistrationRepositoryImpl implements JdbcRegistrationRepository {
 
+    private static final int EMAIL_SCAN_FETCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
 
     @Override
@@ -21,6 +34,89 @@ public class JdbcRegistrationRepositoryImpl implements JdbcRegistrationRepositor
         return jdbcTemplate.query(sql, this::extractToStatusCountMap, eventId);
     }
 
+    @Override
+    public Optional<Registration> insertIfAbsent(Registration registration) {
+        final String sql = "INSERT INTO registrations (username, email, phone, event_id, password, status, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, now()) ON CONFLICT (event_id, email) DO NOTHING RETURNING id, created_at";
+        return jdbcTemplate.query(sql, rs -> {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            registration.setId(rs.getLong(1));
+            registration.setCreatedAt(rs.getTimestamp(2).toLocalDateTime());
+            return Optional.of(registration);
+        }, registration.getUsername(), registration.getEmail(), registration.getPhone(), registration.getEventId(),
+                registration.getPassword(), registration.getStatus().name());
+    }
+
+    @Override
+    public List<Optional<Registration>> insertAllIfAbsent(List<Registration> registrations) {
+        if (registrations.isEmpty()) {
+            return List.of();
+        }
+        final StringBuilder sql = new StringBuilder(
+                "INSERT INTO registrations (username, email, phone, event_id, password, status, created_at) VALUES ");
+        final Object[] args = new Object[registrations.size() * 6];
+        final Map<RegistrationKey, Registration> byKey = new HashMap<>();
+        int i = 0;
+        for (Registration registration : registrations) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, now())");
+            args[i++] = registration.getUsername();
+            args[i++] = registration.getEmail();
+            args[i++] = registration.getPhone();
+            args[i++] = registration.getEventId();
+            args[i++] = registration.getPassword();
+            args[i++] = registration.getStatus().name();
+            byKey.put(new RegistrationKey(registration.getEventId(), registration.getEmail()), registration);
+        }
+        sql.append(" ON CONFLICT (event_id, email) DO NOTHING RETURNING id, created_at, event_id, email");
+        final Set<Registration> inserted = Collections.newSetFromMap(new IdentityHashMap<>());
+        jdbcTemplate.query(sql.toString(), (ResultSet rs) -> {
+            final Registration registration = byKey.get(new RegistrationKey(rs.getLong(3), rs.getString(4)));
+            registration.setId(rs.getLong(1));
+            registration.setCreatedAt(rs.getTimestamp(2).toLocalDateTime());
+            inserted.add(registration);
+        }, args);
+        return registrations.stream()
+                .map(registration -> inserted.contains(registration) ? Optional.of(registration)
+                        : Optional.<Registration>empty())
+                .toList();
+    }
+
+    @Override
+    public void forEachEmailOfEvent(Long eventId, Consumer<String> consumer) {
+        final String sql = "SELECT r.email FROM registrations r WHERE r.event_id = ?";
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(EMAIL_SCAN_FETCH_SIZE);
+            statement.setLong(1, eventId);
+            return statement;
+        }, (ResultSet rs) -> consumer.accept(rs.getString(1)));
+    }
+
+    @Override
+    public Map<Long, RegistrationResponseDto> findRegistrationsByIds(Collection<Long> ids) {
+        final String sql = "SELECT r.id, r.username, r.email, r.phone, r.event_id, r.status FROM registrations r "
+                + "WHERE r.id = ANY(?)";
+        return jdbcTemplate.query(sql,
+                statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids.toArray())),
+                this::extractToIdRegistrationMap);
+    }
+
+    private Map<Long, RegistrationResponseDto> extractToIdRegistrationMap(ResultSet rs) throws SQLException {
+        final Map<Long, RegistrationResponseDto> registrations = new HashMap<>();
+        while (rs.next()) {
+            registrations.put(rs.getLong(1), RegistrationResponseDto.builder()
+                    .username(rs.getString(2))
+                    .email(rs.getString(3))
+                    .phone(rs.getString(4))
+                    .eventId(rs.getLong(5))
+                    .status(RegistrationStatus.valueOf(rs.getString(6)))
+                    .build());
+        }
+        return registrations;
+    }
+
     private Map<String, Long> extractToStatusCountMap(ResultSet rs) throws SQLException {
         final Map<String, Long> statusToNumberOfRegistrations = new HashMap<>();
         while (rs.next()) {
@@ -30,4 +126,7 @@ public class JdbcRegistrationRepositoryImpl implements JdbcRegistrationRepositor
         }
         return statusToNumberOfRegistrations;
     }
+
+    private record RegistrationKey(Long eventId, String email) {
+    }
 }
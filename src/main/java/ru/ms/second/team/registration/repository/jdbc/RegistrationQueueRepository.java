@@ -0,0 +1,44 @@
+package ru.ms.second.team.registration.repository.jdbc;
+
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
+import ru.ms.second.team.registration.model.QueuedRegistration;
+import ru.ms.second.team.registration.model.QueuedRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RegistrationQueueRepository {
+
+    /**
+     * Stores the request, returns false if the user has already queued a request with the same idempotency key.
+     */
+    boolean enqueue(UUID ticket, Long userId, String idempotencyKey, NewRegistrationDto registration);
+
+    Optional<QueuedRequest> findByIdempotencyKey(Long userId, String idempotencyKey);
+
+    List<QueuedRegistration> claimBatch(int batchSize);
+
+    void complete(long id, Long registrationId, String password);
+
+    /**
+     * Completes the request with a registration of the same event, e-mail, username and phone that was created
+     * after it was queued, returns false if there is none.
+     */
+    boolean completeWithExisting(long id);
+
+    void fail(long id, String error);
+
+    void release(long id);
+
+    /**
+     * Returns the request queued by the user under the ticket.
+     */
+    Optional<RegistrationTicketDto> findByTicket(UUID ticket, Long userId);
+
+    int releaseStale(Duration processingTimeout);
+
+    int deleteProcessedBefore(Duration retention);
+}
@@ -0,0 +1,129 @@
+package ru.ms.second.team.registration.repository.jdbc;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
+import ru.ms.second.team.registration.model.QueuedRegistration;
+import ru.ms.second.team.registration.model.QueuedRequest;
+import ru.ms.second.team.registration.model.RegistrationTicketState;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+@Timed(value = "registration.queue.repository.invocations", histogram = true)
+public class RegistrationQueueRepositoryImpl implements RegistrationQueueRepository {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean enqueue(UUID ticket, Long userId, String idempotencyKey, NewRegistrationDto registration) {
+        final String sql = "INSERT INTO registration_queue (ticket, user_id, idempotency_key, username, email, phone, "
+                + "event_id, state) VALUES (?, ?, ?, ?, ?, ?, ?, 'QUEUED') "
+                + "ON CONFLICT (user_id, idempotency_key) WHERE idempotency_key IS NOT NULL DO NOTHING";
+        return jdbcTemplate.update(sql, ticket, userId, idempotencyKey, registration.username(), registration.email(),
+                registration.phone(), registration.eventId()) > 0;
+    }
+
+    @Override
+    public Optional<QueuedRequest> findByIdempotencyKey(Long userId, String idempotencyKey) {
+        final String sql = "SELECT q.ticket, q.state, q.registration_id, q.password, q.error, q.username, q.email, "
+                + "q.phone, q.event_id FROM registration_queue q WHERE q.user_id = ? AND q.idempotency_key = ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new QueuedRequest(
+                NewRegistrationDto.builder()
+                        .username(rs.getString(6))
+                        .email(rs.getString(7))
+                        .phone(rs.getString(8))
+                        .eventId(rs.getLong(9))
+                        .build(),
+                RegistrationTicketDto.builder()
+                        .ticket(rs.getObject(1, UUID.class))
+                        .state(RegistrationTicketState.valueOf(rs.getString(2)))
+                        .id(rs.getObject(3, Long.class))
+                        .password(rs.getString(4))
+                        .error(rs.getString(5))
+                        .build()), userId, idempotencyKey).stream().findFirst();
+    }
+
+    @Override
+    public List<QueuedRegistration> claimBatch(int batchSize) {
+        final String sql = "UPDATE registration_queue q SET state = 'PROCESSING', attempts = q.attempts + 1, "
+                + "claimed_at = now() WHERE q.id IN (SELECT id FROM registration_queue WHERE state = 'QUEUED' "
+                + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                + "RETURNING q.id, q.user_id, q.username, q.email, q.phone, q.event_id, q.attempts";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new QueuedRegistration(
+                rs.getLong(1),
+                rs.getLong(2),
+                NewRegistrationDto.builder()
+                        .username(rs.getString(3))
+                        .email(rs.getString(4))
+                        .phone(rs.getString(5))
+                        .eventId(rs.getLong(6))
+                        .build(),
+                rs.getInt(7)), batchSize);
+    }
+
+    @Override
+    public void complete(long id, Long registrationId, String password) {
+        final String sql = "UPDATE registration_queue SET state = 'CREATED', registration_id = ?, password = ?, "
+                + "processed_at = now() WHERE id = ?";
+        jdbcTemplate.update(sql, registrationId, password, id);
+    }
+
+    @Override
+    public boolean completeWithExisting(long id) {
+        final String sql = "UPDATE registration_queue q SET state = 'CREATED', registration_id = r.id, "
+                + "password = r.password, processed_at = now() FROM registrations r WHERE q.id = ? "
+                + "AND r.event_id = q.event_id AND r.email = q.email AND r.username = q.username "
+                + "AND r.phone = q.phone AND r.created_at >= q.created_at";
+        return jdbcTemplate.update(sql, id) > 0;
+    }
+
+    @Override
+    public void fail(long id, String error) {
+        final String sql = "UPDATE registration_queue SET state = 'FAILED', error = ?, processed_at = now() "
+                + "WHERE id = ?";
+        jdbcTemplate.update(sql, error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error, id);
+    }
+
+    @Override
+    public void release(long id) {
+        final String sql = "UPDATE registration_queue SET state = 'QUEUED', claimed_at = NULL WHERE id = ?";
+        jdbcTemplate.update(sql, id);
+    }
+
+    @Override
+    public Optional<RegistrationTicketDto> findByTicket(UUID ticket, Long userId) {
+        final String sql = "SELECT q.state, q.registration_id, q.password, q.error FROM registration_queue q "
+                + "WHERE q.ticket = ? AND q.user_id = ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> RegistrationTicketDto.builder()
+                .ticket(ticket)
+                .state(RegistrationTicketState.valueOf(rs.getString(1)))
+                .id(rs.getObject(2, Long.class))
+                .password(rs.getString(3))
+                .error(rs.getString(4))
+                .build(), ticket, userId).stream().findFirst();
+    }
+
+    @Override
+    public int releaseStale(Duration processingTimeout) {
+        final String sql = "UPDATE registration_queue SET state = 'QUEUED', claimed_at = NULL "
+                + "WHERE state = 'PROCESSING' AND claimed_at < now() - make_interval(secs => ?)";
+        return jdbcTemplate.update(sql, (double) processingTimeout.toSeconds());
+    }
+
+    @Override
+    public int deleteProcessedBefore(Duration retention) {
+        final String sql = "DELETE FROM registration_queue WHERE processed_at < now() - make_interval(secs => ?)";
+        return jdbcTemplate.update(sql, (double) retention.toSeconds());
+    }
+}
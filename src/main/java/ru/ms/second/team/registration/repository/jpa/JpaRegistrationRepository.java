@@ -9,12 +9,14 @@ import ru.ms.second.team.registration.model.RegistrationStatus;
 import ru.ms.second.team.registration.repository.jdbc.JdbcRegistrationRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface JpaRegistrationRepository extends JpaRepository<Registration, Long>, JdbcRegistrationRepository {
     Page<Registration> findAllByEventId(Long eventId, Pageable pageable);
 
-    @Query("SELECT r FROM Registration r WHERE r.status = 'APPROVED' ORDER BY r.createdAt ASC")
-    Registration findEarliestWaitingRegistration();
+    boolean existsByEventIdAndEmail(Long eventId, String email);
+
+    Optional<Registration> findFirstByEventIdAndStatusOrderByCreatedAtAsc(Long eventId, RegistrationStatus status);
 
     @Query("SELECT r FROM Registration r WHERE r.status IN (:statuses) AND r.eventId = :eventId ORDER BY r.createdAt ASC ")
     List<Registration> searchRegistrations(List<RegistrationStatus> statuses, Long eventId);
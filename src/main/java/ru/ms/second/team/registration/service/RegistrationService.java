@@ -4,30 +4,44 @@ import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
 import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
 import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
 import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationBatchResponseDto;
 import ru.ms.second.team.registration.dto.response.RegistrationCount;
 import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
 import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
 import ru.ms.second.team.registration.model.RegistrationStatus;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface RegistrationService {
 
     CreatedRegistrationResponseDto createRegistration(NewRegistrationDto creationDto, Long userId);
 
-    UpdatedRegistrationResponseDto updateRegistration(UpdateRegistrationDto updateDto);
+    CreatedRegistrationResponseDto createRegistration(NewRegistrationDto creationDto, Long userId,
+                                                      String idempotencyKey);
+
+    RegistrationTicketDto enqueueRegistration(NewRegistrationDto creationDto, Long userId);
+
+    RegistrationTicketDto enqueueRegistration(NewRegistrationDto creationDto, Long userId, String idempotencyKey);
+
+    RegistrationTicketDto findRegistrationTicket(UUID ticket, Long userId);
+
+    UpdatedRegistrationResponseDto updateRegistration(UpdateRegistrationDto updateDto, String caller);
 
     RegistrationResponseDto findRegistrationById(Long id);
 
+    RegistrationBatchResponseDto findRegistrationsByIds(List<Long> ids);
+
     List<RegistrationResponseDto> findAllRegistrationsByEventId(int page, int size, Long id);
 
-    void deleteRegistration(RegistrationCredentials deleteDto);
+    void deleteRegistration(RegistrationCredentials deleteDto, String caller);
 
     RegistrationStatus updateRegistrationStatus(Long userId, Long registrationId, RegistrationStatus newStatus,
-                                                RegistrationCredentials registrationCredentials);
+                                                RegistrationCredentials registrationCredentials, String caller);
 
     RegistrationStatus declineRegistration(Long userId, Long registrationId, String reason,
-                                           RegistrationCredentials registrationCredentials);
+                                           RegistrationCredentials registrationCredentials, String caller);
 
     List<RegistrationResponseDto> searchRegistrations(List<RegistrationStatus> statuses, Long eventId);
 
@@ -0,0 +1,212 @@
+package ru.ms.second.team.registration.service.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.exception.exceptions.EventFullException;
+import ru.ms.second.team.registration.exception.exceptions.NotAdmittedException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-event virtual waiting room in front of registration creation.
+ * <p>
+ * Every new request for an event gets the next slot in arrival order. Slots open at {@code admission-rate} per
+ * second, with up to {@code burst} requests let through at once. A request whose slot has not opened yet is
+ * rejected with a signed position token, which it presents on retry to keep its place. A token is bound to the
+ * event and the user it was issued to and admits once: within {@code token-ttl} after its slot opened, and only the
+ * first time. A used, expired or unverifiable token gets a new slot at the back of the queue, as if none was sent.
+ * Once the active registrations of an event reach its participant limit plus {@code waitlist-cap}, requests are
+ * rejected as full for {@code full-ttl} without taking a slot.
+ * <p>
+ * Tokens are signed with {@code secret}, which is required when the waiting room is enabled, so that tokens stay
+ * valid across restarts and on every node. Slots and used positions are kept per node.
+ */
+@Slf4j
+@Component
+public class WaitingRoom {
+
+    public static final String TOKEN_HEADER = "X-Waiting-Room-Token";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final int waitlistCap;
+    private final long tokenTtlMillis;
+    private final long fullTtlMillis;
+    private final SecretKeySpec key;
+
+    public WaitingRoom(@Value("${app.waiting-room.enabled:false}") boolean enabled,
+                       @Value("${app.waiting-room.admission-rate:50}") int admissionRate,
+                       @Value("${app.waiting-room.burst:100}") int burst,
+                       @Value("${app.waiting-room.waitlist-cap:100}") int waitlistCap,
+                       @Value("${app.waiting-room.token-ttl:10m}") Duration tokenTtl,
+                       @Value("${app.waiting-room.full-ttl:30s}") Duration fullTtl,
+                       @Value("${app.waiting-room.secret:}") String secret) {
+        this.enabled = enabled;
+        this.intervalMicros = TimeUnit.SECONDS.toMicros(1) / admissionRate;
+        this.burstMicros = intervalMicros * burst;
+        this.waitlistCap = waitlistCap;
+        this.tokenTtlMillis = tokenTtl.toMillis();
+        this.fullTtlMillis = fullTtl.toMillis();
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException("app.waiting-room.secret must be set when the waiting room is enabled");
+        }
+        this.key = enabled ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns if the request may proceed, otherwise throws {@link NotAdmittedException} carrying the position
+     * token or {@link EventFullException}.
+     */
+    public void admitOrThrow(Long eventId, Long userId, String token) {
+        if (!enabled) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final Room room = rooms.computeIfAbsent(eventId, id -> new Room(TimeUnit.MILLISECONDS.toMicros(now)));
+        if (room.fullUntil > now) {
+            throw new EventFullException(String.format("Registration for event id=%d is full", eventId));
+        }
+        Ticket ticket = token == null ? null : parse(token, eventId, userId);
+        if (ticket != null && ticket.admitAt() <= now
+                && (now - ticket.admitAt() > tokenTtlMillis || !room.consume(ticket))) {
+            ticket = null;
+        }
+        if (ticket == null) {
+            ticket = room.issue(TimeUnit.MILLISECONDS.toMicros(now));
+        }
+        if (ticket.admitAt() <= now) {
+            return;
+        }
+        final long retryAfterSeconds = Math.max(1, (ticket.admitAt() - now + 999) / 1000);
+        throw new NotAdmittedException(String.format(
+                "Registration for event id=%d is busy, position %d in the waiting room", eventId, ticket.position()),
+                sign(eventId, userId, ticket), retryAfterSeconds);
+    }
+
+    /**
+     * Marks the event as full when its active registrations reach the participant limit plus the waitlist cap.
+     */
+    public void updateOccupancy(Long eventId, int participantLimit, long activeRegistrations) {
+        if (!enabled || participantLimit <= 0) {
+            return;
+        }
+        final Room room = rooms.get(eventId);
+        if (room == null) {
+            return;
+        }
+        if (activeRegistrations >= (long) participantLimit + waitlistCap) {
+            room.fullUntil = System.currentTimeMillis() + fullTtlMillis;
+            log.info("Registration for event id={} is full with {} active registrations", eventId,
+                    activeRegistrations);
+        } else {
+            room.fullUntil = 0;
+        }
+    }
+
+    /**
+     * Drops rooms without a slot that opened within {@code token-ttl}, and from the other rooms the used positions
+     * whose tokens have expired.
+     */
+    @Scheduled(fixedDelayString = "${app.waiting-room.eviction-interval:PT1M}")
+    public void evictIdleRooms() {
+        final long now = System.currentTimeMillis();
+        final long expiredBefore = now - tokenTtlMillis;
+        rooms.values().removeIf(room -> room.lastAdmitAt.get() < TimeUnit.MILLISECONDS.toMicros(expiredBefore)
+                && room.fullUntil < now);
+        rooms.values().forEach(room -> room.consumed.values().removeIf(admitAt -> admitAt < expiredBefore));
+    }
+
+    private String sign(Long eventId, Long userId, Ticket ticket) {
+        final String payload = eventId + "." + userId + "." + ticket.position() + "." + ticket.admitAt();
+        return ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "."
+                + ENCODER.encodeToString(mac(payload));
+    }
+
+    /**
+     * Returns the ticket of a token issued for the event and the user, or {@code null} if it cannot be verified.
+     */
+    private Ticket parse(String token, Long eventId, Long userId) {
+        try {
+            final int separator = token.indexOf('.');
+            final String payload = new String(DECODER.decode(token.substring(0, separator)), StandardCharsets.UTF_8);
+            final byte[] signature = DECODER.decode(token.substring(separator + 1));
+            final String[] parts = payload.split("\\.");
+            if (parts.length != 4 || !MessageDigest.isEqual(mac(payload), signature)
+                    || Long.parseLong(parts[0]) != eventId || !parts[1].equals(String.valueOf(userId))) {
+                log.debug("Ignoring waiting room token not valid for event id={} and user id={}", eventId, userId);
+                return null;
+            }
+            return new Ticket(Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            log.debug("Ignoring malformed waiting room token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign waiting room token", e);
+        }
+    }
+
+    private record Ticket(long position, long admitAt) {
+    }
+
+    private final class Room {
+        private final AtomicLong lastAdmitAt;
+        private final AtomicLong issued = new AtomicLong();
+        private final Map<Long, Long> consumed = new ConcurrentHashMap<>();
+        private volatile long fullUntil;
+
+        private Room(long nowMicros) {
+            this.lastAdmitAt = new AtomicLong(nowMicros - burstMicros - intervalMicros);
+        }
+
+        /**
+         * Records the ticket's position as used, returns false if it was used before.
+         */
+        private boolean consume(Ticket ticket) {
+            return consumed.putIfAbsent(ticket.position(), ticket.admitAt()) == null;
+        }
+
+        /**
+         * Gives the next slot: one interval after the previous one, but no earlier than a full burst ago.
+         */
+        private Ticket issue(long nowMicros) {
+            while (true) {
+                final long previous = lastAdmitAt.get();
+                final long next = Math.max(previous + intervalMicros, nowMicros - burstMicros);
+                if (lastAdmitAt.compareAndSet(previous, next)) {
+                    return new Ticket(issued.incrementAndGet(), TimeUnit.MICROSECONDS.toMillis(
+                            next <= nowMicros ? nowMicros : next + 999));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ru.ms.second.team.registration.service.batch;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.model.Registration;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups concurrently created registrations into multi-row inserts, so that a registration spike costs one
+ * statement and one commit per batch instead of one per registration.
+ * <p>
+ * When {@code app.registration.insert-batch.enabled} is set, {@code flushers} threads take pending registrations
+ * off a queue. Each one waits at most {@code max-delay} after the first registration of a batch, or until
+ * {@code max-size} registrations are collected, and inserts them together. Callers block until their batch is
+ * committed. If two registrations of a batch share an event and e-mail, only the first one is inserted. When the
+ * queue is full, registrations are inserted one by one on the calling thread.
+ */
+@Slf4j
+@Component
+public class RegistrationInsertBatcher implements DisposableBean {
+
+    private final JpaRegistrationRepository registrationRepository;
+    @Getter
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingInsert> pending;
+    private final List<Thread> flushers = new ArrayList<>();
+
+    public RegistrationInsertBatcher(JpaRegistrationRepository registrationRepository,
+                                     @Value("${app.registration.insert-batch.enabled:false}") boolean enabled,
+                                     @Value("${app.registration.insert-batch.flushers:2}") int flusherCount,
+                                     @Value("${app.registration.insert-batch.max-size:100}") int maxSize,
+                                     @Value("${app.registration.insert-batch.max-delay:2ms}") Duration maxDelay,
+                                     @Value("${app.registration.insert-batch.queue-capacity:10000}")
+                                     int queueCapacity) {
+        if (flusherCount <= 0 || maxSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Flusher count, batch size and queue capacity must be positive");
+        }
+        this.registrationRepository = registrationRepository;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        if (enabled) {
+            for (int i = 0; i < flusherCount; i++) {
+                final Thread flusher = new Thread(this::flushLoop, "registration-insert-flusher-" + i);
+                flusher.setDaemon(true);
+                flusher.start();
+                flushers.add(flusher);
+            }
+        }
+    }
+
+    /**
+     * Inserts the registration with the next batch and returns it with its id, or returns an empty result when
+     * a registration with the same event and e-mail already exists.
+     */
+    public Optional<Registration> insertIfAbsent(Registration registration) {
+        final PendingInsert insert = new PendingInsert(registration, new CompletableFuture<>());
+        if (!pending.offer(insert)) {
+            log.debug("Insert batch queue is full, inserting registration directly");
+            return registrationRepository.insertIfAbsent(registration);
+        }
+        return await(insert.result());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flushers.forEach(Thread::interrupt);
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        PendingInsert insert;
+        while ((insert = pending.poll()) != null) {
+            insert.result().completeExceptionally(new IllegalStateException("Registration service is stopping"));
+        }
+    }
+
+    private void flushLoop() {
+        final List<PendingInsert> batch = new ArrayList<>(maxSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                collect(batch);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(insert -> insert.result().completeExceptionally(
+                    new IllegalStateException("Registration service is stopping")));
+        }
+    }
+
+    private void collect(List<PendingInsert> batch) throws InterruptedException {
+        batch.add(pending.take());
+        final long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxSize) {
+            pending.drainTo(batch, maxSize - batch.size());
+            final long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxSize || remaining <= 0) {
+                return;
+            }
+            final PendingInsert next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        final Map<RegistrationKey, PendingInsert> unique = new LinkedHashMap<>();
+        for (PendingInsert insert : batch) {
+            final Registration registration = insert.registration();
+            if (unique.putIfAbsent(new RegistrationKey(registration.getEventId(), registration.getEmail()),
+                    insert) != null) {
+                insert.result().complete(Optional.empty());
+            }
+        }
+        final List<PendingInsert> inserts = List.copyOf(unique.values());
+        try {
+            final List<Optional<Registration>> results = registrationRepository.insertAllIfAbsent(
+                    inserts.stream().map(PendingInsert::registration).toList());
+            for (int i = 0; i < inserts.size(); i++) {
+                inserts.get(i).result().complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to insert a batch of {} registrations: {}", inserts.size(), e.getMessage());
+            inserts.forEach(insert -> insert.result().completeExceptionally(e));
+        }
+    }
+
+    private Optional<Registration> await(CompletableFuture<Optional<Registration>> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Registration insert failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for registration insert", e);
+        }
+    }
+
+    private record PendingInsert(Registration registration, CompletableFuture<Optional<Registration>> result) {
+    }
+
+    private record RegistrationKey(Long eventId, String email) {
+    }
+}
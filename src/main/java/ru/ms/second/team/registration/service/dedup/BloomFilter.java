@@ -0,0 +1,64 @@
+package ru.ms.second.team.registration.service.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free Bloom filter over strings. Uses double hashing of a 64-bit FNV-1a hash.
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final int numberOfBits;
+    private final int numberOfHashes;
+
+    public BloomFilter(int numberOfBits, int numberOfHashes) {
+        if (numberOfBits <= 0 || numberOfHashes <= 0) {
+            throw new IllegalArgumentException("Number of bits and hashes must be positive");
+        }
+        this.words = new AtomicLongArray((numberOfBits + Long.SIZE - 1) / Long.SIZE);
+        this.numberOfBits = words.length() * Long.SIZE;
+        this.numberOfHashes = numberOfHashes;
+    }
+
+    public void put(String value) {
+        final long hash = hash(value);
+        for (int i = 0; i < numberOfHashes; i++) {
+            final int bit = bitIndex(hash, i);
+            final long mask = 1L << bit;
+            words.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+        }
+    }
+
+    public boolean mightContain(String value) {
+        final long hash = hash(value);
+        for (int i = 0; i < numberOfHashes; i++) {
+            final int bit = bitIndex(hash, i);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bitIndex(long hash, int i) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + i * h2, numberOfBits);
+    }
+
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
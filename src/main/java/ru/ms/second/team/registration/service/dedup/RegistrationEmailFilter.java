@@ -0,0 +1,95 @@
+package ru.ms.second.team.registration.service.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-event Bloom filters of registered emails, used to skip the duplicate lookup for emails that have
+ * definitely not been registered for an event yet. Emails are trimmed and lower-cased before hashing.
+ * <p>
+ * The filter of an event is loaded from the database when the event is first checked and forgotten once it has
+ * not been checked for {@code idle-ttl}, so only events that currently take registrations are held in memory.
+ * Filters only ever grow, so deleted registrations and registrations made through other nodes fall back to the
+ * database check and the unique constraint respectively.
+ */
+@Slf4j
+@Component
+public class RegistrationEmailFilter {
+
+    private final JpaRegistrationRepository registrationRepository;
+    private final Map<Long, EventFilter> filters = new ConcurrentHashMap<>();
+    private final int bitsPerEvent;
+    private final int numberOfHashes;
+    private final long idleTtlMillis;
+
+    public RegistrationEmailFilter(JpaRegistrationRepository registrationRepository,
+                                   @Value("${app.registration.bloom-filter.bits-per-event:65536}") int bitsPerEvent,
+                                   @Value("${app.registration.bloom-filter.hashes:5}") int numberOfHashes,
+                                   @Value("${app.registration.bloom-filter.idle-ttl:1h}") Duration idleTtl) {
+        this.registrationRepository = registrationRepository;
+        this.bitsPerEvent = bitsPerEvent;
+        this.numberOfHashes = numberOfHashes;
+        this.idleTtlMillis = idleTtl.toMillis();
+    }
+
+    public boolean mightContain(Long eventId, String email) {
+        EventFilter filter = filters.get(eventId);
+        if (filter == null) {
+            final EventFilter loaded = load(eventId);
+            filter = filters.putIfAbsent(eventId, loaded);
+            if (filter == null) {
+                filter = loaded;
+            }
+        }
+        filter.lastUsedAt = System.currentTimeMillis();
+        return filter.emails.mightContain(normalize(email));
+    }
+
+    /**
+     * Adds the email to the filter of the event if it is held; otherwise it is read with the filter on the next
+     * check.
+     */
+    public void put(Long eventId, String email) {
+        final EventFilter filter = filters.get(eventId);
+        if (filter != null) {
+            filter.emails.put(normalize(email));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.registration.bloom-filter.eviction-interval:PT1M}")
+    public void evictIdleFilters() {
+        final long idleBefore = System.currentTimeMillis() - idleTtlMillis;
+        filters.values().removeIf(filter -> filter.lastUsedAt < idleBefore);
+    }
+
+    private EventFilter load(Long eventId) {
+        final long start = System.currentTimeMillis();
+        final BloomFilter emails = new BloomFilter(bitsPerEvent, numberOfHashes);
+        registrationRepository.forEachEmailOfEvent(eventId, email -> emails.put(normalize(email)));
+        log.debug("Registration email filter of event id={} loaded in {} ms", eventId,
+                System.currentTimeMillis() - start);
+        return new EventFilter(emails);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class EventFilter {
+        private final BloomFilter emails;
+        private volatile long lastUsedAt;
+
+        private EventFilter(BloomFilter emails) {
+            this.emails = emails;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.ms.second.team.registration.service.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.ms.second.team.registration.exception.exceptions.EventOwnedByAnotherNodeException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Cluster-wide event ownership backed by Postgres transaction-level advisory locks.
+ * <p>
+ * A node owns an event for the duration of one transition: {@code pg_advisory_xact_lock(eventId)} is taken in the
+ * transition's transaction and released by Postgres when it commits or rolls back, including when the connection
+ * dies. A transition of an event that another node is changing waits for that transition to finish, up to
+ * {@code wait-timeout}, instead of being rejected, so every node can serve transitions of a hot event. The wait is
+ * bounded with a transaction-local {@code lock_timeout}, which also bounds the lock waits of the rest of the
+ * transition.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.transitions.lease.enabled", havingValue = "true")
+public class AdvisoryLockEventOwnership implements EventOwnership {
+
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(?) "
+            + "FROM (SELECT set_config('lock_timeout', ?, true)) lock_timeout";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String waitTimeout;
+
+    public AdvisoryLockEventOwnership(JdbcTemplate jdbcTemplate,
+                                      @Value("${app.transitions.lease.wait-timeout:2s}") Duration waitTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.waitTimeout = waitTimeout.toMillis() + "ms";
+    }
+
+    @Override
+    public void claimOrThrow(Long eventId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Event id=" + eventId + " can only be claimed within a transaction");
+        }
+        try {
+            jdbcTemplate.query(LOCK_SQL, rs -> null, eventId, waitTimeout);
+        } catch (DataAccessException e) {
+            if (!(e.getMostSpecificCause() instanceof SQLException cause)
+                    || !LOCK_NOT_AVAILABLE.equals(cause.getSQLState())) {
+                throw e;
+            }
+            log.debug("Event id={} stayed locked by another node for {}", eventId, waitTimeout);
+            throw new EventOwnedByAnotherNodeException(String.format(
+                    "Event id=%d is being changed by another node, retry later", eventId));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.ms.second.team.registration.service.executor;
+
+@FunctionalInterface
+public interface EventOwnership {
+
+    void claimOrThrow(Long eventId);
+}
@@ -0,0 +1,129 @@
+package ru.ms.second.team.registration.service.executor;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes registration status transitions per event.
+ * <p>
+ * Every event is mapped to one of a fixed number of single-threaded stripes, so transitions of the same event
+ * are applied one after another in submission order, while transitions of events living on different stripes
+ * run in parallel. Each transition is executed in its own transaction on the stripe thread and first claims
+ * ownership of the event within that transaction through {@link EventOwnership}. A caller that already runs in a
+ * transaction cannot hand it over to the stripe thread, so its transition joins that transaction and runs on the
+ * calling thread while holding the stripe lock. The caller's context, such as its trace span, is carried over to
+ * the stripe thread.
+ */
+@Slf4j
+@Component
+public class EventTransitionExecutor implements DisposableBean {
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final Stripe[] stripes;
+    private final TransactionOperations transactionOperations;
+    private final EventOwnership eventOwnership;
+
+    public EventTransitionExecutor(@Value("${app.transitions.stripes:16}") int stripeCount,
+                                   @Value("${app.transitions.mailbox-capacity:1024}") int mailboxCapacity,
+                                   TransactionOperations transactionOperations,
+                                   EventOwnership eventOwnership) {
+        if (stripeCount <= 0 || mailboxCapacity <= 0) {
+            throw new IllegalArgumentException("Stripe count and mailbox capacity must be positive");
+        }
+        this.transactionOperations = transactionOperations;
+        this.eventOwnership = eventOwnership;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(createStripeExecutor(i, mailboxCapacity), new ReentrantLock());
+        }
+    }
+
+    public <T> T execute(Long eventId, Supplier<T> transition) {
+        final Stripe stripe = stripes[stripeIndex(eventId)];
+        if (stripe.lock().isHeldByCurrentThread()) {
+            return claimAndRun(eventId, transition);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return executeLocked(stripe, () -> claimAndRun(eventId, transition));
+        }
+        Future<T> result = stripe.executor().submit(CONTEXT_SNAPSHOTS.captureAll().wrap(() -> executeLocked(stripe,
+                () -> transactionOperations.execute(status -> claimAndRun(eventId, transition)))));
+        return await(result, eventId);
+    }
+
+    public void execute(Long eventId, Runnable transition) {
+        execute(eventId, () -> {
+            transition.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        for (Stripe stripe : stripes) {
+            stripe.executor().shutdown();
+        }
+    }
+
+    private int stripeIndex(Long eventId) {
+        return Math.floorMod(Long.hashCode(eventId), stripes.length);
+    }
+
+    private <T> T executeLocked(Stripe stripe, Supplier<T> transition) {
+        stripe.lock().lock();
+        try {
+            return transition.get();
+        } finally {
+            stripe.lock().unlock();
+        }
+    }
+
+    private <T> T claimAndRun(Long eventId, Supplier<T> transition) {
+        eventOwnership.claimOrThrow(eventId);
+        return transition.get();
+    }
+
+    private ExecutorService createStripeExecutor(int index, int mailboxCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(mailboxCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "event-transition-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private <T> T await(Future<T> result, Long eventId) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Transition for event id=" + eventId + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transition of event id=" + eventId, e);
+        }
+    }
+
+    private record Stripe(ExecutorService executor, ReentrantLock lock) {
+    }
+}
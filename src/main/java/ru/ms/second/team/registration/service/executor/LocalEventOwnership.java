@@ -0,0 +1,13 @@
+package ru.ms.second.team.registration.service.executor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.transitions.lease.enabled", havingValue = "false", matchIfMissing = true)
+public class LocalEventOwnership implements EventOwnership {
+
+    @Override
+    public void claimOrThrow(Long eventId) {
+    }
+}
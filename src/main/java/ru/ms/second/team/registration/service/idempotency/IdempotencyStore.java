@@ -0,0 +1,130 @@
+package ru.ms.second.team.registration.service.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.exception.exceptions.IdempotencyKeyReusedException;
+import ru.ms.second.team.registration.exception.exceptions.IdempotentRequestInProgressException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests carrying an idempotency key for {@code ttl}.
+ * <p>
+ * The first request with a key executes the action, concurrent and later requests with the same key wait up to
+ * {@code await-timeout} for its result and replay it. The request, which must implement {@code equals}, the result
+ * and the creation time are kept per key, and a request that is not equal to the first one is rejected. Failed
+ * actions are forgotten, so a retry after an error executes again.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long awaitTimeoutNanos;
+
+    public IdempotencyStore(@Value("${app.idempotency.ttl:10m}") Duration ttl,
+                            @Value("${app.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${app.idempotency.await-timeout:30s}") Duration awaitTimeout) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.awaitTimeoutNanos = awaitTimeout.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Object request, Supplier<T> action) {
+        final Entry entry = new Entry(request, new CompletableFuture<>(), System.nanoTime());
+        while (true) {
+            final Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                return executeAndRemember(key, entry, action);
+            }
+            if (isExpired(existing, entry.createdAt()) && entries.replace(key, existing, entry)) {
+                return executeAndRemember(key, entry, action);
+            }
+            if (!isExpired(existing, entry.createdAt())) {
+                if (!Objects.equals(existing.request(), entry.request())) {
+                    throw new IdempotencyKeyReusedException(String.format(
+                            "Idempotency key '%s' was already used for a different request", key));
+                }
+                return (T) await(key, existing.result());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.eviction-interval:PT1M}")
+    public void evictExpired() {
+        final long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> isExpired(entry.getValue(), now));
+    }
+
+    private <T> T executeAndRemember(String key, Entry entry, Supplier<T> action) {
+        if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+        try {
+            final T result = action.get();
+            entry.result().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void evictOldest() {
+        evictExpired();
+        final int excess = entries.size() - maxEntries + maxEntries / 10;
+        if (excess <= 0) {
+            return;
+        }
+        log.warn("Idempotency store is full, evicting {} oldest keys", excess);
+        entries.entrySet().stream()
+                .filter(entry -> entry.getValue().result().isDone())
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().createdAt()))
+                .limit(excess)
+                .toList()
+                .forEach(entry -> entries.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt() > ttlNanos;
+    }
+
+    private Object await(String key, CompletableFuture<Object> result) {
+        try {
+            return result.get(awaitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Request with idempotency key '" + key + "' failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotentRequestInProgressException(String.format(
+                    "Request with idempotency key '%s' is still in progress, retry later", key));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for request with idempotency key '" + key
+                    + "'", e);
+        }
+    }
+
+    private record Entry(Object request, CompletableFuture<Object> result, long createdAt) {
+    }
+}
@@ -5,7 +5,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import ru.ms.second.team.registration.client.EventClient;
 import ru.ms.second.team.registration.dto.event.EventDto;
 import ru.ms.second.team.registration.dto.event.EventRegistrationStatus;
@@ -15,23 +14,46 @@ import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
 import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
 import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
 import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationBatchResponseDto;
 import ru.ms.second.team.registration.dto.response.RegistrationCount;
 import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
 import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
+import ru.ms.second.team.registration.exception.exceptions.AlreadyExistsException;
+import ru.ms.second.team.registration.exception.exceptions.IdempotencyKeyReusedException;
 import ru.ms.second.team.registration.exception.exceptions.NotAuthorizedException;
 import ru.ms.second.team.registration.exception.exceptions.NotFoundException;
 import ru.ms.second.team.registration.exception.exceptions.PasswordIncorrectException;
 import ru.ms.second.team.registration.mapper.RegistrationMapper;
 import ru.ms.second.team.registration.model.DeclinedRegistration;
+import ru.ms.second.team.registration.model.QueuedRequest;
 import ru.ms.second.team.registration.model.Registration;
 import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.model.RegistrationTicketState;
+import ru.ms.second.team.registration.repository.jdbc.RegistrationQueueRepository;
 import ru.ms.second.team.registration.repository.jpa.DeclinedRegistrationRepository;
 import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
 import ru.ms.second.team.registration.service.RegistrationService;
+import ru.ms.second.team.registration.service.admission.WaitingRoom;
+import ru.ms.second.team.registration.service.batch.RegistrationInsertBatcher;
+import ru.ms.second.team.registration.service.dedup.RegistrationEmailFilter;
+import ru.ms.second.team.registration.service.executor.EventTransitionExecutor;
+import ru.ms.second.team.registration.service.idempotency.IdempotencyStore;
+import ru.ms.second.team.registration.service.metrics.RegistrationMetrics;
+import ru.ms.second.team.registration.service.security.PasswordAttemptGuard;
+import ru.ms.second.team.registration.service.version.EventVersionRegistry;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static ru.ms.second.team.registration.model.RegistrationStatus.APPROVED;
 import static ru.ms.second.team.registration.model.RegistrationStatus.DECLINED;
@@ -47,29 +69,103 @@ public class RegistrationServiceImpl implements RegistrationService {
     private final DeclinedRegistrationRepository declinedRegistrationRepository;
     private final RegistrationMapper registrationMapper;
     private final EventClient eventClient;
+    private final EventTransitionExecutor transitionExecutor;
+    private final IdempotencyStore idempotencyStore;
+    private final RegistrationEmailFilter registrationEmailFilter;
+    private final EventVersionRegistry eventVersionRegistry;
+    private final PasswordAttemptGuard passwordAttemptGuard;
+    private final RegistrationQueueRepository registrationQueueRepository;
+    private final WaitingRoom waitingRoom;
+    private final RegistrationInsertBatcher insertBatcher;
+    private final RegistrationMetrics registrationMetrics;
 
     @Override
     public CreatedRegistrationResponseDto createRegistration(NewRegistrationDto creationDto, Long userId) {
-        log.info("RegistrationService: executing createRegistration method. Username {}, email {}, phone {}, eventId {}",
-                creationDto.username(), creationDto.email(), creationDto.phone(), creationDto.eventId());
+        log.debug("RegistrationService: executing createRegistration method. EventId {}", creationDto.eventId());
 
+        checkRegistrationIsNotDuplicateOrThrow(creationDto.eventId(), creationDto.email());
         EventDto eventDto = findEventOrThrow(userId, creationDto.eventId());
         checkEventStatus(eventDto);
         Registration registration = registrationMapper.toModel(creationDto);
         registration.setPassword(generatePassword());
-        registration = registrationRepository.save(registration);
+        registration = (insertBatcher.isEnabled()
+                ? insertBatcher.insertIfAbsent(registration)
+                : registrationRepository.insertIfAbsent(registration))
+                .orElseThrow(() -> alreadyExists(creationDto.eventId()));
+        registrationMetrics.created(registration.getStatus());
+        registrationEmailFilter.put(registration.getEventId(), registration.getEmail());
+        eventVersionRegistry.bump(registration.getEventId());
+        if (waitingRoom.isEnabled() && eventDto.participantLimit() > 0) {
+            waitingRoom.updateOccupancy(registration.getEventId(), eventDto.participantLimit(),
+                    countActiveRegistrations(registration.getEventId()));
+        }
         return registrationMapper.toCreatedDto(registration);
     }
 
     @Override
-    public UpdatedRegistrationResponseDto updateRegistration(UpdateRegistrationDto updateDto) {
-        log.info("RegistrationService: executing updateRegistration method. Updating registration with id {}, updateDto {}",
-                updateDto.id(), updateDto);
+    public CreatedRegistrationResponseDto createRegistration(NewRegistrationDto creationDto, Long userId,
+                                                             String idempotencyKey) {
+        log.debug("RegistrationService: executing createRegistration method with idempotency key {}", idempotencyKey);
+
+        return idempotencyStore.execute(userId + ":" + idempotencyKey, creationDto,
+                () -> createRegistration(creationDto, userId));
+    }
 
+    @Override
+    public RegistrationTicketDto enqueueRegistration(NewRegistrationDto creationDto, Long userId) {
+        return enqueueRegistration(creationDto, userId, null);
+    }
+
+    /**
+     * A repeated request with the same idempotency key gets the ticket of the first one, in its current state,
+     * for as long as the queue keeps it.
+     */
+    @Override
+    public RegistrationTicketDto enqueueRegistration(NewRegistrationDto creationDto, Long userId,
+                                                     String idempotencyKey) {
+        log.debug("RegistrationService: executing enqueueRegistration method. EventId {}", creationDto.eventId());
+
+        if (idempotencyKey != null) {
+            final Optional<QueuedRequest> queued = registrationQueueRepository
+                    .findByIdempotencyKey(userId, idempotencyKey);
+            if (queued.isPresent()) {
+                return replayQueuedRequest(queued.get(), creationDto, idempotencyKey);
+            }
+        }
+        checkRegistrationIsNotDuplicateOrThrow(creationDto.eventId(), creationDto.email());
+        final UUID ticket = UUID.randomUUID();
+        if (!registrationQueueRepository.enqueue(ticket, userId, idempotencyKey, creationDto)) {
+            return replayQueuedRequest(registrationQueueRepository.findByIdempotencyKey(userId, idempotencyKey)
+                    .orElseThrow(() -> new IllegalStateException(String.format(
+                            "Request with idempotency key '%s' was queued but is not found", idempotencyKey))),
+                    creationDto, idempotencyKey);
+        }
+        return RegistrationTicketDto.builder()
+                .ticket(ticket)
+                .state(RegistrationTicketState.QUEUED)
+                .build();
+    }
+
+    @Override
+    public RegistrationTicketDto findRegistrationTicket(UUID ticket, Long userId) {
+        log.debug("RegistrationService: executing findRegistrationTicket method. Ticket={}", ticket);
+
+        return registrationQueueRepository.findByTicket(ticket, userId).orElseThrow(() -> new NotFoundException(
+                String.format("Registration ticket=%s was not found", ticket)));
+    }
+
+    @Override
+    public UpdatedRegistrationResponseDto updateRegistration(UpdateRegistrationDto updateDto, String caller) {
+        log.debug("RegistrationService: executing updateRegistration method. Updating registration with id {}",
+                updateDto.id());
+
+        passwordAttemptGuard.checkNotLockedOrThrow(updateDto.id(), caller);
         Registration registration = findRegistrationOrThrow(updateDto.id());
-        checkPasswordOrThrow(registration.getPassword(), updateDto.password(), updateDto.id());
+        checkPasswordOrThrow(registration.getPassword(), updateDto.password(), updateDto.id(), caller);
         registrationMapper.updateRegistration(updateDto, registration);
         registration = registrationRepository.save(registration);
+        registrationEmailFilter.put(registration.getEventId(), registration.getEmail());
+        eventVersionRegistry.bump(registration.getEventId());
         return registrationMapper.toUpdatedDto(registration);
     }
 
@@ -81,6 +177,29 @@ public class RegistrationServiceImpl implements RegistrationService {
         return registrationMapper.toRegistrationDto(registration);
     }
 
+    @Override
+    public RegistrationBatchResponseDto findRegistrationsByIds(List<Long> ids) {
+        log.debug("RegistrationService: executing findRegistrationsByIds method. Ids={}", ids);
+
+        final Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        final Map<Long, RegistrationResponseDto> foundRegistrations =
+                registrationRepository.findRegistrationsByIds(uniqueIds);
+        final Map<Long, RegistrationResponseDto> registrations = new LinkedHashMap<>();
+        final List<Long> missingIds = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            final RegistrationResponseDto registration = foundRegistrations.get(id);
+            if (registration == null) {
+                missingIds.add(id);
+            } else {
+                registrations.put(id, registration);
+            }
+        }
+        return RegistrationBatchResponseDto.builder()
+                .registrations(registrations)
+                .missingIds(missingIds)
+                .build();
+    }
+
     @Override
     public List<RegistrationResponseDto> findAllRegistrationsByEventId(int page, int size, Long eventId) {
         log.debug("RegistrationService: executing findAllRegistrationsByEventId method. Page={}, size={}, eventId={}",
@@ -91,43 +210,64 @@ public class RegistrationServiceImpl implements RegistrationService {
     }
 
     @Override
-    @Transactional
-    public void deleteRegistration(RegistrationCredentials registrationCredentials) {
+    public void deleteRegistration(RegistrationCredentials registrationCredentials, String caller) {
         log.info("RegistrationService: executing deleteRegistration method. Deleting registration id={}",
                 registrationCredentials.id());
 
+        passwordAttemptGuard.checkNotLockedOrThrow(registrationCredentials.id(), caller);
         Registration registration = findRegistrationOrThrow(registrationCredentials.id());
-        checkPasswordOrThrow(registration.getPassword(), registrationCredentials.password(), registrationCredentials.id());
-        registrationRepository.deleteById(registrationCredentials.id());
-        declinedRegistrationRepository.deleteAllByRegistrationId(registrationCredentials.id());
-        updateStatusOfClosestWaitingRegistration(registration);
+        checkPasswordOrThrow(registration.getPassword(), registrationCredentials.password(), registrationCredentials.id(),
+                caller);
+        transitionExecutor.execute(registration.getEventId(), () -> {
+            final Registration registrationToDelete = findRegistrationOrThrow(registrationCredentials.id());
+            declinedRegistrationRepository.deleteAllByRegistrationId(registrationCredentials.id());
+            registrationRepository.deleteById(registrationCredentials.id());
+            eventVersionRegistry.bump(registrationToDelete.getEventId());
+            updateStatusOfClosestWaitingRegistration(registrationToDelete);
+        });
     }
 
     @Override
-    @Transactional
     public RegistrationStatus updateRegistrationStatus(Long userId, Long registrationId, RegistrationStatus newStatus,
-                                                       RegistrationCredentials registrationCredentials) {
+                                                       RegistrationCredentials registrationCredentials,
+                                                       String caller) {
+        passwordAttemptGuard.checkNotLockedOrThrow(registrationId, caller);
         final Registration registration = findRegistrationOrThrow(registrationId);
-        checkPasswordOrThrow(registration.getPassword(), registrationCredentials.password(), registrationCredentials.id());
-        verificationTheUserHasTheRightToChangeStatusOrThrow(userId, registration.getEventId());
-        registration.setStatus(newStatus);
-        if (newStatus.equals(APPROVED)) {
-            checkEventParticipationLimit(userId, registration, newStatus);
-        }
-        final Registration updatedRegistration = registrationRepository.save(registration);
+        checkPasswordOrThrow(registration.getPassword(), registrationCredentials.password(), registrationId, caller);
+        final EventDto event = verificationTheUserHasTheRightToChangeStatusOrThrow(userId, registration.getEventId());
+        final Registration updatedRegistration = transitionExecutor.execute(registration.getEventId(), () -> {
+            final Registration registrationToUpdate = findRegistrationOrThrow(registrationId);
+            final RegistrationStatus previousStatus = registrationToUpdate.getStatus();
+            registrationToUpdate.setStatus(newStatus);
+            if (newStatus.equals(APPROVED)) {
+                checkEventParticipationLimit(event, registrationToUpdate);
+            }
+            eventVersionRegistry.bump(registrationToUpdate.getEventId());
+            final Registration savedRegistration = registrationRepository.save(registrationToUpdate);
+            registrationMetrics.statusChanged(previousStatus, registrationToUpdate.getStatus());
+            return savedRegistration;
+        });
         log.info("New status '{}' for registration with id '{}'", newStatus, registrationId);
         return updatedRegistration.getStatus();
     }
 
     @Override
     public RegistrationStatus declineRegistration(Long userId, Long registrationId, String reason,
-                                                  RegistrationCredentials registrationCredentials) {
+                                                  RegistrationCredentials registrationCredentials, String caller) {
+        passwordAttemptGuard.checkNotLockedOrThrow(registrationId, caller);
         final Registration registration = findRegistrationOrThrow(registrationId);
-        checkPasswordOrThrow(registration.getPassword(), registrationCredentials.password(), registrationCredentials.id());
+        checkPasswordOrThrow(registration.getPassword(), registrationCredentials.password(), registrationId, caller);
         verificationTheUserHasTheRightToChangeStatusOrThrow(userId, registration.getEventId());
-        registration.setStatus(DECLINED);
-        final Registration updatedRegistration = registrationRepository.save(registration);
-        saveDeclineReason(reason, updatedRegistration);
+        final Registration updatedRegistration = transitionExecutor.execute(registration.getEventId(), () -> {
+            final Registration registrationToDecline = findRegistrationOrThrow(registrationId);
+            final RegistrationStatus previousStatus = registrationToDecline.getStatus();
+            registrationToDecline.setStatus(DECLINED);
+            final Registration declinedRegistration = registrationRepository.save(registrationToDecline);
+            saveDeclineReason(reason, declinedRegistration);
+            registrationMetrics.statusChanged(previousStatus, DECLINED);
+            eventVersionRegistry.bump(declinedRegistration.getEventId());
+            return declinedRegistration;
+        });
         log.debug("Registration with id '{}' was declined. Reason: {}", registrationId, reason);
         return updatedRegistration.getStatus();
     }
@@ -148,13 +288,40 @@ public class RegistrationServiceImpl implements RegistrationService {
         return registrationCount;
     }
 
-    private void checkPasswordOrThrow(String registrationPassword, String dtoPassword, Long registrationId) {
-        if (!registrationPassword.equals(dtoPassword)) {
+    private void checkPasswordOrThrow(String registrationPassword, String dtoPassword, Long registrationId,
+                                      String caller) {
+        final boolean matches = dtoPassword != null && MessageDigest.isEqual(
+                registrationPassword.getBytes(StandardCharsets.UTF_8), dtoPassword.getBytes(StandardCharsets.UTF_8));
+        if (matches) {
+            passwordAttemptGuard.recordSuccess(registrationId, caller);
+        } else {
+            passwordAttemptGuard.recordFailure(registrationId, caller);
             throw new PasswordIncorrectException(String.format(
                     "Password=%s for registrationId=%d is not correct", dtoPassword, registrationId));
         }
     }
 
+    private RegistrationTicketDto replayQueuedRequest(QueuedRequest queued, NewRegistrationDto creationDto,
+                                                      String idempotencyKey) {
+        if (!queued.registration().equals(creationDto)) {
+            throw new IdempotencyKeyReusedException(String.format(
+                    "Idempotency key '%s' was already used for a different request", idempotencyKey));
+        }
+        return queued.ticket();
+    }
+
+    private void checkRegistrationIsNotDuplicateOrThrow(Long eventId, String email) {
+        if (registrationEmailFilter.mightContain(eventId, email)
+                && registrationRepository.existsByEventIdAndEmail(eventId, email)) {
+            throw alreadyExists(eventId);
+        }
+    }
+
+    private AlreadyExistsException alreadyExists(Long eventId) {
+        return new AlreadyExistsException(String.format(
+                "Registration with this email already exists for event id=%d", eventId));
+    }
+
     private Registration findRegistrationOrThrow(Long registrationId) {
         return registrationRepository.findById(registrationId).orElseThrow(() -> new NotFoundException(String.format(
                 "Registration with id=%d was not found", registrationId)));
@@ -167,9 +334,13 @@ public class RegistrationServiceImpl implements RegistrationService {
 
     private void updateStatusOfClosestWaitingRegistration(Registration registration) {
         if (registration.getStatus().equals(APPROVED)) {
-            Registration closestRegistration = registrationRepository.findEarliestWaitingRegistration();
-            closestRegistration.setStatus(PENDING);
-            registrationRepository.save(closestRegistration);
+            registrationRepository.findFirstByEventIdAndStatusOrderByCreatedAtAsc(registration.getEventId(), WAITING)
+                    .ifPresent(closestRegistration -> {
+                        closestRegistration.setStatus(PENDING);
+                        registrationRepository.save(closestRegistration);
+                        registrationMetrics.statusChanged(WAITING, PENDING);
+                        eventVersionRegistry.bump(closestRegistration.getEventId());
+                    });
         }
     }
 
@@ -181,6 +352,13 @@ public class RegistrationServiceImpl implements RegistrationService {
         declinedRegistrationRepository.save(declinedRegistration);
     }
 
+    private long countActiveRegistrations(Long eventId) {
+        return registrationRepository.getStatusToNumberOfRegistrationsForEvent(eventId).entrySet().stream()
+                .filter(entry -> !DECLINED.name().equals(entry.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
     private RegistrationCount convertMapToRegistrationsCount(Map<String, Long> statusToRegistrationsCount) {
         return RegistrationCount.builder()
                 .numberOfPendingRegistrations(statusToRegistrationsCount
@@ -194,8 +372,7 @@ public class RegistrationServiceImpl implements RegistrationService {
                 .build();
     }
 
-    private void checkEventParticipationLimit(Long userId, Registration registration, RegistrationStatus newStatus) {
-        final EventDto event = eventClient.getEventById(userId, registration.getEventId()).getBody();
+    private void checkEventParticipationLimit(EventDto event, Registration registration) {
         final int eventParticipantLimit = event.participantLimit();
         final List<Registration> approvedRegistrations = registrationRepository.searchRegistrations(List.of(APPROVED),
                 registration.getEventId());
@@ -205,6 +382,10 @@ public class RegistrationServiceImpl implements RegistrationService {
                     .forEach(reg -> reg.setStatus(WAITING));
             registrationRepository.saveAll(approvedRegistrations);
             registration.setStatus(WAITING);
+            registrationMetrics.statusChanged(APPROVED, WAITING, approvedRegistrations.stream()
+                    .skip(eventParticipantLimit)
+                    .filter(reg -> reg != registration)
+                    .count());
         }
     }
 
@@ -212,20 +393,21 @@ public class RegistrationServiceImpl implements RegistrationService {
         return eventClient.getEventById(userId, eventId).getBody();
     }
 
-    private boolean checkIfUserIsOwnerOrManagerOfEvent(Long userId, Long eventId) {
-        final EventDto event = findEventOrThrow(userId, eventId);
+    private boolean checkIfUserIsOwnerOrManagerOfEvent(Long userId, Long eventId, EventDto event) {
         if (event.ownerId().equals(userId)) return true;
         List<TeamMemberDto> teamMemberDtoList = eventClient.getTeamsByEventId(userId, eventId).getBody();
         return teamMemberDtoList.stream()
                 .anyMatch(tm -> tm.userId().equals(userId) && tm.role().equals(TeamMemberRole.MANAGER));
     }
 
-    private void verificationTheUserHasTheRightToChangeStatusOrThrow(Long userId, Long eventId) {
-        if (!checkIfUserIsOwnerOrManagerOfEvent(userId, eventId)) {
+    private EventDto verificationTheUserHasTheRightToChangeStatusOrThrow(Long userId, Long eventId) {
+        final EventDto event = findEventOrThrow(userId, eventId);
+        if (!checkIfUserIsOwnerOrManagerOfEvent(userId, eventId, event)) {
             throw new NotAuthorizedException(String.format(
                     "User id=%d has no rights to change registration status for event id=%d",
                     userId, eventId));
         }
+        return event;
     }
 
     private void checkEventStatus(EventDto eventDto) {
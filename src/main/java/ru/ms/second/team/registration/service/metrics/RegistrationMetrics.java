@@ -0,0 +1,50 @@
+package ru.ms.second.team.registration.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+
+/**
+ * Counts registration status transitions as {@code registration.status.transitions}, tagged with {@code from}
+ * and {@code to}. New registrations are counted with {@code from=NONE}.
+ */
+@Component
+public class RegistrationMetrics {
+
+    static final String TRANSITIONS = "registration.status.transitions";
+    static final String NONE = "NONE";
+
+    private static final RegistrationStatus[] STATUSES = RegistrationStatus.values();
+
+    /**
+     * Counters by {@code from} and {@code to} ordinal; {@code from} is shifted by one to make room for NONE.
+     */
+    private final Counter[][] transitions = new Counter[STATUSES.length + 1][STATUSES.length];
+
+    public RegistrationMetrics(MeterRegistry meterRegistry) {
+        for (int from = 0; from <= STATUSES.length; from++) {
+            for (RegistrationStatus to : STATUSES) {
+                transitions[from][to.ordinal()] = Counter.builder(TRANSITIONS)
+                        .description("Registration status transitions")
+                        .tag("from", from == 0 ? NONE : STATUSES[from - 1].name())
+                        .tag("to", to.name())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    public void created(RegistrationStatus status) {
+        transitions[0][status.ordinal()].increment();
+    }
+
+    public void statusChanged(RegistrationStatus from, RegistrationStatus to) {
+        statusChanged(from, to, 1);
+    }
+
+    public void statusChanged(RegistrationStatus from, RegistrationStatus to, long count) {
+        if (count > 0 && from != to) {
+            transitions[from.ordinal() + 1][to.ordinal()].increment(count);
+        }
+    }
+}
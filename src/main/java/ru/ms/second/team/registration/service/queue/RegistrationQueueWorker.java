@@ -0,0 +1,158 @@
+package ru.ms.second.team.registration.service.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.exception.exceptions.AlreadyExistsException;
+import ru.ms.second.team.registration.exception.exceptions.NotAuthorizedException;
+import ru.ms.second.team.registration.exception.exceptions.NotFoundException;
+import ru.ms.second.team.registration.model.QueuedRegistration;
+import ru.ms.second.team.registration.repository.jdbc.RegistrationQueueRepository;
+import ru.ms.second.team.registration.service.RegistrationService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the registration queue when {@code app.registration.queue.enabled} is set.
+ * <p>
+ * A poller thread claims batches of queued requests with {@code FOR UPDATE SKIP LOCKED}, so that several nodes can
+ * drain the same queue, and runs the regular create path for each request on a pool of {@code workers} threads.
+ * Business rejections fail the ticket right away; other errors put the request back into the queue until it has
+ * been tried {@code max-attempts} times. Requests claimed by a node that died are put back after
+ * {@code processing-timeout}. A retried request whose registration was already created by an earlier attempt,
+ * which committed but did not complete the ticket, is completed with that registration.
+ */
+@Slf4j
+@Component
+public class RegistrationQueueWorker implements DisposableBean {
+
+    private final RegistrationQueueRepository queueRepository;
+    private final RegistrationService registrationService;
+    private final boolean enabled;
+    private final int workerCount;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration pollInterval;
+    private final Duration processingTimeout;
+    private final Duration retention;
+    private ScheduledExecutorService poller;
+    private ExecutorService workers;
+
+    public RegistrationQueueWorker(RegistrationQueueRepository queueRepository,
+                                   RegistrationService registrationService,
+                                   @Value("${app.registration.queue.enabled:false}") boolean enabled,
+                                   @Value("${app.registration.queue.workers:8}") int workerCount,
+                                   @Value("${app.registration.queue.batch-size:100}") int batchSize,
+                                   @Value("${app.registration.queue.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.registration.queue.poll-interval:100ms}") Duration pollInterval,
+                                   @Value("${app.registration.queue.processing-timeout:5m}") Duration processingTimeout,
+                                   @Value("${app.registration.queue.retention:1d}") Duration retention) {
+        this.queueRepository = queueRepository;
+        this.registrationService = registrationService;
+        this.enabled = enabled;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollInterval = pollInterval;
+        this.processingTimeout = processingTimeout;
+        this.retention = retention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        final AtomicInteger workerIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "registration-queue-worker-" + workerIndex.getAndIncrement()));
+        poller = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "registration-queue-poller"));
+        poller.scheduleWithFixedDelay(this::drain, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Registration queue is drained by {} workers in batches of {}", workerCount, batchSize);
+    }
+
+    public void drain() {
+        try {
+            List<QueuedRegistration> batch;
+            do {
+                batch = queueRepository.claimBatch(batchSize);
+                CompletableFuture.allOf(batch.stream()
+                        .map(request -> CompletableFuture.runAsync(() -> process(request), workers))
+                        .toArray(CompletableFuture[]::new)).join();
+            } while (batch.size() == batchSize && !poller.isShutdown());
+        } catch (RuntimeException e) {
+            log.error("Failed to drain registration queue", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.registration.queue.maintenance-interval:PT1M}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        final int released = queueRepository.releaseStale(processingTimeout);
+        final int deleted = queueRepository.deleteProcessedBefore(retention);
+        if (released > 0 || deleted > 0) {
+            log.info("Registration queue maintenance: {} stale requests released, {} processed requests deleted",
+                    released, deleted);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (poller != null) {
+            poller.shutdown();
+            poller.awaitTermination(processingTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            workers.shutdown();
+        }
+    }
+
+    public void process(QueuedRegistration request) {
+        if (request.attempts() > maxAttempts) {
+            if (!completeRetryWithExisting(request)) {
+                queueRepository.fail(request.id(), "Gave up after " + maxAttempts + " attempts");
+            }
+            return;
+        }
+        try {
+            final CreatedRegistrationResponseDto created =
+                    registrationService.createRegistration(request.registration(), request.userId());
+            queueRepository.complete(request.id(), created.id(), created.password());
+        } catch (AlreadyExistsException e) {
+            if (!completeRetryWithExisting(request)) {
+                queueRepository.fail(request.id(), e.getMessage());
+            }
+        } catch (NotAuthorizedException | NotFoundException e) {
+            queueRepository.fail(request.id(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Queued registration id={} failed on attempt {}: {}", request.id(), request.attempts(),
+                    e.getMessage());
+            if (request.attempts() >= maxAttempts) {
+                queueRepository.fail(request.id(), "Registration failed, try again later");
+            } else {
+                queueRepository.release(request.id());
+            }
+        }
+    }
+
+    private boolean completeRetryWithExisting(QueuedRegistration request) {
+        if (request.attempts() <= 1 || !queueRepository.completeWithExisting(request.id())) {
+            return false;
+        }
+        log.info("Queued registration id={} was created by an earlier attempt", request.id());
+        return true;
+    }
+}
@@ -0,0 +1,217 @@
+package ru.ms.second.team.registration.service.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.exception.exceptions.TooManyPasswordAttemptsException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory tracker of failed registration password attempts, per registration id and per caller.
+ * <p>
+ * After {@code max-failures} consecutive failures the registration (or the caller, who may spread guesses over many
+ * registrations) is locked out for {@code base-lockout}, doubling with every further failure up to {@code max-lockout}.
+ * A successful attempt resets the registration and the caller. The caller is passed in by the controller as the remote
+ * address of the connection, not as a client-supplied header such as {@code X-User-Id}: a spoofed header would dodge
+ * the caller lockout and could lock out another user. Entries are kept in lock-striped maps and forgotten
+ * {@code max-lockout} after the last failure or, if locked out, after the end of the lockout, so that a lockout at the
+ * maximum is not reset by forgetting it.
+ */
+@Slf4j
+@Component
+public class PasswordAttemptGuard {
+
+    private final Stripe[] stripes;
+    private final int registrationMaxFailures;
+    private final int callerMaxFailures;
+    private final long baseLockoutNanos;
+    private final long maxLockoutNanos;
+    private final int maxEntriesPerStripe;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public PasswordAttemptGuard(@Value("${app.password-guard.stripes:16}") int stripeCount,
+                                @Value("${app.password-guard.registration.max-failures:5}") int registrationMaxFailures,
+                                @Value("${app.password-guard.caller.max-failures:20}") int callerMaxFailures,
+                                @Value("${app.password-guard.base-lockout:30s}") Duration baseLockout,
+                                @Value("${app.password-guard.max-lockout:1h}") Duration maxLockout,
+                                @Value("${app.password-guard.max-entries:100000}") int maxEntries) {
+        this(stripeCount, registrationMaxFailures, callerMaxFailures, baseLockout, maxLockout, maxEntries,
+                System::nanoTime);
+    }
+
+    PasswordAttemptGuard(int stripeCount, int registrationMaxFailures, int callerMaxFailures, Duration baseLockout,
+                         Duration maxLockout, int maxEntries, LongSupplier nanoClock) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(new ReentrantLock(), new HashMap<>());
+        }
+        this.registrationMaxFailures = registrationMaxFailures;
+        this.callerMaxFailures = callerMaxFailures;
+        this.baseLockoutNanos = baseLockout.toNanos();
+        this.maxLockoutNanos = maxLockout.toNanos();
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / stripeCount);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Throws {@link TooManyPasswordAttemptsException} if the registration or the caller is locked out. A
+     * {@code null} caller is only checked per registration.
+     */
+    public void checkNotLockedOrThrow(Long registrationId, String caller) {
+        final long now = nanoClock.getAsLong();
+        final long lockedFor = Math.max(lockedFor(registrationKey(registrationId), now),
+                lockedFor(callerKey(caller), now));
+        if (lockedFor > 0) {
+            final long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(lockedFor + 999_999_999L));
+            throw new TooManyPasswordAttemptsException(String.format(
+                    "Too many wrong passwords for registrationId=%d, retry after %d s", registrationId,
+                    retryAfterSeconds), retryAfterSeconds);
+        }
+    }
+
+    public void recordFailure(Long registrationId, String caller) {
+        final long now = nanoClock.getAsLong();
+        recordFailure(registrationKey(registrationId), registrationMaxFailures, now);
+        final String callerKey = callerKey(caller);
+        if (callerKey != null) {
+            recordFailure(callerKey, callerMaxFailures, now);
+        }
+    }
+
+    public void recordSuccess(Long registrationId, String caller) {
+        reset(registrationKey(registrationId));
+        final String callerKey = callerKey(caller);
+        if (callerKey != null) {
+            reset(callerKey);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.password-guard.eviction-interval:PT1M}")
+    public void evictExpired() {
+        final long now = nanoClock.getAsLong();
+        for (Stripe stripe : stripes) {
+            stripe.lock().lock();
+            try {
+                stripe.attempts().values().removeIf(attempts -> isExpired(attempts, now));
+            } finally {
+                stripe.lock().unlock();
+            }
+        }
+    }
+
+    private long lockedFor(String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        final Stripe stripe = stripeFor(key);
+        stripe.lock().lock();
+        try {
+            final Attempts attempts = stripe.attempts().get(key);
+            return attempts == null ? 0 : Math.max(0, attempts.lockedUntil - now);
+        } finally {
+            stripe.lock().unlock();
+        }
+    }
+
+    private void recordFailure(String key, int maxFailures, long now) {
+        final Stripe stripe = stripeFor(key);
+        stripe.lock().lock();
+        try {
+            Attempts attempts = stripe.attempts().get(key);
+            if (attempts == null) {
+                if (stripe.attempts().size() >= maxEntriesPerStripe) {
+                    evictOldest(stripe, now);
+                }
+                attempts = new Attempts(now);
+                stripe.attempts().put(key, attempts);
+            }
+            attempts.failures++;
+            attempts.lastFailureAt = now;
+            if (attempts.failures >= maxFailures) {
+                final long lockout = lockout(attempts.failures - maxFailures);
+                attempts.lockedUntil = now + lockout;
+                log.warn("Locked out {} for {} s after {} wrong passwords", key,
+                        TimeUnit.NANOSECONDS.toSeconds(lockout), attempts.failures);
+            }
+        } finally {
+            stripe.lock().unlock();
+        }
+    }
+
+    private void reset(String key) {
+        final Stripe stripe = stripeFor(key);
+        stripe.lock().lock();
+        try {
+            stripe.attempts().remove(key);
+        } finally {
+            stripe.lock().unlock();
+        }
+    }
+
+    private void evictOldest(Stripe stripe, long now) {
+        stripe.attempts().values().removeIf(attempts -> isExpired(attempts, now));
+        if (stripe.attempts().size() < maxEntriesPerStripe) {
+            return;
+        }
+        Map.Entry<String, Attempts> oldest = null;
+        for (Map.Entry<String, Attempts> entry : stripe.attempts().entrySet()) {
+            final Attempts attempts = entry.getValue();
+            if (attempts.lockedUntil - now <= 0
+                    && (oldest == null || attempts.lastFailureAt - oldest.getValue().lastFailureAt < 0)) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            stripe.attempts().remove(oldest.getKey());
+        }
+    }
+
+    private long lockout(int doublings) {
+        long lockout = baseLockoutNanos;
+        for (int i = 0; i < doublings && lockout < maxLockoutNanos; i++) {
+            lockout <<= 1;
+        }
+        return Math.min(lockout, maxLockoutNanos);
+    }
+
+    private boolean isExpired(Attempts attempts, long now) {
+        final long lastActiveAt = attempts.lockedUntil - attempts.lastFailureAt > 0
+                ? attempts.lockedUntil : attempts.lastFailureAt;
+        return now - lastActiveAt > maxLockoutNanos;
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private String registrationKey(Long registrationId) {
+        return "registration:" + registrationId;
+    }
+
+    private String callerKey(String caller) {
+        return caller == null || caller.isBlank() ? null : "caller:" + caller;
+    }
+
+    private record Stripe(ReentrantLock lock, Map<String, Attempts> attempts) {
+    }
+
+    private static final class Attempts {
+        private int failures;
+        private long lastFailureAt;
+        private long lockedUntil;
+
+        private Attempts(long now) {
+            this.lastFailureAt = now;
+            this.lockedUntil = now;
+        }
+    }
+}
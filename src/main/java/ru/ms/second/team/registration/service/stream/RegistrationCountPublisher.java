@@ -0,0 +1,214 @@
+package ru.ms.second.team.registration.service.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.ms.second.team.registration.config.datasource.RoutingDataSource;
+import ru.ms.second.team.registration.dto.response.RegistrationCount;
+import ru.ms.second.team.registration.exception.exceptions.SubscriberLimitExceededException;
+import ru.ms.second.team.registration.service.RegistrationService;
+import ru.ms.second.team.registration.service.version.EventVersionNotifier;
+import ru.ms.second.team.registration.service.version.EventVersionRegistry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes registration counts of an event to its SSE subscribers.
+ * <p>
+ * Changes are detected through {@link EventVersionRegistry} once per {@code interval}, so a burst of
+ * registrations results in a single count query and a single push per event and interval. Counts are written to
+ * the subscribers by {@code app.registration.count-stream.sender-threads} sender threads, so a slow client never
+ * holds up the shared scheduler; each subscriber has at most one write in flight and skips to the latest count
+ * once it is done. Changes made through other nodes are pushed once {@link EventVersionNotifier} delivers them,
+ * and after an outage of its listener the counts of every event are pushed again.
+ */
+@Slf4j
+@Component
+public class RegistrationCountPublisher implements DisposableBean {
+
+    private static final String EVENT_NAME = "registration-count";
+
+    private final RegistrationService registrationService;
+    private final EventVersionRegistry eventVersionRegistry;
+    private final Map<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+
+    public RegistrationCountPublisher(RegistrationService registrationService,
+                                      EventVersionRegistry eventVersionRegistry,
+                                      @Value("${app.registration.count-stream.timeout:30m}") Duration timeout,
+                                      @Value("${app.registration.count-stream.max-subscribers:1000}")
+                                      int maxSubscribers,
+                                      @Value("${app.registration.count-stream.sender-threads:4}")
+                                      int senderThreads) {
+        this.registrationService = registrationService;
+        this.eventVersionRegistry = eventVersionRegistry;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        final AtomicInteger senderIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "registration-count-sender-" + senderIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(Long eventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriberLimitExceededException(String.format(
+                    "Limit of %d registration count subscribers is reached, retry later", maxSubscribers));
+        }
+        final SseEmitter emitter = new SseEmitter(timeoutMillis);
+        final Subscriber subscriber = new Subscriber(emitter);
+        subscriptions.compute(eventId, (id, current) -> {
+            final Subscription subscription = current == null ? new Subscription() : current;
+            subscription.subscribers().add(subscriber);
+            return subscription;
+        });
+        emitter.onCompletion(() -> unsubscribe(eventId, subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitter.complete());
+
+        try {
+            final long version = eventVersionRegistry.getVersion(eventId);
+            publish(subscriber, new Update(version, registrationService.getRegistrationsCountByEventId(eventId)));
+        } catch (RuntimeException e) {
+            unsubscribe(eventId, subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.registration.count-stream.interval:PT1S}")
+    public void publishChanges() {
+        try (RoutingDataSource.Scope ignored = RoutingDataSource.bind(RoutingDataSource.Pool.READ)) {
+            subscriptions.forEach((eventId, subscription) -> {
+                final long version = eventVersionRegistry.getVersion(eventId);
+                if (version == subscription.lastVersion() || subscription.subscribers().isEmpty()) {
+                    return;
+                }
+                final Update update = new Update(version, registrationService.getRegistrationsCountByEventId(eventId));
+                subscription.setLastVersion(version);
+                subscription.subscribers().forEach(subscriber -> publish(subscriber, update));
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Hands the update to a sender thread unless a write to the subscriber is already in flight, in which case
+     * that sender picks it up when it is done. Updates older than the last one sent are dropped.
+     */
+    private void publish(Subscriber subscriber, Update update) {
+        subscriber.pending().accumulateAndGet(update,
+                (current, next) -> current == null || next.version() >= current.version() ? next : current);
+        if (subscriber.sending().compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.sending().set(false);
+                log.debug("Registration count senders are shut down, dropping update of version {}",
+                        update.version());
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            Update update;
+            while ((update = subscriber.pending().getAndSet(null)) != null) {
+                if (update.version() > subscriber.lastSentVersion) {
+                    subscriber.lastSentVersion = update.version();
+                    send(subscriber.emitter(), update);
+                }
+            }
+            subscriber.sending().set(false);
+        } while (subscriber.pending().get() != null && subscriber.sending().compareAndSet(false, true));
+    }
+
+    private void send(SseEmitter emitter, Update update) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(String.valueOf(update.version()))
+                    .data(update.count()));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping registration count subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Long eventId, Subscriber subscriber) {
+        final Subscription subscription = subscriptions.get(eventId);
+        if (subscription != null && subscription.subscribers().remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscriptions.computeIfPresent(eventId,
+                    (id, current) -> current.subscribers().isEmpty() ? null : current);
+        }
+    }
+
+    private record Update(long version, RegistrationCount count) {
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicReference<Update> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private long lastSentVersion = -1;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        AtomicReference<Update> pending() {
+            return pending;
+        }
+
+        AtomicBoolean sending() {
+            return sending;
+        }
+    }
+
+    private static final class Subscription {
+
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private volatile long lastVersion = -1;
+
+        Set<Subscriber> subscribers() {
+            return subscribers;
+        }
+
+        long lastVersion() {
+            return lastVersion;
+        }
+
+        void setLastVersion(long lastVersion) {
+            this.lastVersion = lastVersion;
+        }
+    }
+}
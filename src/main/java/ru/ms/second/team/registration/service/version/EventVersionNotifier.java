@@ -0,0 +1,152 @@
+package ru.ms.second.team.registration.service.version;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Shares event version changes between nodes through Postgres {@code LISTEN}/{@code NOTIFY}.
+ * <p>
+ * {@link EventVersionRegistry#bump(Long)} sends a notification on the {@value #CHANNEL} channel, within the
+ * transaction of the change when there is one, so it is only delivered once the change is committed. A dedicated
+ * listener connection applies the changes of other nodes to the registry. While that connection is down the
+ * registry hands out no tags, and once it listens again the registry starts a new epoch, so changes missed in
+ * between never produce a stale {@code 304}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.registration.versions.notify.enabled", havingValue = "true", matchIfMissing = true)
+public class EventVersionNotifier implements DisposableBean {
+
+    static final String CHANNEL = "event_versions";
+
+    private final EventVersionRegistry eventVersionRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final Duration pollInterval;
+    private final Duration retryInterval;
+    private final String nodeId = Long.toHexString(new SecureRandom().nextLong());
+    private volatile boolean running;
+    private Thread listener;
+
+    public EventVersionNotifier(EventVersionRegistry eventVersionRegistry,
+                                JdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                @Value("${app.registration.versions.notify.poll-interval:5s}") Duration pollInterval,
+                                @Value("${app.registration.versions.notify.retry-interval:5s}")
+                                Duration retryInterval) {
+        this.eventVersionRegistry = eventVersionRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.pollInterval = pollInterval;
+        this.retryInterval = retryInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        eventVersionRegistry.suspend();
+        eventVersionRegistry.setNotifier(this);
+        running = true;
+        listener = new Thread(this::listen, "event-version-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    public void notifyChanged(Long eventId) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, nodeId + ":" + eventId);
+        } catch (DataAccessException e) {
+            log.warn("Could not notify other nodes about a change of event id={}: {}", eventId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(pollInterval.toMillis() + 1000);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                execute(connection, "LISTEN " + CHANNEL);
+                try {
+                    receive(connection);
+                } finally {
+                    execute(connection, "UNLISTEN *");
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Event version listener lost its connection, conditional requests are served in full "
+                            + "until it is back: {}", e.getMessage());
+                }
+            }
+            eventVersionRegistry.suspend();
+            sleep(retryInterval);
+        }
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        eventVersionRegistry.resume();
+        log.info("Listening for event version changes of other nodes");
+        while (running) {
+            final PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+            if (notifications == null || notifications.length == 0) {
+                // A silently dropped connection does not fail the wait, so it is checked explicitly
+                if (!connection.isValid(1)) {
+                    throw new SQLException("Listener connection is not valid");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                apply(notification.getParameter());
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        final int separator = payload.indexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            eventVersionRegistry.markChanged(Long.valueOf(payload.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed event version notification '{}'", payload);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.ms.second.team.registration.service.version;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-event version stamps used as ETags of the read endpoints.
+ * <p>
+ * Every mutation of an event's registrations bumps its version once the change is committed, so a stamp read
+ * before querying the database never describes newer data than the query returns. Versions are kept in memory and
+ * changes made through other nodes arrive through {@link EventVersionNotifier}; while it is not listening no tags
+ * are handed out, and stamps start from a new random epoch once it listens again, which also invalidates tags
+ * handed out before a restart. Only the {@code max-events} most recently changed events are kept, the others share
+ * the version of the newest evicted one.
+ */
+@Component
+public class EventVersionRegistry {
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int maxEvents;
+    private volatile long evictedVersion;
+    private volatile String epoch = newEpoch();
+    private volatile boolean tracking = true;
+    private volatile EventVersionNotifier notifier;
+
+    public EventVersionRegistry(@Value("${app.registration.versions.max-events:10000}") int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Returns the tag of the current version of the event, or {@code null} while changes made through other nodes
+     * cannot be tracked.
+     */
+    public String getETag(Long eventId) {
+        return getETag(eventId, null);
+    }
+
+    /**
+     * Returns the tag of the current version of the event in the given representation, so that a cache never
+     * answers a request for one representation with another; a {@code null} representation is the default one.
+     */
+    public String getETag(Long eventId, String representation) {
+        if (!tracking) {
+            return null;
+        }
+        final String suffix = representation == null ? "" : "-" + representation;
+        return "\"" + epoch + "-" + eventId + "-" + getVersion(eventId) + suffix + "\"";
+    }
+
+    /**
+     * Returns the event id encoded in the first tag of an {@code If-None-Match} header issued by this node, or
+     * {@code null} if there is none.
+     */
+    public Long parseEventId(String ifNoneMatch) {
+        if (ifNoneMatch == null || !tracking) {
+            return null;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            final String[] parts = tag.trim().replace("W/", "").replace("\"", "").split("-");
+            if (parts.length >= 3 && parts[0].equals(epoch)) {
+                try {
+                    return Long.valueOf(parts[1]);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counter bumped together with every event version, used to detect that some event changed while a
+     * registration, whose event is not known upfront, was being read.
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    public void bump(Long eventId) {
+        final EventVersionNotifier currentNotifier = notifier;
+        if (currentNotifier != null) {
+            currentNotifier.notifyChanged(eventId);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    markChanged(eventId);
+                }
+            });
+        } else {
+            markChanged(eventId);
+        }
+    }
+
+    /**
+     * Records a committed change of the event without notifying other nodes, used for changes they made.
+     */
+    public void markChanged(Long eventId) {
+        versions.merge(eventId, sequence.incrementAndGet(), Math::max);
+    }
+
+    public long getVersion(Long eventId) {
+        return versions.getOrDefault(eventId, evictedVersion);
+    }
+
+    @Scheduled(fixedDelayString = "${app.registration.versions.eviction-interval:PT1M}")
+    public void evictOldest() {
+        final int excess = versions.size() - maxEvents;
+        if (excess <= 0) {
+            return;
+        }
+        final long newestEvicted = versions.values().stream()
+                .sorted()
+                .skip(excess - 1)
+                .findFirst()
+                .orElse(evictedVersion);
+        // Raised first, so that an evicted event never reads a version older than the one it had
+        evictedVersion = Math.max(evictedVersion, newestEvicted);
+        versions.forEach((eventId, version) -> {
+            if (version <= newestEvicted) {
+                versions.remove(eventId, version);
+            }
+        });
+    }
+
+    void setNotifier(EventVersionNotifier notifier) {
+        this.notifier = notifier;
+    }
+
+    /**
+     * Stops handing out tags, called when changes made through other nodes can no longer be tracked.
+     */
+    void suspend() {
+        tracking = false;
+    }
+
+    /**
+     * Changes the version of every event, as any of them may have changed unnoticed, starts a new epoch and hands
+     * out tags again. Called once changes made through other nodes are tracked.
+     */
+    void resume() {
+        evictedVersion = sequence.incrementAndGet();
+        versions.clear();
+        epoch = newEpoch();
+        tracking = true;
+    }
+
+    private static String newEpoch() {
+        return Long.toHexString(new SecureRandom().nextLong());
+    }
+}
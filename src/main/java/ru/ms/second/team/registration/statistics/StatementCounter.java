@@ -0,0 +1,63 @@
+package ru.ms.second.team.registration.statistics;
+
+import io.micrometer.context.ContextRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the JDBC statements executed on behalf of the current request. The count is carried along with the
+ * request's context to threads that work for it, such as the status transition threads, so their statements
+ * count as well.
+ */
+public final class StatementCounter {
+
+    private static final String CONTEXT_KEY = "registration.statement-count";
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(CONTEXT_KEY, CURRENT::get, CURRENT::set,
+                CURRENT::remove);
+    }
+
+    private StatementCounter() {
+    }
+
+    /**
+     * Starts counting on the current thread until the returned scope is closed.
+     */
+    public static Scope start() {
+        final AtomicInteger previous = CURRENT.get();
+        final AtomicInteger count = new AtomicInteger();
+        CURRENT.set(count);
+        return new Scope() {
+            @Override
+            public int getCount() {
+                return count.get();
+            }
+
+            @Override
+            public void close() {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void increment() {
+        final AtomicInteger count = CURRENT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        int getCount();
+
+        @Override
+        void close();
+    }
+}
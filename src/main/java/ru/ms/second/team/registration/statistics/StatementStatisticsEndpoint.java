@@ -0,0 +1,90 @@
+package ru.ms.second.team.registration.statistics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import ru.ms.second.team.registration.filter.StatementCountFilter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint {@code /actuator/statements}: JDBC statements per endpoint together with the Hibernate
+ * statistics, to spot N+1 patterns. A {@code DELETE} starts counting over. The endpoint is admin-only, see
+ * {@link ru.ms.second.team.registration.filter.AdminTokenFilter}.
+ */
+@Component
+@Endpoint(id = "statements")
+public class StatementStatisticsEndpoint {
+
+    private static final int TOP_QUERIES = 20;
+
+    private final StatementCountFilter statementCountFilter;
+    private final Statistics statistics;
+
+    public StatementStatisticsEndpoint(StatementCountFilter statementCountFilter,
+                                       EntityManagerFactory entityManagerFactory) {
+        this.statementCountFilter = statementCountFilter;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public StatementStatistics statements() {
+        return new StatementStatistics(statementCountFilter.getStatistics(), hibernate());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statementCountFilter.reset();
+        statistics.clear();
+    }
+
+    private HibernateStatistics hibernate() {
+        final Map<String, Long> entityFetches = new TreeMap<>();
+        for (String entityName : statistics.getEntityNames()) {
+            entityFetches.put(entityName, statistics.getEntityStatistics(entityName).getFetchCount());
+        }
+        final Map<String, Long> collectionFetches = new TreeMap<>();
+        for (String role : statistics.getCollectionRoleNames()) {
+            collectionFetches.put(role, statistics.getCollectionStatistics(role).getFetchCount());
+        }
+        final Map<String, QueryStatement> queries = new LinkedHashMap<>();
+        Arrays.stream(statistics.getQueries())
+                .map(query -> Map.entry(query, statistics.getQueryStatistics(query)))
+                .filter(query -> query.getValue().getExecutionCount() > 0)
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, QueryStatistics> query) -> query.getValue().getExecutionCount()).reversed())
+                .limit(TOP_QUERIES)
+                .forEach(query -> queries.put(query.getKey(), new QueryStatement(query.getValue())));
+        return new HibernateStatistics(statistics.isStatisticsEnabled(), statistics.getPrepareStatementCount(),
+                statistics.getQueryExecutionCount(), statistics.getEntityLoadCount(), statistics.getEntityFetchCount(),
+                statistics.getCollectionLoadCount(), statistics.getCollectionFetchCount(), entityFetches,
+                collectionFetches, queries);
+    }
+
+    public record StatementStatistics(Map<String, StatementCountFilter.EndpointStatements> endpoints,
+                                      HibernateStatistics hibernate) {
+    }
+
+    public record HibernateStatistics(boolean enabled, long prepareStatementCount, long queryExecutionCount,
+                                      long entityLoadCount, long entityFetchCount, long collectionLoadCount,
+                                      long collectionFetchCount, Map<String, Long> entityFetches,
+                                      Map<String, Long> collectionFetches, Map<String, QueryStatement> queries) {
+    }
+
+    public record QueryStatement(long executions, long rows, long averageTimeMillis, long maxTimeMillis) {
+
+        private QueryStatement(QueryStatistics query) {
+            this(query.getExecutionCount(), query.getExecutionRowCount(), query.getExecutionAvgTime(),
+                    query.getExecutionMaxTime());
+        }
+    }
+}
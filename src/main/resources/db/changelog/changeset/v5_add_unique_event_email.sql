@@ -0,0 +1,2 @@
+ALTER TABLE registrations
+ADD CONSTRAINT uq_registrations_event_email UNIQUE (event_id, email);
@@ -0,0 +1,21 @@
+CREATE TABLE IF NOT EXISTS registration_queue (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+    ticket UUID NOT NULL UNIQUE,
+    user_id BIGINT NOT NULL,
+    username VARCHAR(100) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    phone VARCHAR(11) NOT NULL,
+    event_id BIGINT NOT NULL,
+    state VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    registration_id BIGINT,
+    password VARCHAR(4),
+    error VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    claimed_at TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_registration_queue_queued ON registration_queue (id) WHERE state = 'QUEUED';
+CREATE INDEX IF NOT EXISTS idx_registration_queue_processing ON registration_queue (claimed_at) WHERE state = 'PROCESSING';
+CREATE INDEX IF NOT EXISTS idx_registration_queue_processed ON registration_queue (processed_at);
@@ -0,0 +1,4 @@
+ALTER TABLE registration_queue ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(255);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_registration_queue_user_idempotency_key
+    ON registration_queue (user_id, idempotency_key) WHERE idempotency_key IS NOT NULL;
@@ -0,0 +1,80 @@
+package ru.ms.second.team.registration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.ms.second.team.registration.service.executor.EventTransitionExecutor;
+import ru.ms.second.team.registration.service.executor.LocalEventOwnership;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput of approvals pushed through {@link EventTransitionExecutor} by 1, 8 and 64 concurrent approvers.
+ * A transition is simulated by parking for {@code transitionMicros}, which stands in for the capacity query and
+ * the status update. With {@code eventCount=1} all approvers contend on one event and are serialized; with more
+ * events the stripes run in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventTransitionExecutorBenchmark {
+
+    @Param({"1", "64"})
+    private int eventCount;
+
+    @Param({"16"})
+    private int stripes;
+
+    @Param({"200"})
+    private long transitionMicros;
+
+    private EventTransitionExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = new EventTransitionExecutor(stripes, 4096, TransactionOperations.withoutTransaction(),
+                new LocalEventOwnership());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long approvers1() {
+        return approve();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Long approvers8() {
+        return approve();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Long approvers64() {
+        return approve();
+    }
+
+    private Long approve() {
+        final long eventId = ThreadLocalRandom.current().nextLong(eventCount) + 1;
+        return executor.execute(eventId, () -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(transitionMicros));
+            return eventId;
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package ru.ms.second.team.registration.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of a list of {@code size} registrations, as returned by the list and search endpoints.
+ * Compares the default Spring ObjectMapper, the same mapper with {@link BlackbirdModule}, and a prebuilt
+ * {@link ObjectWriter} for the list type on top of it. {@code gzip} adds the response compression step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"10000"})
+    private int size;
+
+    private List<RegistrationResponseDto> registrations;
+    private ObjectMapper defaultMapper;
+    private ObjectMapper blackbirdMapper;
+    private ObjectWriter listWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        defaultMapper = Jackson2ObjectMapperBuilder.json().build();
+        blackbirdMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        listWriter = blackbirdMapper.writerFor(new TypeReference<List<RegistrationResponseDto>>() {
+        });
+        final RegistrationStatus[] statuses = RegistrationStatus.values();
+        registrations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            registrations.add(RegistrationResponseDto.builder()
+                    .username("user" + i)
+                    .email("user" + i + "@mail.com")
+                    .phone(String.valueOf(79000000000L + i))
+                    .eventId((long) (i % 100))
+                    .status(statuses[i % statuses.length])
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] defaultMapper() throws IOException {
+        return defaultMapper.writeValueAsBytes(registrations);
+    }
+
+    @Benchmark
+    public byte[] blackbird() throws IOException {
+        return blackbirdMapper.writeValueAsBytes(registrations);
+    }
+
+    @Benchmark
+    public byte[] blackbirdListWriter() throws IOException {
+        return listWriter.writeValueAsBytes(registrations);
+    }
+
+    @Benchmark
+    public byte[] blackbirdListWriterGzip() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            listWriter.writeValue(gzip, registrations);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.ms.second.team.registration.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.ms.second.team.registration.converter.RegistrationProtobufCodec;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of a registration list as JSON (the application's ObjectMapper setup) and as
+ * {@code application/x-protobuf}. Payload sizes of both representations are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProtobufSerializationBenchmark {
+
+    private static final TypeReference<List<RegistrationResponseDto>> LIST_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<RegistrationResponseDto> registrations;
+    private ObjectWriter jsonWriter;
+    private ObjectReader jsonReader;
+    private RegistrationProtobufCodec protobufCodec;
+    private byte[] json;
+    private byte[] protobuf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        jsonWriter = mapper.writerFor(LIST_TYPE);
+        jsonReader = mapper.readerFor(LIST_TYPE);
+        protobufCodec = new RegistrationProtobufCodec();
+        final RegistrationStatus[] statuses = RegistrationStatus.values();
+        registrations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            registrations.add(RegistrationResponseDto.builder()
+                    .username("user" + i)
+                    .email("user" + i + "@mail.com")
+                    .phone(String.valueOf(79000000000L + i))
+                    .eventId((long) (i % 100) + 1)
+                    .status(statuses[i % statuses.length])
+                    .build());
+        }
+        json = encodeJson();
+        protobuf = encodeProtobuf();
+        System.out.printf("%nPayload of %d registrations: json=%d bytes, protobuf=%d bytes%n",
+                size, json.length, protobuf.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(registrations);
+    }
+
+    @Benchmark
+    public byte[] encodeProtobuf() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size * 64);
+        protobufCodec.write(registrations, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public List<RegistrationResponseDto> decodeJson() throws IOException {
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public List<RegistrationResponseDto> decodeProtobuf() throws IOException {
+        return protobufCodec.read(new ByteArrayInputStream(protobuf));
+    }
+}
@@ -0,0 +1,58 @@
+package ru.ms.second.team.registration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.repository.jdbc.JdbcRegistrationRepositoryImpl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the per-status registration counts of an event by {@link JdbcRegistrationRepositoryImpl} from
+ * a result set with one row per status, as returned by the count query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegistrationCountExtractionBenchmark {
+
+    private static final RegistrationStatus[] STATUSES = RegistrationStatus.values();
+
+    private JdbcRegistrationRepositoryImpl repository;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final ResultSet resultSet = Stubs.of(ResultSet.class, Map.of(
+                "next", args -> ++row <= STATUSES.length,
+                "getString", args -> STATUSES[row - 1].name(),
+                "getLong", args -> 100L * row));
+        repository = new JdbcRegistrationRepositoryImpl(new JdbcTemplate() {
+            @Override
+            public <T> T query(String sql, ResultSetExtractor<T> extractor, Object... args) {
+                row = 0;
+                try {
+                    return extractor.extractData(resultSet);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public Map<String, Long> extractStatusCounts() {
+        return repository.getStatusToNumberOfRegistrationsForEvent(1L);
+    }
+}
@@ -0,0 +1,190 @@
+package ru.ms.second.team.registration.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.ms.second.team.registration.model.Registration;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.repository.jdbc.JdbcRegistrationRepositoryImpl;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+import ru.ms.second.team.registration.service.batch.RegistrationInsertBatcher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Registration inserts of 200 concurrent clients, one statement and commit per registration ({@code direct})
+ * versus {@link RegistrationInsertBatcher}, through {@code poolSize} connections. Commits per second are printed
+ * after each iteration.
+ * <p>
+ * With {@code database=postgres} the registrations are inserted by {@link JdbcRegistrationRepositoryImpl} through
+ * Hikari into a migrated Postgres, started with Testcontainers unless {@code benchmark.jdbc-url} (with
+ * {@code benchmark.jdbc-username} and {@code benchmark.jdbc-password}) points to a running one. With
+ * {@code database=model} no database is involved: a statement holds one of {@code poolSize} permits for
+ * {@code commitMicros} plus {@code rowMicros} per row, so its results only show what that model predicts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RegistrationInsertBatchingBenchmark {
+
+    @Param({"direct", "batched"})
+    private String mode;
+
+    @Param({"postgres", "model"})
+    private String database;
+
+    @Param({"10"})
+    private int poolSize;
+
+    @Param({"1000"})
+    private long commitMicros;
+
+    @Param({"20"})
+    private long rowMicros;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private Semaphore connections;
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private JpaRegistrationRepository repository;
+    private RegistrationInsertBatcher batcher;
+    private long eventId;
+    private long iterationStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws LiquibaseException {
+        if ("postgres".equals(database)) {
+            final JdbcRegistrationRepositoryImpl jdbcRepository =
+                    new JdbcRegistrationRepositoryImpl(new JdbcTemplate(startPostgres()));
+            repository = countingCommits(args -> jdbcRepository.insertIfAbsent((Registration) args[0]),
+                    args -> jdbcRepository.insertAllIfAbsent(castToList(args[0])));
+        } else {
+            connections = new Semaphore(poolSize);
+            repository = countingCommits(args -> simulateInsert(List.of((Registration) args[0])).get(0),
+                    args -> simulateInsert(castToList(args[0])));
+        }
+        // A new event per trial, so that rows left by earlier runs in the same database never conflict
+        eventId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        batcher = new RegistrationInsertBatcher(repository, true, 2, 100, Duration.ofMillis(2), 10_000);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        commits.set(0);
+        iterationStart = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCommits() {
+        final double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        System.out.printf("%n%s: %.0f commits/s%n", mode, commits.get() / seconds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        batcher.destroy();
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    @Threads(200)
+    public Optional<Registration> insert() {
+        final Registration registration = Registration.builder()
+                .username("user")
+                .email("user" + ids.incrementAndGet() + "@mail.com")
+                .phone("78005553535")
+                .eventId(eventId)
+                .password("1234")
+                .status(RegistrationStatus.PENDING)
+                .build();
+        return "batched".equals(mode) ? batcher.insertIfAbsent(registration) : repository.insertIfAbsent(registration);
+    }
+
+    private HikariDataSource startPostgres() throws LiquibaseException {
+        String jdbcUrl = System.getProperty("benchmark.jdbc-url");
+        String username = System.getProperty("benchmark.jdbc-username", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "postgres");
+        if (jdbcUrl == null) {
+            postgres = new PostgreSQLContainer<>("postgres:13.7-alpine");
+            postgres.start();
+            jdbcUrl = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(jdbcUrl);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        final SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+        return dataSource;
+    }
+
+    /**
+     * Repository whose every insert statement is counted as a commit, as outside of a transaction it commits on its
+     * own.
+     */
+    private JpaRegistrationRepository countingCommits(Function<Object[], Object> insert,
+                                                      Function<Object[], Object> insertAll) {
+        return Stubs.of(JpaRegistrationRepository.class, Map.of(
+                "insertIfAbsent", args -> commit(insert, args),
+                "insertAllIfAbsent", args -> commit(insertAll, args)));
+    }
+
+    private Object commit(Function<Object[], Object> statement, Object[] args) {
+        final Object result = statement.apply(args);
+        commits.incrementAndGet();
+        return result;
+    }
+
+    private List<Optional<Registration>> simulateInsert(List<Registration> registrations) {
+        connections.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(commitMicros + rowMicros * registrations.size()));
+            return registrations.stream().map(registration -> {
+                registration.setId(ids.incrementAndGet());
+                return Optional.of(registration);
+            }).toList();
+        } finally {
+            connections.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Registration> castToList(Object registrations) {
+        return (List<Registration>) registrations;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.ms.second.team.registration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
+import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
+import ru.ms.second.team.registration.mapper.RegistrationMapper;
+import ru.ms.second.team.registration.mapper.RegistrationMapperImpl;
+import ru.ms.second.team.registration.model.Registration;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions of the generated {@link RegistrationMapper} used on every request: request DTO to entity, entity
+ * to the response DTOs, partial update of an entity, and a list of {@code size} entities for the list and search
+ * endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegistrationMapperBenchmark {
+
+    @Param({"100"})
+    private int size;
+
+    private RegistrationMapper mapper;
+    private NewRegistrationDto newRegistration;
+    private UpdateRegistrationDto update;
+    private Registration registration;
+    private List<Registration> registrations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = new RegistrationMapperImpl();
+        newRegistration = NewRegistrationDto.builder()
+                .username("user")
+                .email("user@mail.com")
+                .phone("78005553535")
+                .eventId(1L)
+                .build();
+        update = UpdateRegistrationDto.builder()
+                .id(1L)
+                .username("new user")
+                .password("1234")
+                .build();
+        registration = createRegistration(1);
+        final RegistrationStatus[] statuses = RegistrationStatus.values();
+        registrations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Registration next = createRegistration(i);
+            next.setStatus(statuses[i % statuses.length]);
+            registrations.add(next);
+        }
+    }
+
+    @Benchmark
+    public Registration toModel() {
+        return mapper.toModel(newRegistration);
+    }
+
+    @Benchmark
+    public CreatedRegistrationResponseDto toCreatedDto() {
+        return mapper.toCreatedDto(registration);
+    }
+
+    @Benchmark
+    public UpdatedRegistrationResponseDto toUpdatedDto() {
+        return mapper.toUpdatedDto(registration);
+    }
+
+    @Benchmark
+    public RegistrationResponseDto toRegistrationDto() {
+        return mapper.toRegistrationDto(registration);
+    }
+
+    @Benchmark
+    public Registration updateRegistration() {
+        mapper.updateRegistration(update, registration);
+        return registration;
+    }
+
+    @Benchmark
+    public List<RegistrationResponseDto> toRegistrationDtoList() {
+        return mapper.toRegistraionDtoList(registrations);
+    }
+
+    private Registration createRegistration(int i) {
+        return Registration.builder()
+                .id((long) i)
+                .username("user" + i)
+                .email("user" + i + "@mail.com")
+                .phone(String.valueOf(79000000000L + i))
+                .eventId((long) (i % 10) + 1)
+                .password("1234")
+                .status(RegistrationStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+package ru.ms.second.team.registration.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.ms.second.team.registration.client.EventClient;
+import ru.ms.second.team.registration.dto.event.EventDto;
+import ru.ms.second.team.registration.dto.event.EventRegistrationStatus;
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
+import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
+import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationCount;
+import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
+import ru.ms.second.team.registration.mapper.RegistrationMapperImpl;
+import ru.ms.second.team.registration.model.Registration;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.repository.jdbc.RegistrationQueueRepository;
+import ru.ms.second.team.registration.repository.jpa.DeclinedRegistrationRepository;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+import ru.ms.second.team.registration.service.admission.WaitingRoom;
+import ru.ms.second.team.registration.service.batch.RegistrationInsertBatcher;
+import ru.ms.second.team.registration.service.dedup.RegistrationEmailFilter;
+import ru.ms.second.team.registration.service.executor.EventTransitionExecutor;
+import ru.ms.second.team.registration.service.executor.LocalEventOwnership;
+import ru.ms.second.team.registration.service.idempotency.IdempotencyStore;
+import ru.ms.second.team.registration.service.metrics.RegistrationMetrics;
+import ru.ms.second.team.registration.service.impl.RegistrationServiceImpl;
+import ru.ms.second.team.registration.service.security.PasswordAttemptGuard;
+import ru.ms.second.team.registration.service.version.EventVersionRegistry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create, update, status change and count flows of {@link RegistrationServiceImpl} with the real mapper,
+ * transition executor and in-memory guards, and with repositories and the event client answering from memory.
+ * Shows the CPU and allocation cost of the service layer itself, without database and network time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegistrationServiceBenchmark {
+
+    private static final long OWNER_ID = 1L;
+    private static final long EVENT_ID = 1L;
+    private static final String PASSWORD = "1234";
+    private static final String CALLER = "127.0.0.1";
+
+    private final AtomicLong ids = new AtomicLong();
+    private RegistrationServiceImpl registrationService;
+    private EventTransitionExecutor transitionExecutor;
+    private RegistrationInsertBatcher insertBatcher;
+    private UpdateRegistrationDto update;
+    private RegistrationCredentials credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+        final EventDto event = EventDto.builder()
+                .id(EVENT_ID)
+                .name("event")
+                .ownerId(OWNER_ID)
+                .startDateTime(LocalDateTime.now().plusDays(1))
+                .endDateTime(LocalDateTime.now().plusDays(2))
+                .participantLimit(0)
+                .registrationStatus(EventRegistrationStatus.OPEN)
+                .build();
+        final JpaRegistrationRepository registrationRepository = Stubs.of(JpaRegistrationRepository.class, Map.of(
+                "existsByEventIdAndEmail", args -> false,
+                "forEachEmailOfEvent", args -> null,
+                "insertIfAbsent", args -> {
+                    final Registration registration = (Registration) args[0];
+                    registration.setId(ids.incrementAndGet());
+                    return Optional.of(registration);
+                },
+                "findById", args -> Optional.of(createRegistration((Long) args[0])),
+                "save", args -> args[0],
+                "searchRegistrations", args -> List.of(),
+                "getStatusToNumberOfRegistrationsForEvent", args -> Map.of(
+                        RegistrationStatus.PENDING.name(), 120L,
+                        RegistrationStatus.APPROVED.name(), 80L,
+                        RegistrationStatus.WAITING.name(), 10L)));
+        final EventClient eventClient = Stubs.of(EventClient.class, Map.of(
+                "getEventById", args -> ResponseEntity.ok(event),
+                "getTeamsByEventId", args -> ResponseEntity.ok(List.of())));
+        transitionExecutor = new EventTransitionExecutor(16, 1024, TransactionOperations.withoutTransaction(),
+                new LocalEventOwnership());
+        insertBatcher = new RegistrationInsertBatcher(registrationRepository, false, 1, 100, Duration.ofMillis(2), 10);
+        registrationService = new RegistrationServiceImpl(
+                registrationRepository,
+                Stubs.of(DeclinedRegistrationRepository.class, Map.of()),
+                new RegistrationMapperImpl(),
+                eventClient,
+                transitionExecutor,
+                new IdempotencyStore(Duration.ofMinutes(10), 100_000, Duration.ofSeconds(30)),
+                new RegistrationEmailFilter(registrationRepository, 65536, 5, Duration.ofHours(1)),
+                new EventVersionRegistry(10_000),
+                new PasswordAttemptGuard(16, 5, 20, Duration.ofSeconds(30), Duration.ofHours(1), 100_000),
+                Stubs.of(RegistrationQueueRepository.class, Map.of()),
+                new WaitingRoom(false, 50, 100, 100, Duration.ofMinutes(10), Duration.ofSeconds(30), ""),
+                insertBatcher,
+                new RegistrationMetrics(new SimpleMeterRegistry()));
+        update = UpdateRegistrationDto.builder()
+                .id(1L)
+                .password(PASSWORD)
+                .username("new user")
+                .build();
+        credentials = new RegistrationCredentials(1L, PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        transitionExecutor.destroy();
+        insertBatcher.destroy();
+    }
+
+    @Benchmark
+    public CreatedRegistrationResponseDto createRegistration() {
+        final long n = ids.get();
+        return registrationService.createRegistration(NewRegistrationDto.builder()
+                .username("user" + n)
+                .email("user" + n + "@mail.com")
+                .phone("78005553535")
+                .eventId(EVENT_ID)
+                .build(), OWNER_ID);
+    }
+
+    @Benchmark
+    public UpdatedRegistrationResponseDto updateRegistration() {
+        return registrationService.updateRegistration(update, CALLER);
+    }
+
+    @Benchmark
+    public RegistrationStatus approveRegistration() {
+        return registrationService.updateRegistrationStatus(OWNER_ID, 1L, RegistrationStatus.APPROVED, credentials,
+                CALLER);
+    }
+
+    @Benchmark
+    public RegistrationCount getRegistrationsCount() {
+        return registrationService.getRegistrationsCountByEventId(EVENT_ID);
+    }
+
+    private Registration createRegistration(Long id) {
+        return Registration.builder()
+                .id(id)
+                .username("user")
+                .email("user@mail.com")
+                .phone("78005553535")
+                .eventId(EVENT_ID)
+                .password(PASSWORD)
+                .status(RegistrationStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
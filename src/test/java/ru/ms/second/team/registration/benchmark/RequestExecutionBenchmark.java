@@ -0,0 +1,99 @@
+package ru.ms.second.team.registration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Request handling on Tomcat's default pool of 200 platform threads versus a virtual thread per request, as
+ * enabled by the {@code virtual} profile. 400 clients issue requests that block for {@code dbMillis} on the
+ * database and {@code eventServiceMillis} on the event service. Reports throughput and the latency distribution
+ * (p99 in the SampleTime results).
+ * <p>
+ * With {@code guard=synchronized} the blocking part runs inside a monitor, which pins the virtual thread to its
+ * carrier on JDK 21 and shows what a {@code synchronized} section around I/O costs in virtual mode.
+ * <p>
+ * Requests are modelled as sleeps on two executors, so only the thread model is measured: Tomcat, Feign and JDBC
+ * are not involved. The service itself is compared by running {@code LoadTest} with and without
+ * {@code spring.profiles.active=virtual}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestExecutionBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int GUARD_STRIPES = 64;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"lock", "synchronized"})
+    private String guard;
+
+    @Param({"5"})
+    private long dbMillis;
+
+    @Param({"20"})
+    private long eventServiceMillis;
+
+    private ExecutorService executor;
+    private final Object[] monitors = new Object[GUARD_STRIPES];
+    private final ReentrantLock[] locks = new ReentrantLock[GUARD_STRIPES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        for (int i = 0; i < GUARD_STRIPES; i++) {
+            monitors[i] = new Object();
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(400)
+    public void request(Blackhole blackhole) throws ExecutionException, InterruptedException {
+        blackhole.consume(executor.submit(this::handle).get());
+    }
+
+    private long handle() throws InterruptedException {
+        final int stripe = ThreadLocalRandom.current().nextInt(GUARD_STRIPES);
+        if ("synchronized".equals(guard)) {
+            synchronized (monitors[stripe]) {
+                Thread.sleep(dbMillis);
+            }
+        } else {
+            locks[stripe].lock();
+            try {
+                Thread.sleep(dbMillis);
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+        Thread.sleep(eventServiceMillis);
+        return stripe;
+    }
+}
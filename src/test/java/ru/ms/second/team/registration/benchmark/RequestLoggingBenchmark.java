@@ -0,0 +1,104 @@
+package ru.ms.second.team.registration.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.core.joran.spi.JoranException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the logging done by a create-and-list request pair, written to {@code /dev/null} by 8 request
+ * threads:
+ * <ul>
+ *     <li>{@code sync} - the previous setup: synchronous appender, both lines at INFO with personal data;</li>
+ *     <li>{@code async} - PII-masking pattern behind a bounded, non-blocking {@code AsyncAppender};</li>
+ *     <li>{@code async-sampled} - as {@code async}, keeping one of ten request lines as the prod profile does.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class RequestLoggingBenchmark {
+
+    private static final String SERVICE_LOGGER = "ru.ms.second.team.registration.service.impl.RegistrationServiceImpl";
+    private static final String CONTROLLER_LOGGER = "ru.ms.second.team.registration.controller.RegistrationController";
+
+    private static final String FILE_APPENDER = """
+            <appender name="FILE" class="ch.qos.logback.core.FileAppender">
+                <file>/dev/null</file>
+                <encoder><pattern>%d %5p [%t] %logger{39} : %s%n</pattern></encoder>
+            </appender>
+            """;
+
+    @Param({"sync", "async", "async-sampled"})
+    private String mode;
+
+    private LoggerContext context;
+    private Logger serviceLog;
+    private Logger controllerLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JoranException {
+        context = new LoggerContext();
+        final JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(new ByteArrayInputStream(configuration().getBytes(StandardCharsets.UTF_8)));
+        serviceLog = context.getLogger(SERVICE_LOGGER);
+        controllerLog = context.getLogger(CONTROLLER_LOGGER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void request() {
+        final long id = ThreadLocalRandom.current().nextLong(1_000_000);
+        serviceLog.info("RegistrationService: executing createRegistration method. Username {}, email {}, phone {}, "
+                + "eventId {}", "user" + id, "user" + id + "@mail.com", 79_000_000_000L + id, id % 100);
+        controllerLog.info("RegistrationController: GET /registrations, params page={}, size={}, eventId={}",
+                0, 10, id % 100);
+    }
+
+    private String configuration() {
+        if ("sync".equals(mode)) {
+            return "<configuration>" + FILE_APPENDER.replace("%s", "%m")
+                    + "<root level=\"INFO\"><appender-ref ref=\"FILE\"/></root></configuration>";
+        }
+        final int rate = "async-sampled".equals(mode) ? 10 : 1;
+        return """
+                <configuration>
+                    <conversionRule conversionWord="maskedMsg"
+                        class="ru.ms.second.team.registration.logging.PiiMaskingMessageConverter"/>
+                """ + FILE_APPENDER.replace("%s", "%maskedMsg") + """
+                    <appender name="ASYNC" class="ch.qos.logback.classic.AsyncAppender">
+                        <queueSize>8192</queueSize>
+                        <neverBlock>true</neverBlock>
+                        <filter class="ru.ms.second.team.registration.logging.SamplingFilter">
+                            <loggerPrefix>ru.ms.second.team.registration</loggerPrefix>
+                            <rate>%d</rate>
+                        </filter>
+                        <appender-ref ref="FILE"/>
+                    </appender>
+                    <root level="INFO"><appender-ref ref="ASYNC"/></root>
+                </configuration>
+                """.formatted(rate);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.ms.second.team.registration.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Allocation-light stand-ins for repositories and clients, so that benchmarks measure the service code and not a
+ * mocking library. Every method without an answer throws {@link UnsupportedOperationException}.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    final Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    return switch (method.getName()) {
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> type.getSimpleName() + " stub";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                }));
+    }
+}
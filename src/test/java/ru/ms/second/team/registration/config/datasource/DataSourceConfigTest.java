@@ -0,0 +1,64 @@
+package ru.ms.second.team.registration.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            .withUserConfiguration(DataSourcePropertiesConfig.class, DataSourceConfig.class);
+
+    @Test
+    @DisplayName("Separate pools are off by default")
+    void defaultProfile_shouldNotSplitPools() {
+        contextRunner.run(context -> {
+            assertNull(context.getStartupFailure());
+            assertFalse(context.containsBean("writeDataSource"));
+            assertFalse(context.containsBean("readDataSource"));
+        });
+    }
+
+    @Test
+    @DisplayName("Pools are configured from application.properties")
+    void enabled_shouldConfigurePools() {
+        contextRunner.withPropertyValues("app.bulkhead.datasource.enabled=true").run(context -> {
+            assertNull(context.getStartupFailure());
+            final HikariDataSource write = context.getBean("writeDataSource", HikariDataSource.class);
+            final HikariDataSource read = context.getBean("readDataSource", HikariDataSource.class);
+            assertEquals("write-pool", write.getPoolName());
+            assertEquals(15, write.getMaximumPoolSize());
+            assertEquals("read-pool", read.getPoolName());
+            assertEquals(10, read.getMaximumPoolSize());
+        });
+    }
+
+    @Test
+    @DisplayName("The virtual profile turns the pools on and its settings bind")
+    void virtualProfile_shouldBindPoolSettings() {
+        contextRunner.withPropertyValues("spring.profiles.active=virtual").run(context -> {
+            assertNull(context.getStartupFailure());
+            final HikariDataSource write = context.getBean("writeDataSource", HikariDataSource.class);
+            final HikariDataSource read = context.getBean("readDataSource", HikariDataSource.class);
+            assertEquals(12, write.getMaximumPoolSize());
+            assertEquals(5000, write.getConnectionTimeout());
+            assertEquals(8, read.getMaximumPoolSize());
+            assertEquals(5000, read.getConnectionTimeout());
+        });
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+}
@@ -0,0 +1,53 @@
+package ru.ms.second.team.registration.config.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RateLimitingSamplerTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Traces over the limit are dropped until the rate allows a new one")
+    void tracesOverLimit_shouldBeDroppedUntilRefilled() {
+        final Sampler sampler = new RateLimitingSampler(Sampler.alwaysOn(), 2, clock::get);
+
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(sampler));
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(sampler));
+        assertEquals(SamplingDecision.DROP, sample(sampler));
+
+        clock.addAndGet(500_000_000L);
+
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(sampler));
+        assertEquals(SamplingDecision.DROP, sample(sampler));
+    }
+
+    @Test
+    @DisplayName("Traces dropped by the delegate do not use up the limit")
+    void tracesDroppedByDelegate_shouldNotUseLimit() {
+        final Sampler dropping = new RateLimitingSampler(Sampler.alwaysOff(), 1, clock::get);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(SamplingDecision.DROP, sample(dropping));
+        }
+
+        final Sampler sampler = new RateLimitingSampler(Sampler.alwaysOn(), 1, clock::get);
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, sample(sampler));
+    }
+
+    private SamplingDecision sample(Sampler sampler) {
+        return sampler.shouldSample(Context.root(), TRACE_ID, "POST /registrations", SpanKind.SERVER,
+                Attributes.empty(), List.of()).getDecision();
+    }
+}
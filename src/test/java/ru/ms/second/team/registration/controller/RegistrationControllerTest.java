@@ -8,28 +8,54 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.ms.second.team.registration.converter.RegistrationListProtobufHttpMessageConverter;
+import ru.ms.second.team.registration.converter.RegistrationProtobufCodec;
 import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
 import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
 import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
 import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationBatchResponseDto;
 import ru.ms.second.team.registration.dto.response.RegistrationCount;
 import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
 import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
+import ru.ms.second.team.registration.exception.exceptions.AlreadyExistsException;
+import ru.ms.second.team.registration.exception.exceptions.EventFullException;
+import ru.ms.second.team.registration.exception.exceptions.NotAdmittedException;
 import ru.ms.second.team.registration.exception.exceptions.NotFoundException;
 import ru.ms.second.team.registration.exception.exceptions.PasswordIncorrectException;
+import ru.ms.second.team.registration.exception.exceptions.SubscriberLimitExceededException;
+import ru.ms.second.team.registration.exception.exceptions.TooManyPasswordAttemptsException;
 import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.model.RegistrationTicketState;
 import ru.ms.second.team.registration.service.RegistrationService;
+import ru.ms.second.team.registration.service.admission.WaitingRoom;
+import ru.ms.second.team.registration.service.stream.RegistrationCountPublisher;
+import ru.ms.second.team.registration.service.version.EventVersionRegistry;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -39,17 +65,30 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(controllers = RegistrationController.class)
+@WebMvcTest(controllers = RegistrationController.class, properties = "app.rate-limit.enabled=false")
+@Import(EventVersionRegistry.class)
 public class RegistrationControllerTest {
+    private static final String CALLER = "127.0.0.1";
+
     @Autowired
     ObjectMapper mapper;
     @Autowired
     MockMvc mvc;
     @MockBean
     RegistrationService registrationService;
+    @Autowired
+    EventVersionRegistry eventVersionRegistry;
+    @MockBean
+    RegistrationCountPublisher registrationCountPublisher;
+    @Autowired
+    RegistrationController registrationController;
+    @MockBean
+    WaitingRoom waitingRoom;
 
     private NewRegistrationDto newRegistrationDto;
     private UpdateRegistrationDto updateRegistrationDto;
@@ -84,6 +123,186 @@ public class RegistrationControllerTest {
         verify(registrationService, times(1)).createRegistration(newRegistrationDto, userId);
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("New registration with idempotency key created successfully")
+    void createRegistrationWithIdempotencyKeyOk() {
+        newRegistrationDto =
+                createNewRegistrationDto("user1", "email@mail.com", "78005553535", 1L);
+        CreatedRegistrationResponseDto createdRegistrationResponseDto = createNewRegistrationResponseDto();
+        when(registrationService.createRegistration(newRegistrationDto, userId, "key"))
+                .thenReturn(createdRegistrationResponseDto);
+        mvc.perform(post("/registrations")
+                        .content(mapper.writeValueAsString(newRegistrationDto))
+                        .header("X-User-Id", userId)
+                        .header("Idempotency-Key", "key")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.password", is(createdRegistrationResponseDto.password())));
+        verify(registrationService, times(1)).createRegistration(newRegistrationDto, userId, "key");
+        verify(registrationService, never()).createRegistration(any(), anyLong());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Creation Failed due to already registered email")
+    void createRegistrationDuplicateEmail() {
+        newRegistrationDto =
+                createNewRegistrationDto("user1", "email@mail.com", "78005553535", 1L);
+        when(registrationService.createRegistration(newRegistrationDto, userId))
+                .thenThrow(AlreadyExistsException.class);
+        mvc.perform(post("/registrations")
+                        .content(mapper.writeValueAsString(newRegistrationDto))
+                        .header("X-User-Id", userId)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        verify(registrationService, times(1)).createRegistration(newRegistrationDto, userId);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Registration request is queued when the queue is enabled")
+    void createRegistrationQueued_shouldReturn202WithTicket() {
+        newRegistrationDto =
+                createNewRegistrationDto("user1", "email@mail.com", "78005553535", 1L);
+        RegistrationTicketDto ticket = RegistrationTicketDto.builder()
+                .ticket(UUID.randomUUID())
+                .state(RegistrationTicketState.QUEUED)
+                .build();
+        when(registrationService.enqueueRegistration(newRegistrationDto, userId)).thenReturn(ticket);
+        ReflectionTestUtils.setField(registrationController, "queueEnabled", true);
+        try {
+            mvc.perform(post("/registrations")
+                            .content(mapper.writeValueAsString(newRegistrationDto))
+                            .header("X-User-Id", userId)
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string(HttpHeaders.LOCATION, "/registrations/tickets/" + ticket.ticket()))
+                    .andExpect(jsonPath("$.ticket", is(ticket.ticket().toString())))
+                    .andExpect(jsonPath("$.state", is("QUEUED")));
+        } finally {
+            ReflectionTestUtils.setField(registrationController, "queueEnabled", false);
+        }
+        verify(registrationService, never()).createRegistration(any(), anyLong());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Queued registration request keeps its idempotency key")
+    void createRegistrationQueued_withIdempotencyKey_shouldPassKey() {
+        newRegistrationDto =
+                createNewRegistrationDto("user1", "email@mail.com", "78005553535", 1L);
+        RegistrationTicketDto ticket = RegistrationTicketDto.builder()
+                .ticket(UUID.randomUUID())
+                .state(RegistrationTicketState.QUEUED)
+                .build();
+        when(registrationService.enqueueRegistration(newRegistrationDto, userId, "key-1")).thenReturn(ticket);
+        ReflectionTestUtils.setField(registrationController, "queueEnabled", true);
+        try {
+            mvc.perform(post("/registrations")
+                            .content(mapper.writeValueAsString(newRegistrationDto))
+                            .header("X-User-Id", userId)
+                            .header("Idempotency-Key", "key-1")
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.ticket", is(ticket.ticket().toString())));
+        } finally {
+            ReflectionTestUtils.setField(registrationController, "queueEnabled", false);
+        }
+        verify(registrationService, never()).enqueueRegistration(any(), anyLong());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("State of a processed registration request is returned with the credentials")
+    void findRegistrationTicket_shouldReturnTicket() {
+        RegistrationTicketDto ticket = RegistrationTicketDto.builder()
+                .ticket(UUID.randomUUID())
+                .state(RegistrationTicketState.CREATED)
+                .id(5L)
+                .password("1234")
+                .build();
+        when(registrationService.findRegistrationTicket(ticket.ticket(), userId)).thenReturn(ticket);
+
+        mvc.perform(get("/registrations/tickets/{ticket}", ticket.ticket())
+                        .header("X-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("CREATED")))
+                .andExpect(jsonPath("$.id", is(5)))
+                .andExpect(jsonPath("$.password", is("1234")));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Unknown ticket is not found")
+    void findRegistrationTicket_whenUnknown_shouldReturn404() {
+        UUID ticket = UUID.randomUUID();
+        when(registrationService.findRegistrationTicket(ticket, userId)).thenThrow(NotFoundException.class);
+
+        mvc.perform(get("/registrations/tickets/{ticket}", ticket)
+                        .header("X-User-Id", userId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Ticket is only shown to a caller that identifies as a user")
+    void findRegistrationTicket_withoutUser_shouldReturn400() {
+        mvc.perform(get("/registrations/tickets/{ticket}", UUID.randomUUID()))
+                .andExpect(status().isBadRequest());
+        verify(registrationService, never()).findRegistrationTicket(any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Registration request not admitted by the waiting room gets a position token")
+    void createRegistrationNotAdmitted_shouldReturn429WithToken() {
+        newRegistrationDto =
+                createNewRegistrationDto("user1", "email@mail.com", "78005553535", 1L);
+        doThrow(new NotAdmittedException("Position 5 in the waiting room", "token", 2))
+                .when(waitingRoom).admitOrThrow(1L, userId, "previous-token");
+
+        mvc.perform(post("/registrations")
+                        .content(mapper.writeValueAsString(newRegistrationDto))
+                        .header("X-User-Id", userId)
+                        .header(WaitingRoom.TOKEN_HEADER, "previous-token")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(header().string(WaitingRoom.TOKEN_HEADER, "token"));
+        verify(registrationService, never()).createRegistration(any(), anyLong());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Registration request for a full event is rejected")
+    void createRegistrationEventFull_shouldReturn409() {
+        newRegistrationDto =
+                createNewRegistrationDto("user1", "email@mail.com", "78005553535", 1L);
+        doThrow(new EventFullException("Registration for event id=1 is full"))
+                .when(waitingRoom).admitOrThrow(1L, userId, null);
+
+        mvc.perform(post("/registrations")
+                        .content(mapper.writeValueAsString(newRegistrationDto))
+                        .header("X-User-Id", userId)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        verify(registrationService, never()).createRegistration(any(), anyLong());
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Creation Failed due to blank username")
@@ -187,7 +406,8 @@ public class RegistrationControllerTest {
                 createUpdateRegistrationDto("user2", null, null, 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user2", "email@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -197,7 +417,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updateRegistrationDto.username())))
                 .andExpect(jsonPath("$.email", is(updatedRegistrationResponseDto.email())))
                 .andExpect(jsonPath("$.phone", is(updatedRegistrationResponseDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -208,7 +428,8 @@ public class RegistrationControllerTest {
                 createUpdateRegistrationDto(null, "mail@mail.com", null, 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user1", "mail@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -218,7 +439,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updatedRegistrationResponseDto.username())))
                 .andExpect(jsonPath("$.email", is(updateRegistrationDto.email())))
                 .andExpect(jsonPath("$.phone", is(updatedRegistrationResponseDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -229,7 +450,8 @@ public class RegistrationControllerTest {
                 createUpdateRegistrationDto(null, null, "78005553535", 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user1", "email@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -239,7 +461,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updatedRegistrationResponseDto.username())))
                 .andExpect(jsonPath("$.email", is(updatedRegistrationResponseDto.email())))
                 .andExpect(jsonPath("$.phone", is(updateRegistrationDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -250,7 +472,8 @@ public class RegistrationControllerTest {
                 createUpdateRegistrationDto("user1", "email@mail.com", null, 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user1", "email@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -260,7 +483,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updateRegistrationDto.username())))
                 .andExpect(jsonPath("$.email", is(updateRegistrationDto.email())))
                 .andExpect(jsonPath("$.phone", is(updatedRegistrationResponseDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -271,7 +494,8 @@ public class RegistrationControllerTest {
                 createUpdateRegistrationDto("user1", null, "78005553535", 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user1", "email@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -281,7 +505,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updateRegistrationDto.username())))
                 .andExpect(jsonPath("$.email", is(updatedRegistrationResponseDto.email())))
                 .andExpect(jsonPath("$.phone", is(updateRegistrationDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -292,7 +516,8 @@ public class RegistrationControllerTest {
                 null, "email@mail.com", "78005553535", 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user1", "email@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -302,7 +527,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updatedRegistrationResponseDto.username())))
                 .andExpect(jsonPath("$.email", is(updateRegistrationDto.email())))
                 .andExpect(jsonPath("$.phone", is(updateRegistrationDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -313,7 +538,8 @@ public class RegistrationControllerTest {
                 "user1", "email@mail.com", "78005553535", 1L, "1234");
         updatedRegistrationResponseDto =
                 createUpdateResponseDto("user1", "email@mail.com");
-        when(registrationService.updateRegistration(updateRegistrationDto)).thenReturn(updatedRegistrationResponseDto);
+        when(registrationService.updateRegistration(updateRegistrationDto, CALLER))
+                .thenReturn(updatedRegistrationResponseDto);
         mvc.perform(patch("/registrations")
                         .content(mapper.writeValueAsString(updateRegistrationDto))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -323,7 +549,7 @@ public class RegistrationControllerTest {
                 .andExpect(jsonPath("$.username", is(updateRegistrationDto.username())))
                 .andExpect(jsonPath("$.email", is(updateRegistrationDto.email())))
                 .andExpect(jsonPath("$.phone", is(updateRegistrationDto.phone())));
-        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto);
+        verify(registrationService, times(1)).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -338,7 +564,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).updateRegistration(updateRegistrationDto);
+        verify(registrationService, never()).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -353,7 +579,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).updateRegistration(updateRegistrationDto);
+        verify(registrationService, never()).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -368,7 +594,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).updateRegistration(updateRegistrationDto);
+        verify(registrationService, never()).updateRegistration(updateRegistrationDto, CALLER);
     }
 
     @Test
@@ -383,7 +609,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).updateRegistration(any());
+        verify(registrationService, never()).updateRegistration(any(), any());
     }
 
     @Test
@@ -398,7 +624,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).updateRegistration(any());
+        verify(registrationService, never()).updateRegistration(any(), any());
     }
 
     @Test
@@ -413,7 +639,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).updateRegistration(any());
+        verify(registrationService, never()).updateRegistration(any(), any());
     }
 
     @Test
@@ -435,6 +661,25 @@ public class RegistrationControllerTest {
         verify(registrationService, times(1)).findRegistrationById(registrationResponseDto.eventId());
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Unchanged registration is answered with 304 without querying the service")
+    void getRegistrationByIdNotModified() {
+        registrationResponseDto =
+                createResponseDto();
+        when(registrationService.findRegistrationById(1L)).thenReturn(registrationResponseDto);
+        String etag = mvc.perform(get("/registrations/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eventVersionRegistry.getETag(1L)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get("/registrations/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+        verify(registrationService, times(1)).findRegistrationById(1L);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Retrieving registration failed due to non positive event id")
@@ -448,6 +693,39 @@ public class RegistrationControllerTest {
     }
 
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Registrations retrieved by list of ids")
+    void getRegistrationsByIds() {
+        registrationResponseDto =
+                createResponseDto();
+        when(registrationService.findRegistrationsByIds(List.of(3L, 1L, 2L)))
+                .thenReturn(RegistrationBatchResponseDto.builder()
+                        .registrations(Map.of(1L, registrationResponseDto))
+                        .missingIds(List.of(3L, 2L))
+                        .build());
+        mvc.perform(get("/registrations/batch?ids=3,1,2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.registrations.1.username", is(registrationResponseDto.username())))
+                .andExpect(jsonPath("$.missingIds[0]", is(3)))
+                .andExpect(jsonPath("$.missingIds[1]", is(2)));
+        verify(registrationService, times(1)).findRegistrationsByIds(List.of(3L, 1L, 2L));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Retrieving registrations by ids failed due to too many ids")
+    void getRegistrationsByIdsTooManyIds() {
+        String ids = LongStream.rangeClosed(1, 101)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        mvc.perform(get("/registrations/batch?ids=" + ids)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(registrationService, never()).findRegistrationsByIds(any());
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Registrations for Event retrieved successfully")
@@ -469,6 +747,32 @@ public class RegistrationControllerTest {
                 .findAllRegistrationsByEventId(0, 10, registrationResponseDto.eventId());
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Registrations for Event are refetched only after the event has changed")
+    void getRegistrationsForEventNotModified() {
+        registrationResponseDto =
+                createResponseDto();
+        when(registrationService.findAllRegistrationsByEventId(0, 10, 1L))
+                .thenReturn(List.of(registrationResponseDto));
+        String etag = eventVersionRegistry.getETag(1L);
+        mvc.perform(get("/registrations?eventId=1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(registrationService, never()).findAllRegistrationsByEventId(anyInt(), anyInt(), anyLong());
+
+        eventVersionRegistry.bump(1L);
+        mvc.perform(get("/registrations?eventId=1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eventVersionRegistry.getETag(1L)))
+                .andExpect(jsonPath("$[0].eventId", is(1)));
+        verify(registrationService, times(1)).findAllRegistrationsByEventId(0, 10, 1L);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Retrieving registrations failed due to non positive event id")
@@ -516,7 +820,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
-        verify(registrationService, times(1)).deleteRegistration(registrationCredentials);
+        verify(registrationService, times(1)).deleteRegistration(registrationCredentials, CALLER);
     }
 
     @Test
@@ -530,7 +834,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).deleteRegistration(registrationCredentials);
+        verify(registrationService, never()).deleteRegistration(registrationCredentials, CALLER);
     }
 
     @Test
@@ -544,7 +848,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).deleteRegistration(registrationCredentials);
+        verify(registrationService, never()).deleteRegistration(registrationCredentials, CALLER);
     }
 
     @Test
@@ -558,7 +862,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
-        verify(registrationService, never()).deleteRegistration(registrationCredentials);
+        verify(registrationService, never()).deleteRegistration(registrationCredentials, CALLER);
     }
 
     @Test
@@ -569,7 +873,7 @@ public class RegistrationControllerTest {
         Long registrationId = 34L;
         registrationCredentials = createRegistrationCredentials(1L, "1234");
 
-        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials))
+        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials, CALLER))
                 .thenReturn(status);
 
         mvc.perform(patch("/registrations/{registrationId}/status", registrationId)
@@ -581,7 +885,7 @@ public class RegistrationControllerTest {
                 .andExpect(content().string(mapper.writeValueAsString(status)));
 
         verify(registrationService, times(1)).updateRegistrationStatus(userId, registrationId, status,
-                registrationCredentials);
+                registrationCredentials, CALLER);
     }
 
     @Test
@@ -599,7 +903,7 @@ public class RegistrationControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
 
-        verify(registrationService, never()).updateRegistrationStatus(any(), any(), any(), any());
+        verify(registrationService, never()).updateRegistrationStatus(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -611,7 +915,7 @@ public class RegistrationControllerTest {
         registrationCredentials = createRegistrationCredentials(1L, "1234");
 
 
-        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials))
+        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials, CALLER))
                 .thenThrow(NotFoundException.class);
 
         mvc.perform(patch("/registrations/{registrationId}/status", registrationId)
@@ -622,7 +926,7 @@ public class RegistrationControllerTest {
                 .andExpect(status().isNotFound());
 
         verify(registrationService, times(1)).updateRegistrationStatus(userId, registrationId,
-                status, registrationCredentials);
+                status, registrationCredentials, CALLER);
     }
 
     @Test
@@ -634,7 +938,7 @@ public class RegistrationControllerTest {
         registrationCredentials = createRegistrationCredentials(1L, "1234");
 
 
-        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials))
+        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials, CALLER))
                 .thenThrow(PasswordIncorrectException.class);
 
         mvc.perform(patch("/registrations/{registrationId}/status", registrationId)
@@ -645,7 +949,27 @@ public class RegistrationControllerTest {
                 .andExpect(status().isBadRequest());
 
         verify(registrationService, times(1)).updateRegistrationStatus(userId, registrationId,
-                status, registrationCredentials);
+                status, registrationCredentials, CALLER);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Update registration status, too many wrong passwords")
+    void updateRegistrationStatus_whenLockedOut_shouldReturn429() {
+        RegistrationStatus status = RegistrationStatus.WAITING;
+        Long registrationId = 34L;
+        registrationCredentials = createRegistrationCredentials(1L, "1234");
+
+        when(registrationService.updateRegistrationStatus(userId, registrationId, status, registrationCredentials, CALLER))
+                .thenThrow(new TooManyPasswordAttemptsException("Too many wrong passwords", 30));
+
+        mvc.perform(patch("/registrations/{registrationId}/status", registrationId)
+                        .param("newStatus", String.valueOf(status))
+                        .header("X-User-Id", userId)
+                        .content(mapper.writeValueAsString(registrationCredentials))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
     }
 
     @Test
@@ -670,6 +994,81 @@ public class RegistrationControllerTest {
         verify(registrationService, times(1)).searchRegistrations(statuses, eventId);
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Search registrations in protobuf representation")
+    void searchRegistrations_whenProtobufAccepted_shouldReturnProtobuf() {
+        List<RegistrationStatus> statuses = List.of(RegistrationStatus.WAITING);
+        Long eventId = 43L;
+        RegistrationResponseDto responseDto = createResponseDto();
+
+        when(registrationService.searchRegistrations(statuses, eventId))
+                .thenReturn(List.of(responseDto, responseDto));
+
+        byte[] body = mvc.perform(get("/registrations/search")
+                        .param("statuses", RegistrationStatus.WAITING.name())
+                        .param("eventId", String.valueOf(eventId))
+                        .accept(RegistrationListProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(RegistrationListProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(List.of(responseDto, responseDto),
+                new RegistrationProtobufCodec().read(new ByteArrayInputStream(body)));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Registrations for Event in protobuf representation")
+    void getRegistrationsForEvent_whenProtobufAccepted_shouldReturnProtobuf() {
+        registrationResponseDto = createResponseDto();
+        when(registrationService.findAllRegistrationsByEventId(0, 10, 1L))
+                .thenReturn(List.of(registrationResponseDto));
+
+        byte[] body = mvc.perform(get("/registrations?eventId=1")
+                        .accept(RegistrationListProtobufHttpMessageConverter.PROTOBUF, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(RegistrationListProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(List.of(registrationResponseDto),
+                new RegistrationProtobufCodec().read(new ByteArrayInputStream(body)));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("JSON and protobuf representations of registrations for Event have different tags")
+    void getRegistrationsForEvent_shouldTagEachRepresentation() {
+        when(registrationService.findAllRegistrationsByEventId(0, 10, 1L))
+                .thenReturn(List.of(createResponseDto()));
+
+        String jsonTag = mvc.perform(get("/registrations?eventId=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String protobufTag = mvc.perform(get("/registrations?eventId=1")
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonTag)
+                        .accept(RegistrationListProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(RegistrationListProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonTag, protobufTag);
+
+        mvc.perform(get("/registrations?eventId=1")
+                        .header(HttpHeaders.IF_NONE_MATCH, protobufTag)
+                        .accept(RegistrationListProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)));
+        mvc.perform(get("/registrations?eventId=1")
+                        .header(HttpHeaders.IF_NONE_MATCH, protobufTag)
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        verify(registrationService, times(3)).findAllRegistrationsByEventId(0, 10, 1L);
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Search registration by one status")
@@ -706,7 +1105,7 @@ public class RegistrationControllerTest {
         RegistrationStatus status = RegistrationStatus.DECLINED;
         registrationCredentials = createRegistrationCredentials(1L, "1234");
 
-        when(registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials))
+        when(registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials, CALLER))
                 .thenReturn(status);
 
         mvc.perform(patch("/registrations/{registrationId}/status/decline", registrationId)
@@ -718,7 +1117,7 @@ public class RegistrationControllerTest {
                 .andExpect(content().string(mapper.writeValueAsString(status)));
 
         verify(registrationService, times(1)).declineRegistration(userId, registrationId,
-                reason, registrationCredentials);
+                reason, registrationCredentials, CALLER);
     }
 
     @Test
@@ -729,7 +1128,7 @@ public class RegistrationControllerTest {
         Long registrationId = 34L;
         registrationCredentials = createRegistrationCredentials(1L, "1234");
 
-        when(registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials))
+        when(registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials, CALLER))
                 .thenThrow(NotFoundException.class);
 
         mvc.perform(patch("/registrations/{registrationId}/status/decline", registrationId)
@@ -740,7 +1139,7 @@ public class RegistrationControllerTest {
                 .andExpect(status().isNotFound());
 
         verify(registrationService, times(1)).declineRegistration(userId,
-                registrationId, reason, registrationCredentials);
+                registrationId, reason, registrationCredentials, CALLER);
     }
 
     @Test
@@ -751,7 +1150,7 @@ public class RegistrationControllerTest {
         Long registrationId = 34L;
         registrationCredentials = createRegistrationCredentials(1L, "1235");
 
-        when(registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials))
+        when(registrationService.declineRegistration(userId, registrationId, reason, registrationCredentials, CALLER))
                 .thenThrow(PasswordIncorrectException.class);
 
         mvc.perform(patch("/registrations/{registrationId}/status/decline", registrationId)
@@ -762,7 +1161,30 @@ public class RegistrationControllerTest {
                 .andExpect(status().isBadRequest());
 
         verify(registrationService, times(1)).declineRegistration(userId, registrationId,
-                reason, registrationCredentials);
+                reason, registrationCredentials, CALLER);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Subscribed to registrations count stream")
+    void streamRegistrationsCount() {
+        when(registrationCountPublisher.subscribe(1L)).thenReturn(new SseEmitter());
+        mvc.perform(get("/registrations/count/stream?eventId=1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+        verify(registrationCountPublisher, times(1)).subscribe(1L);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Subscription to registrations count stream rejected when subscriber limit is reached")
+    void streamRegistrationsCountLimitReached() {
+        when(registrationCountPublisher.subscribe(1L)).thenThrow(SubscriberLimitExceededException.class);
+        mvc.perform(get("/registrations/count/stream?eventId=1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
     }
 
     private NewRegistrationDto createNewRegistrationDto(String username, String email, String phone, Long eventId) {
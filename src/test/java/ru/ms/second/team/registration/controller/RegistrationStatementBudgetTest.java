@@ -0,0 +1,249 @@
+package ru.ms.second.team.registration.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.ms.second.team.registration.dto.event.EventDto;
+import ru.ms.second.team.registration.dto.event.EventRegistrationStatus;
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
+import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
+import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.statistics.SqlStatementCounter;
+import ru.ms.second.team.registration.statistics.SqlStatementCountingConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fails when an endpoint executes more statements than its budget. Budgets do not depend on the number of
+ * registrations of the event, so a statement per registration (an N+1 pattern) breaks them. Budgets of writes
+ * include the {@code pg_notify} of the event version change.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureWireMock(port = 0)
+@Import(SqlStatementCountingConfiguration.class)
+@TestPropertySource(properties = {
+        "app.event-service.url=localhost:${wiremock.server.port}",
+        "app.rate-limit.enabled=false"
+})
+public class RegistrationStatementBudgetTest {
+
+    private static final long OWNER_ID = 5L;
+    private static final int REGISTRATIONS = 10;
+    private static final AtomicLong EVENT_IDS = new AtomicLong();
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    SqlStatementCounter statements;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private long eventId;
+
+    @BeforeEach
+    void init() {
+        eventId = EVENT_IDS.incrementAndGet();
+    }
+
+    @Test
+    @DisplayName("Creating a registration stays within its statement budget")
+    void createRegistration_shouldStayWithinBudget() {
+        stubEvent(0);
+        createRegistrations(REGISTRATIONS);
+
+        statements.reset();
+        createRegistration(REGISTRATIONS);
+        statements.assertAtMost(2, "POST /registrations");
+    }
+
+    @Test
+    @DisplayName("Reading registrations stays within the statement budgets")
+    void readRegistrations_shouldStayWithinBudget() {
+        stubEvent(0);
+        final List<CreatedRegistrationResponseDto> registrations = createRegistrations(REGISTRATIONS);
+
+        statements.reset();
+        perform(MockMvcRequestBuilders.get("/registrations/{id}", registrations.get(0).id()), HttpStatus.OK);
+        statements.assertAtMost(1, "GET /registrations/{id}");
+
+        statements.reset();
+        perform(MockMvcRequestBuilders.get("/registrations")
+                .param("eventId", String.valueOf(eventId))
+                .param("size", String.valueOf(REGISTRATIONS)), HttpStatus.OK);
+        statements.assertAtMost(2, "GET /registrations");
+
+        statements.reset();
+        perform(MockMvcRequestBuilders.get("/registrations/search")
+                .param("eventId", String.valueOf(eventId))
+                .param("statuses", "PENDING", "WAITING"), HttpStatus.OK);
+        statements.assertAtMost(1, "GET /registrations/search");
+
+        statements.reset();
+        perform(MockMvcRequestBuilders.get("/registrations/count")
+                .param("eventId", String.valueOf(eventId)), HttpStatus.OK);
+        statements.assertAtMost(1, "GET /registrations/count");
+    }
+
+    @Test
+    @DisplayName("Updating a registration stays within its statement budget")
+    void updateRegistration_shouldStayWithinBudget() {
+        stubEvent(0);
+        final CreatedRegistrationResponseDto registration = createRegistrations(REGISTRATIONS).get(0);
+
+        statements.reset();
+        perform(patch("/registrations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(UpdateRegistrationDto.builder()
+                        .id(registration.id())
+                        .password(registration.password())
+                        .username("renamed")
+                        .build())), HttpStatus.OK);
+        statements.assertAtMost(3, "PATCH /registrations");
+    }
+
+    @Test
+    @DisplayName("Approving over the participant limit does not execute a statement per approved registration")
+    void approveOverLimit_shouldStayWithinBudget() {
+        stubEvent(REGISTRATIONS);
+        final List<CreatedRegistrationResponseDto> registrations = createRegistrations(REGISTRATIONS + 1);
+        for (CreatedRegistrationResponseDto registration : registrations.subList(0, REGISTRATIONS)) {
+            approve(registration);
+        }
+
+        statements.reset();
+        approve(registrations.get(REGISTRATIONS));
+        statements.assertAtMost(6, "PATCH /registrations/{registrationId}/status");
+    }
+
+    @Test
+    @DisplayName("Declining and deleting a registration stay within the statement budgets")
+    void declineAndDelete_shouldStayWithinBudget() {
+        stubEvent(0);
+        final List<CreatedRegistrationResponseDto> registrations = createRegistrations(REGISTRATIONS);
+        final CreatedRegistrationResponseDto registration = registrations.get(0);
+
+        statements.reset();
+        perform(patch("/registrations/{registrationId}/status/decline", registration.id())
+                .header("X-User-Id", OWNER_ID)
+                .param("reason", "no seats")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(credentials(registration))), HttpStatus.OK);
+        statements.assertAtMost(5, "PATCH /registrations/{registrationId}/status/decline");
+
+        statements.reset();
+        perform(delete("/registrations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(credentials(registration))), HttpStatus.NO_CONTENT);
+        statements.assertAtMost(6, "DELETE /registrations");
+    }
+
+    private void approve(CreatedRegistrationResponseDto registration) {
+        perform(patch("/registrations/{registrationId}/status", registration.id())
+                .header("X-User-Id", OWNER_ID)
+                .param("newStatus", "APPROVED")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(credentials(registration))), HttpStatus.OK);
+    }
+
+    private List<CreatedRegistrationResponseDto> createRegistrations(int count) {
+        final List<CreatedRegistrationResponseDto> registrations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            registrations.add(createRegistration(i));
+        }
+        return registrations;
+    }
+
+    @SneakyThrows
+    private CreatedRegistrationResponseDto createRegistration(int number) {
+        final String response = perform(post("/registrations")
+                .header("X-User-Id", OWNER_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(NewRegistrationDto.builder()
+                        .username("user" + number)
+                        .email("user" + number + "." + eventId + "@mail.com")
+                        .phone("7800555" + String.format("%04d", number))
+                        .eventId(eventId)
+                        .build())), HttpStatus.CREATED);
+        return objectMapper.readValue(response, CreatedRegistrationResponseDto.class);
+    }
+
+    @SneakyThrows
+    private String perform(RequestBuilder request, HttpStatus expectedStatus) {
+        return mvc.perform(request)
+                .andExpect(status().is(expectedStatus.value()))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    @SneakyThrows
+    private void stubEvent(int participantLimit) {
+        final EventDto event = EventDto.builder()
+                .id(eventId)
+                .name("event " + eventId)
+                .description("event description " + eventId)
+                .ownerId(OWNER_ID)
+                .startDateTime(LocalDateTime.now().plusDays(1))
+                .endDateTime(LocalDateTime.now().plusMonths(1))
+                .participantLimit(participantLimit)
+                .registrationStatus(EventRegistrationStatus.OPEN)
+                .build();
+        stubFor(get(urlEqualTo("/events/" + eventId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody(json(event))
+                        .withStatus(HttpStatus.OK.value())));
+        stubFor(get(urlEqualTo("/events/teams/" + eventId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("[]")
+                        .withStatus(HttpStatus.OK.value())));
+    }
+
+    private RegistrationCredentials credentials(CreatedRegistrationResponseDto registration) {
+        return new RegistrationCredentials(registration.id(), registration.password());
+    }
+
+    @SneakyThrows
+    private String json(Object value) {
+        return objectMapper.writeValueAsString(value);
+    }
+}
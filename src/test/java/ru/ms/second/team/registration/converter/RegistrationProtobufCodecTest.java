@@ -0,0 +1,99 @@
+package ru.ms.second.team.registration.converter;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.proto.Registration;
+import ru.ms.second.team.registration.proto.RegistrationList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks the hand-written codec against the message classes that protoc generates from
+ * {@code src/main/proto/registration.proto} for tests.
+ */
+public class RegistrationProtobufCodecTest {
+
+    private final RegistrationProtobufCodec codec = new RegistrationProtobufCodec();
+
+    @Test
+    @DisplayName("Encoded registrations are parsed by the schema of registration.proto")
+    void write_shouldMatchSchema() throws IOException {
+        final byte[] encoded = encode(List.of(
+                new RegistrationResponseDto("user", "user@mail.ru", "+79001234567", 42L, RegistrationStatus.WAITING),
+                new RegistrationResponseDto("other", null, "", null, null)));
+
+        final Descriptors.Descriptor listDescriptor = RegistrationList.getDescriptor();
+        final Descriptors.Descriptor descriptor = Registration.getDescriptor();
+        final DynamicMessage message = DynamicMessage.parseFrom(listDescriptor, encoded);
+        assertEquals(0, message.getUnknownFields().asMap().size());
+
+        final Descriptors.FieldDescriptor registrations = listDescriptor.findFieldByName("registrations");
+        assertEquals(2, message.getRepeatedFieldCount(registrations));
+        final DynamicMessage first = (DynamicMessage) message.getRepeatedField(registrations, 0);
+        assertEquals(0, first.getUnknownFields().asMap().size());
+        assertEquals("user", first.getField(descriptor.findFieldByName("username")));
+        assertEquals("user@mail.ru", first.getField(descriptor.findFieldByName("email")));
+        assertEquals("+79001234567", first.getField(descriptor.findFieldByName("phone")));
+        assertEquals(42L, first.getField(descriptor.findFieldByName("event_id")));
+        assertEquals("WAITING",
+                ((Descriptors.EnumValueDescriptor) first.getField(descriptor.findFieldByName("status"))).getName());
+
+        final DynamicMessage second = (DynamicMessage) message.getRepeatedField(registrations, 1);
+        assertEquals("other", second.getField(descriptor.findFieldByName("username")));
+        assertFalse(second.hasField(descriptor.findFieldByName("email")));
+        assertFalse(second.hasField(descriptor.findFieldByName("phone")));
+        assertFalse(second.hasField(descriptor.findFieldByName("event_id")));
+        assertFalse(second.hasField(descriptor.findFieldByName("status")));
+    }
+
+    @Test
+    @DisplayName("Encoding is the same as the one of the generated message classes")
+    void write_shouldEqualGeneratedEncoding() throws IOException {
+        final List<RegistrationResponseDto> registrations = List.of(
+                new RegistrationResponseDto("user", "user@mail.ru", "+79001234567", 42L, RegistrationStatus.APPROVED),
+                new RegistrationResponseDto("пользователь", "user2@mail.ru", null, 7L, RegistrationStatus.DECLINED));
+        final RegistrationList expected = RegistrationList.newBuilder()
+                .addRegistrations(Registration.newBuilder()
+                        .setUsername("user")
+                        .setEmail("user@mail.ru")
+                        .setPhone("+79001234567")
+                        .setEventId(42L)
+                        .setStatus(ru.ms.second.team.registration.proto.RegistrationStatus.APPROVED))
+                .addRegistrations(Registration.newBuilder()
+                        .setUsername("пользователь")
+                        .setEmail("user2@mail.ru")
+                        .setEventId(7L)
+                        .setStatus(ru.ms.second.team.registration.proto.RegistrationStatus.DECLINED))
+                .build();
+
+        assertArrayEquals(expected.toByteArray(), encode(registrations));
+        assertEquals(registrations, codec.read(new ByteArrayInputStream(expected.toByteArray())));
+    }
+
+    @Test
+    @DisplayName("Every status is encoded as the value of the same name in registration.proto")
+    void write_shouldMapEveryStatus() throws IOException {
+        for (RegistrationStatus status : RegistrationStatus.values()) {
+            final byte[] encoded = encode(List.of(RegistrationResponseDto.builder().status(status).build()));
+
+            assertEquals(status.name(), RegistrationList.parseFrom(encoded).getRegistrations(0).getStatus().name());
+        }
+    }
+
+    private byte[] encode(List<RegistrationResponseDto> registrations) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(registrations, output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.ms.second.team.registration.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    @DisplayName("Limit grows while latency stays at the baseline and the limit is in use")
+    void limit_shouldGrowWithStableLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 100, 1.5);
+
+        runAtFullUse(limit, FAST, 50);
+
+        assertTrue(limit.getLimit() > 20, "limit must grow, but is " + limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Limit shrinks when latency rises above the baseline, but not below the minimum")
+    void limit_shouldShrinkWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 5, 100, 1.5);
+        runAtFullUse(limit, FAST, 20);
+        int before = limit.getLimit();
+
+        runAtFullUse(limit, SLOW, 20);
+
+        assertTrue(limit.getLimit() < before, "limit must shrink from " + before + ", but is " + limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Limit does not shrink below the minimum")
+    void limit_shouldNotShrinkBelowMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(6, 5, 100, 1.0);
+        runAtFullUse(limit, FAST, 20);
+
+        runAtFullUse(limit, SLOW * 10, 200);
+
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Limit recovers once latency returns to normal after a long slow period")
+    void limit_shouldRecoverWhenLatencyReturnsToNormal() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 5, 100, 1.5);
+        runAtFullUse(limit, FAST, 50);
+        int healthy = limit.getLimit();
+        runAtFullUse(limit, SLOW, 500);
+        assertTrue(limit.getLimit() < healthy / 2, "limit must shrink from " + healthy + ", but is "
+                + limit.getLimit());
+
+        runAtFullUse(limit, FAST, 100);
+
+        assertTrue(limit.getLimit() >= healthy, "limit must grow back to " + healthy + ", but is "
+                + limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Limit does not grow while most of it is unused")
+    void limit_shouldNotGrowWhenIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 100, 1.5);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    private void runAtFullUse(AdaptiveConcurrencyLimit limit, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            while (limit.tryAcquire()) {
+                // fill up to the current limit
+            }
+            limit.release(rttNanos);
+            while (limit.getInFlight() > 0) {
+                limit.release(0);
+            }
+        }
+    }
+}
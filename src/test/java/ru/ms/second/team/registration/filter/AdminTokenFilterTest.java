@@ -0,0 +1,66 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdminTokenFilterTest {
+
+    private static final List<String> PATHS = List.of("/actuator/profiling", "/actuator/statements");
+
+    @Test
+    @DisplayName("Admin paths require the configured token, other paths do not")
+    void adminPaths_shouldRequireToken() {
+        final AdminTokenFilter filter = new AdminTokenFilter(new ObjectMapper(), PATHS, "s3cret");
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/profiling", null).getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/profiling/x.jfr", "wrong").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "/actuator/profiling", "s3cret").getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/statements", null).getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "/actuator/statements", "s3cret").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "/actuator/health", null).getStatus());
+    }
+
+    @Test
+    @DisplayName("Without a configured token admin paths are closed")
+    void noToken_shouldCloseAdminPaths() {
+        final AdminTokenFilter filter = new AdminTokenFilter(new ObjectMapper(), PATHS, "");
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/profiling", "").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "/registrations/1", null).getStatus());
+    }
+
+    @Test
+    @DisplayName("Encoded and non-normalized spellings of admin paths require the token too")
+    void nonNormalizedAdminPaths_shouldRequireToken() {
+        final AdminTokenFilter filter = new AdminTokenFilter(new ObjectMapper(), PATHS, "s3cret");
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/%70rofiling", null).getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "//actuator/profiling", null).getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator//statements", null).getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator;x=1/profiling", null).getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/health/../profiling", null).getStatus());
+        assertEquals(HttpStatus.FORBIDDEN.value(), perform(filter, "/actuator/./statements", null).getStatus());
+        assertEquals(HttpStatus.OK.value(), perform(filter, "/actuator/%70rofiling", "s3cret").getStatus());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse perform(AdminTokenFilter filter, String uri, String token) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (token != null) {
+            request.addHeader(AdminTokenFilter.TOKEN_HEADER, token);
+        }
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
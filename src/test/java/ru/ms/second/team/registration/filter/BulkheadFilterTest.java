@@ -0,0 +1,113 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.ms.second.team.registration.config.datasource.RoutingDataSource;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BulkheadFilterTest {
+
+    private BulkheadFilter filter;
+
+    @BeforeEach
+    void init() {
+        filter = new BulkheadFilter(new ObjectMapper(), true,
+                1, Duration.ZERO,
+                1, Duration.ZERO,
+                1, Duration.ZERO,
+                1, Duration.ofMillis(10));
+    }
+
+    @Test
+    @DisplayName("A full search bulkhead rejects search with 503 but lets writes through")
+    void fullSearchBulkhead_shouldNotAffectWrites() {
+        AtomicReference<MockHttpServletResponse> search = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> write = new AtomicReference<>();
+
+        perform("GET", "/registrations/search", (request, response) -> {
+            search.set(perform("GET", "/registrations/search", new MockFilterChain()));
+            write.set(perform("POST", "/registrations", new MockFilterChain()));
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), search.get().getStatus());
+        assertEquals("1", search.get().getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK.value(), write.get().getStatus());
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/registrations/search", new MockFilterChain()).getStatus(),
+                "slot must be released after the request");
+    }
+
+    @Test
+    @DisplayName("Count, other reads and writes have separate bulkheads")
+    void groups_shouldHaveSeparateBulkheads() {
+        AtomicReference<MockHttpServletResponse> count = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> read = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> write = new AtomicReference<>();
+
+        perform("GET", "/registrations/count/1", (request, response) -> {
+            read.set(perform("GET", "/registrations/1", new MockFilterChain()));
+            count.set(perform("GET", "/registrations/count/2", new MockFilterChain()));
+        });
+        perform("PATCH", "/registrations/1",
+                (request, response) -> write.set(perform("DELETE", "/registrations/1", new MockFilterChain())));
+
+        assertEquals(HttpStatus.OK.value(), read.get().getStatus());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), count.get().getStatus());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), write.get().getStatus(),
+                "second write must be rejected after waiting for max-wait");
+    }
+
+    @Test
+    @DisplayName("Reads use the read pool and writes the write pool")
+    void requests_shouldBeRoutedToPoolOfTheirGroup() {
+        AtomicReference<RoutingDataSource.Pool> readPool = new AtomicReference<>();
+        AtomicReference<RoutingDataSource.Pool> writePool = new AtomicReference<>();
+
+        perform("GET", "/registrations/search", (request, response) -> readPool.set(RoutingDataSource.current()));
+        perform("POST", "/registrations", (request, response) -> writePool.set(RoutingDataSource.current()));
+
+        assertEquals(RoutingDataSource.Pool.READ, readPool.get());
+        assertEquals(RoutingDataSource.Pool.WRITE, writePool.get());
+        assertEquals(RoutingDataSource.Pool.WRITE, RoutingDataSource.current(), "binding must be removed");
+    }
+
+    @Test
+    @DisplayName("Rejections and occupancy are published per group")
+    void metrics_shouldBePublishedPerGroup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+        AtomicReference<Double> active = new AtomicReference<>();
+
+        perform("GET", "/registrations/search", (request, response) -> {
+            active.set(registry.get("registration.bulkhead.active").tag("group", "search").gauge().value());
+            perform("GET", "/registrations/search", new MockFilterChain());
+        });
+
+        assertEquals(1.0, active.get());
+        assertEquals(1.0, registry.get("registration.bulkhead.rejected").tag("group", "search")
+                .functionCounter().count());
+        assertEquals(0.0, registry.get("registration.bulkhead.rejected").tag("group", "write")
+                .functionCounter().count());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse perform(String method, String uri, FilterChain chain) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void init() {
+        filter = new ConcurrencyLimitFilter(new ObjectMapper(), true, 1, 1.5, 0.8,
+                1, 1,
+                2, 2);
+    }
+
+    @Test
+    @DisplayName("Requests over the concurrency limit are rejected with 503 and Retry-After")
+    void requestsOverLimit_shouldReturnServiceUnavailable() {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+
+        MockHttpServletResponse outer = perform("GET", "/registrations/1",
+                (request, response) -> nested.set(perform("GET", "/registrations/2", new MockFilterChain())));
+
+        assertEquals(HttpStatus.OK.value(), outer.getStatus());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), nested.get().getStatus());
+        assertEquals("1", nested.get().getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/registrations/3", new MockFilterChain()).getStatus(),
+                "permit must be released after the request");
+    }
+
+    @Test
+    @DisplayName("Reads are shed while writes are close to their limit, writes still pass")
+    void readsUnderWritePressure_shouldBeRejected() {
+        AtomicReference<MockHttpServletResponse> read = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> write = new AtomicReference<>();
+
+        perform("POST", "/registrations", (request, response) -> perform("PATCH", "/registrations",
+                (innerRequest, innerResponse) -> {
+                    read.set(perform("GET", "/registrations/1", new MockFilterChain()));
+                    write.set(perform("DELETE", "/registrations", new MockFilterChain()));
+                }));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), read.get().getStatus());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), write.get().getStatus(),
+                "third concurrent write exceeds the write limit of 2");
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/registrations/1", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Requests outside of the registrations API are not limited")
+    void requestsOutsideApi_shouldNotBeLimited() {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+
+        perform("GET", "/registrations/1",
+                (request, response) -> nested.set(perform("GET", "/swagger-ui/index.html", new MockFilterChain())));
+
+        assertEquals(HttpStatus.OK.value(), nested.get().getStatus());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse perform(String method, String uri, FilterChain chain) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.ms.second.team.registration.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void init() {
+        filter = new RateLimitFilter(new ObjectMapper(), true, 100,
+                2, Duration.ofHours(1),
+                3, Duration.ofHours(1),
+                1, Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Search requests over the quota of a user are rejected with 429 and Retry-After")
+    void searchOverQuota_shouldReturnTooManyRequests() {
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/registrations/search", "1").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/registrations/search", "1").getStatus());
+
+        MockHttpServletResponse rejected = perform("GET", "/registrations/search", "1");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+        assertNotNull(rejected.getHeader(HttpHeaders.RETRY_AFTER), "Retry-After must be set");
+    }
+
+    @Test
+    @DisplayName("Quotas are kept separately per user and per endpoint group")
+    void quotas_shouldBeSeparatePerUserAndEndpoint() {
+        assertEquals(HttpStatus.OK.value(), perform("POST", "/registrations", "1").getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("POST", "/registrations", "1").getStatus());
+
+        assertEquals(HttpStatus.OK.value(), perform("POST", "/registrations", "2").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/registrations/1", "1").getStatus());
+    }
+
+    @Test
+    @DisplayName("Requests without X-User-Id are limited by client address")
+    void requestsWithoutUserId_shouldBeLimitedByAddress() {
+        assertEquals(HttpStatus.OK.value(), perform("PATCH", "/registrations", null).getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("PATCH", "/registrations", null).getStatus());
+    }
+
+    @Test
+    @DisplayName("Requests outside of the registrations API are not limited")
+    void requestsOutsideApi_shouldNotBeLimited() {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = perform("GET", "/swagger-ui/index.html", "1");
+            assertEquals(HttpStatus.OK.value(), response.getStatus());
+            assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        }
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse perform(String method, String uri, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (userId != null) {
+            request.addHeader("X-User-Id", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.ms.second.team.registration.filter;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.ms.second.team.registration.statistics.StatementCountingListener;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StatementCountFilterTest {
+
+    private final StatementCountingListener listener = new StatementCountingListener();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StatementCountFilter filter;
+
+    @BeforeEach
+    void init() {
+        filter = new StatementCountFilter(true, 20);
+        filter.bindTo(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Statements are aggregated per method and URI pattern")
+    void statements_shouldBeAggregatedPerEndpoint() {
+        perform("GET", "/registrations/{id}", 1);
+        perform("GET", "/registrations/{id}", 3);
+        perform("POST", "/registrations", 2);
+
+        final StatementCountFilter.EndpointStatements read = filter.getStatistics().get("GET /registrations/{id}");
+        assertEquals(2, read.requests());
+        assertEquals(4, read.statements());
+        assertEquals(2.0, read.mean());
+        assertEquals(3, read.max());
+        assertEquals(2, filter.getStatistics().get("POST /registrations").statements());
+
+        final DistributionSummary summary = meterRegistry.get("http.server.requests.statements")
+                .tag("method", "GET")
+                .tag("uri", "/registrations/{id}")
+                .summary();
+        assertEquals(2, summary.count());
+        assertEquals(4.0, summary.totalAmount());
+
+        filter.reset();
+        assertEquals(0, filter.getStatistics().size());
+    }
+
+    @Test
+    @DisplayName("Statements executed by a thread working for the request count for the request")
+    void statementsOfPropagatedContext_shouldCount() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+        try {
+            perform("PATCH", "/registrations/{registrationId}/status", (request, response) -> {
+                executeStatement();
+                execute(executor, snapshots.captureAll().wrap((Runnable) this::executeStatement));
+            });
+            execute(executor, this::executeStatement);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, filter.getStatistics().get("PATCH /registrations/{registrationId}/status").statements());
+    }
+
+    private void perform(String method, String pattern, int statements) {
+        perform(method, pattern, (request, response) -> {
+            for (int i = 0; i < statements; i++) {
+                executeStatement();
+            }
+        });
+    }
+
+    @SneakyThrows
+    private void perform(String method, String pattern, FilterChain chain) {
+        final MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+            chain.doFilter(servletRequest, servletResponse);
+        });
+    }
+
+    @SneakyThrows
+    private void execute(ExecutorService executor, Runnable task) {
+        executor.submit(task).get();
+    }
+
+    private void executeStatement() {
+        listener.afterQuery(null, List.of());
+    }
+}
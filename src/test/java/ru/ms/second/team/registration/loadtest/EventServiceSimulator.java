@@ -0,0 +1,83 @@
+package ru.ms.second.team.registration.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+import ru.ms.second.team.registration.dto.event.EventDto;
+import ru.ms.second.team.registration.dto.event.EventRegistrationStatus;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * WireMock stand-in for the event service with {@code events} open events owned by one organizer.
+ * <p>
+ * Every response is delayed according to {@code latency}: {@code none}, {@code fixed:<ms>},
+ * {@code uniform:<min ms>:<max ms>} or {@code lognormal:<median ms>:<sigma>}. Delays are served asynchronously,
+ * so slow responses do not occupy WireMock's request threads.
+ */
+class EventServiceSimulator implements AutoCloseable {
+
+    private final WireMockServer server;
+
+    EventServiceSimulator(int threads) {
+        server = new WireMockServer(options()
+                .dynamicPort()
+                .containerThreads(threads)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(threads)
+                .disableRequestJournal()
+                .notifier(new Slf4jNotifier(false)));
+    }
+
+    void start(int events, long organizerId, int participantLimit, String latency) throws IOException {
+        server.start();
+        final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        for (long eventId = 1; eventId <= events; eventId++) {
+            final EventDto event = EventDto.builder()
+                    .id(eventId)
+                    .name("event " + eventId)
+                    .description("load test event " + eventId)
+                    .createdDateTime(LocalDateTime.now().minusDays(1))
+                    .startDateTime(LocalDateTime.now().plusDays(7))
+                    .endDateTime(LocalDateTime.now().plusDays(8))
+                    .location("online")
+                    .ownerId(organizerId)
+                    .participantLimit(participantLimit)
+                    .registrationStatus(EventRegistrationStatus.OPEN)
+                    .build();
+            server.stubFor(get(urlEqualTo("/events/" + eventId))
+                    .willReturn(withLatency(okJson(objectMapper.writeValueAsString(event)), latency)));
+            server.stubFor(get(urlEqualTo("/events/teams/" + eventId))
+                    .willReturn(withLatency(okJson("[]"), latency)));
+        }
+    }
+
+    String getAddress() {
+        return "localhost:" + server.port();
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+
+    static ResponseDefinitionBuilder withLatency(ResponseDefinitionBuilder response, String latency) {
+        final String[] parts = latency.split(":");
+        return switch (parts[0]) {
+            case "none" -> response;
+            case "fixed" -> response.withFixedDelay(Integer.parseInt(parts[1]));
+            case "uniform" -> response.withUniformRandomDelay(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            case "lognormal" -> response.withLogNormalRandomDelay(Double.parseDouble(parts[1]),
+                    Double.parseDouble(parts[2]));
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + latency);
+        };
+    }
+}
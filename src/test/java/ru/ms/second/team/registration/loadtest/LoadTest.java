@@ -0,0 +1,111 @@
+package ru.ms.second.team.registration.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.ms.second.team.registration.RegistrationServiceApplication;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * End-to-end load test: boots the service against Postgres and a simulated event service, drives
+ * {@link Workload} and prints throughput, latency percentiles and error rates per operation.
+ * <p>
+ * Arguments are {@code key=value} pairs that become system properties, so both {@code loadtest.*} settings (see
+ * {@link LoadTestSettings}) and application properties such as {@code spring.profiles.active} can be given.
+ * Without {@code loadtest.jdbc-url} Postgres is started with Testcontainers.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            System.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        PostgreSQLContainer<?> postgres = null;
+        try (EventServiceSimulator eventService = new EventServiceSimulator(settings.eventServiceThreads())) {
+            if (settings.jdbcUrl() == null) {
+                postgres = new PostgreSQLContainer<>(settings.postgresImage())
+                        .withCommand("postgres", "-c", "max_connections=300");
+                postgres.start();
+                System.setProperty("spring.datasource.url", postgres.getJdbcUrl());
+                System.setProperty("spring.datasource.username", postgres.getUsername());
+                System.setProperty("spring.datasource.password", postgres.getPassword());
+            } else {
+                System.setProperty("spring.datasource.url", settings.jdbcUrl());
+                System.setProperty("spring.datasource.username", settings.jdbcUsername());
+                System.setProperty("spring.datasource.password", settings.jdbcPassword());
+            }
+            eventService.start(settings.events(), Workload.ORGANIZER_ID, settings.participantLimit(),
+                    settings.eventServiceLatency());
+            System.setProperty("app.event-service.url", eventService.getAddress());
+            System.setProperty("server.port", "0");
+            setDefault("app.rate-limit.enabled", "false");
+            setDefault("spring.jpa.show-sql", "false");
+            setDefault("logging.level.root", "WARN");
+            try (ConfigurableApplicationContext context =
+                         new SpringApplicationBuilder(RegistrationServiceApplication.class).run()) {
+                final String port = context.getEnvironment().getRequiredProperty("local.server.port");
+                run(settings, new Workload(settings, "http://localhost:" + port));
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+
+    /**
+     * Overrides an application property unless it was given as an argument.
+     */
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void run(LoadTestSettings settings, Workload workload) throws InterruptedException {
+        System.out.printf("Warming up for %s%n", format(settings.warmup()));
+        workload.start();
+        Thread.sleep(settings.warmup());
+        workload.resetStats();
+        System.out.printf("Measuring for %s%n", format(settings.duration()));
+        final long start = System.nanoTime();
+        Thread.sleep(settings.duration());
+        final List<OperationStats.Snapshot> snapshots = workload.snapshot();
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        workload.stop();
+        if (!workload.awaitIdle(settings.requestTimeout().plusSeconds(1))) {
+            System.out.println("Some requests were still in flight at shutdown");
+        }
+        report(settings, snapshots, seconds);
+    }
+
+    private static void report(LoadTestSettings settings, List<OperationStats.Snapshot> snapshots, double seconds) {
+        System.out.printf("%nEvent service latency %s, %d events, %.0f%% of traffic on event 1, %d CPUs, "
+                        + "%.1f s measured%n", settings.eventServiceLatency(), settings.events(),
+                settings.hotEventShare() * 100, Runtime.getRuntime().availableProcessors(), seconds);
+        System.out.printf("%-10s %9s %9s %8s %9s %9s %9s %9s %9s  %s%n", "operation", "requests", "req/s",
+                "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "outcomes");
+        for (OperationStats.Snapshot snapshot : snapshots) {
+            final long requests = snapshot.requests();
+            System.out.printf("%-10s %9d %9.1f %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n", snapshot.name(),
+                    requests, requests / seconds, requests == 0 ? 0.0 : 100.0 * snapshot.errors() / requests,
+                    snapshot.percentileMillis(50), snapshot.percentileMillis(90), snapshot.percentileMillis(99),
+                    snapshot.percentileMillis(99.9), snapshot.latencies().getMaxValue() / 1000.0,
+                    snapshot.outcomes());
+        }
+    }
+
+    private static String format(Duration duration) {
+        return duration.toSeconds() + " s";
+    }
+}
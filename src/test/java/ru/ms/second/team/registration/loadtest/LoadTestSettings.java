@@ -0,0 +1,59 @@
+package ru.ms.second.team.registration.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties.
+ */
+record LoadTestSettings(
+        Duration duration,
+        Duration warmup,
+        int events,
+        double hotEventShare,
+        int participantLimit,
+        double registrationRate,
+        double countRate,
+        double readRate,
+        double moderationRate,
+        double searchRate,
+        int maxInFlight,
+        Duration requestTimeout,
+        String eventServiceLatency,
+        int eventServiceThreads,
+        String jdbcUrl,
+        String jdbcUsername,
+        String jdbcPassword,
+        String postgresImage) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                duration("duration", "60s"),
+                duration("warmup", "10s"),
+                Integer.parseInt(property("events", "10")),
+                Double.parseDouble(property("hot-event-share", "0.5")),
+                Integer.parseInt(property("participant-limit", "500")),
+                Double.parseDouble(property("registration.rate", "200")),
+                Double.parseDouble(property("count.rate", "200")),
+                Double.parseDouble(property("read.rate", "50")),
+                Double.parseDouble(property("moderation.rate", "50")),
+                Double.parseDouble(property("search.rate", "10")),
+                Integer.parseInt(property("max-in-flight", "2000")),
+                duration("request-timeout", "10s"),
+                property("event-service.latency", "lognormal:20:0.5"),
+                Integer.parseInt(property("event-service.threads", "200")),
+                property("jdbc-url", null),
+                property("jdbc-username", "postgres"),
+                property("jdbc-password", "postgres"),
+                property("postgres-image", "postgres:13.7-alpine"));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(property(name, defaultValue));
+    }
+}
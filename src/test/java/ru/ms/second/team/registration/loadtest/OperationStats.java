@@ -0,0 +1,72 @@
+package ru.ms.second.team.registration.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counts of one operation. Latencies are recorded in microseconds up to one
+ * minute; outcomes are HTTP status codes or exception names. Requests that were never sent because too many were
+ * in flight count as {@code dropped} errors without a latency.
+ */
+class OperationStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String name;
+    private final Recorder latencies = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void record(long latencyNanos, String outcome, boolean error) {
+        latencies.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    void recordDropped() {
+        outcomes.computeIfAbsent("dropped", key -> new LongAdder()).increment();
+        errors.increment();
+    }
+
+    /**
+     * Drops everything recorded so far, at the end of the warm-up.
+     */
+    void reset() {
+        latencies.reset();
+        outcomes.clear();
+        errors.reset();
+    }
+
+    Snapshot snapshot() {
+        final Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return new Snapshot(name, latencies.getIntervalHistogram(), counts, errors.sum());
+    }
+
+    record Snapshot(String name, Histogram latencies, Map<String, Long> outcomes, long errors) {
+
+        long requests() {
+            return outcomes.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
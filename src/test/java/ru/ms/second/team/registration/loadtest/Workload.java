@@ -0,0 +1,244 @@
+package ru.ms.second.team.registration.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
+import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop workload of an event whose registration has just opened.
+ * <p>
+ * Operations arrive at fixed rates, independently of how fast the service answers, and latency is measured from
+ * the intended start of a request, so a stalled service shows up in the percentiles instead of silently lowering
+ * the load. Registrants sign up for the events ({@code hot-event-share} of them for event 1), poll the count and
+ * read their registration. The organizer approves or declines created registrations and searches them.
+ */
+class Workload {
+
+    static final long ORGANIZER_ID = 1L;
+
+    private static final int RECENT_REGISTRATIONS = 4096;
+    private static final int MAX_PENDING_MODERATION = 100_000;
+    private static final double APPROVE_SHARE = 0.8;
+    private static final ResponseHandler IGNORE = body -> {
+    };
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+    private final String runId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong remembered = new AtomicLong();
+    private final BlockingQueue<CreatedRegistrationResponseDto> toModerate =
+            new LinkedBlockingQueue<>(MAX_PENDING_MODERATION);
+    private final AtomicReferenceArray<CreatedRegistrationResponseDto> recent =
+            new AtomicReferenceArray<>(RECENT_REGISTRATIONS);
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private volatile boolean running;
+
+    Workload(LoadTestSettings settings, String baseUrl) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.inFlight = new Semaphore(settings.maxInFlight());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.requestTimeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        scenarios.add(new Scenario(new OperationStats("register"), settings.registrationRate(), this::register,
+                this::remember));
+        scenarios.add(new Scenario(new OperationStats("count"), settings.countRate(), this::count, IGNORE));
+        scenarios.add(new Scenario(new OperationStats("read"), settings.readRate(), this::read, IGNORE));
+        scenarios.add(new Scenario(new OperationStats("moderate"), settings.moderationRate(), this::moderate,
+                IGNORE));
+        scenarios.add(new Scenario(new OperationStats("search"), settings.searchRate(), this::search, IGNORE));
+    }
+
+    void start() {
+        running = true;
+        for (Scenario scenario : scenarios) {
+            if (scenario.rate() > 0) {
+                Thread.ofPlatform().daemon().name("load-" + scenario.stats().getName())
+                        .start(() -> generate(scenario));
+            }
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    /**
+     * Waits for the requests still in flight after {@link #stop()}, so that the service is not shut down under
+     * them. Returns {@code false} if some did not finish within {@code timeout}.
+     */
+    boolean awaitIdle(Duration timeout) throws InterruptedException {
+        if (!inFlight.tryAcquire(settings.maxInFlight(), timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        inFlight.release(settings.maxInFlight());
+        return true;
+    }
+
+    void resetStats() {
+        scenarios.forEach(scenario -> scenario.stats().reset());
+    }
+
+    List<OperationStats.Snapshot> snapshot() {
+        return scenarios.stream()
+                .filter(scenario -> scenario.rate() > 0)
+                .map(scenario -> scenario.stats().snapshot())
+                .toList();
+    }
+
+    private void generate(Scenario scenario) {
+        final long intervalNanos = (long) (1e9 / scenario.rate());
+        long intendedStart = System.nanoTime();
+        while (running) {
+            final long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.tryAcquire()) {
+                final long start = intendedStart;
+                Thread.startVirtualThread(() -> execute(scenario, start));
+            } else {
+                scenario.stats().recordDropped();
+            }
+            intendedStart += intervalNanos;
+        }
+    }
+
+    private void execute(Scenario scenario, long intendedStart) {
+        try {
+            final HttpRequest request = scenario.operation().nextRequest();
+            if (request == null) {
+                return;
+            }
+            final HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            final int status = response.statusCode();
+            scenario.stats().record(System.nanoTime() - intendedStart, String.valueOf(status), status >= 400);
+            if (status < 300) {
+                scenario.onSuccess().accept(response.body());
+            }
+        } catch (IOException e) {
+            scenario.stats().record(System.nanoTime() - intendedStart, e.getClass().getSimpleName(), true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private HttpRequest register() throws IOException {
+        final long n = sequence.incrementAndGet();
+        final NewRegistrationDto registration = NewRegistrationDto.builder()
+                .username("user" + n)
+                .email("user" + n + "." + runId + "@loadtest.local")
+                .phone(String.valueOf(70000000000L + n % 10000000000L))
+                .eventId(pickEvent())
+                .build();
+        return request("/registrations")
+                .header("X-User-Id", String.valueOf(ORGANIZER_ID + n))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(registration)))
+                .build();
+    }
+
+    private HttpRequest count() {
+        return request("/registrations/count?eventId=" + pickEvent()).GET().build();
+    }
+
+    private HttpRequest read() {
+        final long available = Math.min(remembered.get(), RECENT_REGISTRATIONS);
+        if (available == 0) {
+            return null;
+        }
+        final CreatedRegistrationResponseDto registration =
+                recent.get(ThreadLocalRandom.current().nextInt((int) available));
+        if (registration == null) {
+            return null;
+        }
+        return request("/registrations/" + registration.id()).GET().build();
+    }
+
+    private HttpRequest moderate() throws IOException {
+        final CreatedRegistrationResponseDto registration = toModerate.poll();
+        if (registration == null) {
+            return null;
+        }
+        final String path = ThreadLocalRandom.current().nextDouble() < APPROVE_SHARE
+                ? "/registrations/" + registration.id() + "/status?newStatus=APPROVED"
+                : "/registrations/" + registration.id() + "/status/decline?reason=load-test";
+        return request(path)
+                .header("X-User-Id", String.valueOf(ORGANIZER_ID))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(
+                        new RegistrationCredentials(registration.id(), registration.password()))))
+                .build();
+    }
+
+    private HttpRequest search() {
+        return request("/registrations/search?statuses=PENDING&statuses=APPROVED&eventId=" + pickEvent())
+                .GET()
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(settings.requestTimeout());
+    }
+
+    private void remember(byte[] body) throws IOException {
+        final CreatedRegistrationResponseDto registration =
+                objectMapper.readValue(body, CreatedRegistrationResponseDto.class);
+        if (registration.id() == null) {
+            return;
+        }
+        recent.set((int) (remembered.getAndIncrement() % RECENT_REGISTRATIONS), registration);
+        toModerate.offer(registration);
+    }
+
+    private long pickEvent() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (settings.events() == 1 || random.nextDouble() < settings.hotEventShare()) {
+            return 1L;
+        }
+        return 2L + random.nextInt(settings.events() - 1);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        /**
+         * Returns the next request, or {@code null} when there is nothing to do yet.
+         */
+        HttpRequest nextRequest() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler {
+        void accept(byte[] body) throws IOException;
+    }
+
+    private record Scenario(OperationStats stats, double rate, Operation operation, ResponseHandler onSuccess) {
+    }
+}
@@ -0,0 +1,34 @@
+package ru.ms.second.team.registration.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PiiMaskingMessageConverterTest {
+
+    @Test
+    @DisplayName("E-mails and phone numbers in a message are masked")
+    void mask_shouldMaskEmailAndPhone() {
+        assertEquals("Username u***@mail.com, phone ***67, eventId 1",
+                PiiMaskingMessageConverter.mask("Username user@mail.com, phone 79001234567, eventId 1"));
+    }
+
+    @Test
+    @DisplayName("Values of username, email, phone and password fields are masked")
+    void mask_shouldMaskSensitiveFields() {
+        assertEquals("UpdateRegistrationDto[id=5, username=***, email=***, phone=***, password=***]",
+                PiiMaskingMessageConverter.mask("UpdateRegistrationDto[id=5, username=user, email=user@mail.com, "
+                        + "phone=79001234567, password=1234]"));
+        assertEquals("Password=*** for registrationId=5 is not correct",
+                PiiMaskingMessageConverter.mask("Password=1234 for registrationId=5 is not correct"));
+    }
+
+    @Test
+    @DisplayName("Messages without personal data are left as they are")
+    void mask_shouldKeepMessagesWithoutPii() {
+        String message = "RegistrationController: GET /registrations, params page=0, size=10, eventId=1234567";
+
+        assertEquals(message, PiiMaskingMessageConverter.mask(message));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ms.second.team.registration.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SamplingFilterTest {
+
+    private static final String SERVICE_LOGGER = "ru.ms.second.team.registration.service.RegistrationServiceImpl";
+
+    private SamplingFilter filter;
+
+    @BeforeEach
+    void init() {
+        filter = new SamplingFilter();
+        filter.addLoggerPrefix("ru.ms.second.team.registration.service");
+        filter.setRate(10);
+    }
+
+    @Test
+    @DisplayName("One of every rate events of a template passes")
+    void decide_shouldSampleEventsOfTemplate() {
+        int passed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.decide(event(SERVICE_LOGGER, Level.INFO, "Found '{}' registrations")) == FilterReply.NEUTRAL) {
+                passed++;
+            }
+        }
+
+        assertEquals(10, passed);
+    }
+
+    @Test
+    @DisplayName("A chatty template does not crowd out the events of a rare one")
+    void decide_shouldCountTemplatesSeparately() {
+        for (int i = 0; i < 95; i++) {
+            filter.decide(event(SERVICE_LOGGER, Level.INFO, "Found '{}' registrations"));
+        }
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(SERVICE_LOGGER, Level.INFO, "Registration {} declined")));
+    }
+
+    @Test
+    @DisplayName("Templates beyond the limit share one counter")
+    void decide_whenTooManyTemplates_shouldShareCounter() {
+        filter.setMaxTemplates(1);
+        filter.decide(event(SERVICE_LOGGER, Level.INFO, "Found '{}' registrations"));
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(event(SERVICE_LOGGER, Level.INFO, "Registration 1 declined")));
+        assertEquals(FilterReply.DENY, filter.decide(event(SERVICE_LOGGER, Level.INFO, "Registration 2 declined")));
+    }
+
+    @Test
+    @DisplayName("Warnings and events of other loggers always pass")
+    void decide_shouldPassWarningsAndOtherLoggers() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(event(SERVICE_LOGGER, Level.WARN, "Slow query")));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(event("org.hibernate.SQL", Level.INFO, "select")));
+        }
+    }
+
+    private static LoggingEvent event(String loggerName, Level level, String message) {
+        final LoggingEvent event = new LoggingEvent();
+        event.setLoggerName(loggerName);
+        event.setLevel(level);
+        event.setMessage(message);
+        return event;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.ms.second.team.registration.profiling;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightRecorderProfilerTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecorderProfiler profiler;
+
+    @AfterEach
+    void shutdown() {
+        profiler.shutdown();
+    }
+
+    @Test
+    @DisplayName("A recording is written after its duration and only one recording runs at a time")
+    void record_shouldWriteRecordingAndRejectConcurrentOne() throws Exception {
+        profiler = new FlightRecorderProfiler(directory, Duration.ofMinutes(1), DataSize.ofMegabytes(10), 10);
+
+        final FlightRecorderProfiler.StartedRecording recording = profiler
+                .record("profile", Duration.ofMillis(200), "manual")
+                .orElseThrow();
+        assertTrue(profiler.isRecording());
+        assertTrue(profiler.record("default", Duration.ofMillis(200), "manual").isEmpty());
+        assertTrue(profiler.findRecording(recording.name()).isEmpty(), "a recording is not listed before it is written");
+        assertTrue(profiler.findRecordings().isEmpty());
+
+        final Path file = recording.file().get(10, TimeUnit.SECONDS);
+        assertEquals(directory.resolve(recording.name()), file);
+        assertFalse(RecordingFile.readAllEvents(file).isEmpty());
+        assertEquals(Optional.of(file), profiler.findRecording(file.getFileName().toString()));
+        assertEquals(1, profiler.findRecordings().size());
+    }
+
+    @Test
+    @DisplayName("Only the most recent recordings are kept")
+    void record_shouldKeepRetainedRecordingsOnly() throws Exception {
+        profiler = new FlightRecorderProfiler(directory, Duration.ofMinutes(1), DataSize.ofMegabytes(10), 1);
+
+        profiler.record("default", Duration.ofMillis(50), "first").orElseThrow().file().get(10, TimeUnit.SECONDS);
+        Thread.sleep(10);
+        final Path last = profiler.record("default", Duration.ofMillis(50), "second").orElseThrow()
+                .file().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, profiler.findRecordings().size());
+        assertEquals(last.getFileName().toString(), profiler.findRecordings().get(0).name());
+    }
+
+    @Test
+    @DisplayName("Unknown profiles, too long durations and file names outside the directory are rejected")
+    void invalidArguments_shouldBeRejected() {
+        profiler = new FlightRecorderProfiler(directory, Duration.ofMinutes(1), DataSize.ofMegabytes(10), 10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> profiler.record("/etc/custom.jfc", Duration.ofSeconds(1), "manual"));
+        assertThrows(IllegalArgumentException.class,
+                () -> profiler.record("profile", Duration.ofMinutes(2), "manual"));
+        assertThrows(IllegalArgumentException.class,
+                () -> profiler.record("profile", Duration.ZERO, "manual"));
+        assertFalse(profiler.isRecording());
+        assertTrue(profiler.findRecording("../secret.jfr").isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package ru.ms.second.team.registration.profiling;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import io.prometheus.metrics.model.registry.PrometheusRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LatencyProfilingTriggerTest {
+
+    private static final Duration RECORDING = Duration.ofSeconds(60);
+
+    @Mock
+    private FlightRecorderProfiler profiler;
+
+    private final MockClock clock = new MockClock();
+    private final PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT,
+            new PrometheusRegistry(), clock);
+
+    private LatencyProfilingTrigger trigger;
+
+    @BeforeEach
+    void init() {
+        trigger = new LatencyProfilingTrigger(meterRegistry, profiler, true, Duration.ofSeconds(1), 10, "profile",
+                RECORDING, Duration.ofMinutes(15));
+    }
+
+    @Test
+    @DisplayName("A slow interval of an endpoint starts a recording once per cooldown")
+    void slowInterval_shouldStartRecordingOncePerCooldown() {
+        when(profiler.record("profile", RECORDING, LatencyProfilingTrigger.REASON))
+                .thenReturn(Optional.of(new FlightRecorderProfiler.StartedRecording("x.jfr", new CompletableFuture<>())));
+        final Timer timer = requests("/registrations/{id}");
+
+        record(timer, 100, Duration.ofMillis(20));
+        trigger.check();
+        record(timer, 100, Duration.ofMillis(20));
+        trigger.check();
+        verify(profiler, never()).record(anyString(), any(), anyString());
+
+        record(timer, 95, Duration.ofMillis(20));
+        record(timer, 5, Duration.ofSeconds(3));
+        trigger.check();
+        verify(profiler, times(1)).record("profile", RECORDING, LatencyProfilingTrigger.REASON);
+
+        record(timer, 100, Duration.ofSeconds(3));
+        trigger.check();
+        verify(profiler, times(1)).record("profile", RECORDING, LatencyProfilingTrigger.REASON);
+
+        clock.add(Duration.ofMinutes(16));
+        trigger.check();
+        record(timer, 100, Duration.ofSeconds(3));
+        trigger.check();
+        verify(profiler, times(2)).record("profile", RECORDING, LatencyProfilingTrigger.REASON);
+    }
+
+    @Test
+    @DisplayName("Actuator endpoints and endpoints with few requests do not start a recording")
+    void actuatorAndRareEndpoints_shouldNotStartRecording() {
+        final Timer actuator = requests("/actuator/profiling");
+        final Timer rare = requests("/registrations/search");
+        trigger.check();
+
+        record(actuator, 100, Duration.ofSeconds(30));
+        record(rare, 9, Duration.ofSeconds(3));
+        trigger.check();
+
+        verify(profiler, never()).record(anyString(), any(), anyString());
+    }
+
+    private Timer requests(String uri) {
+        return Timer.builder(LatencyProfilingTrigger.REQUESTS_METER)
+                .tag("method", "GET")
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private void record(Timer timer, int requests, Duration latency) {
+        for (int i = 0; i < requests; i++) {
+            timer.record(latency);
+        }
+    }
+}
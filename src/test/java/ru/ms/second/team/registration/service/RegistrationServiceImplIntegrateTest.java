@@ -25,26 +25,37 @@ import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
 import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
 import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
 import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationBatchResponseDto;
 import ru.ms.second.team.registration.dto.response.RegistrationCount;
 import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
 import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
 import ru.ms.second.team.registration.exception.exceptions.NotAuthorizedException;
 import ru.ms.second.team.registration.exception.exceptions.NotFoundException;
 import ru.ms.second.team.registration.exception.exceptions.PasswordIncorrectException;
+import ru.ms.second.team.registration.model.QueuedRegistration;
+import ru.ms.second.team.registration.model.Registration;
 import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.model.RegistrationTicketState;
+import ru.ms.second.team.registration.repository.jdbc.RegistrationQueueRepository;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
 import ru.ms.second.team.registration.service.impl.RegistrationServiceImpl;
+import ru.ms.second.team.registration.service.queue.RegistrationQueueWorker;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static ru.ms.second.team.registration.model.RegistrationStatus.APPROVED;
 import static ru.ms.second.team.registration.model.RegistrationStatus.DECLINED;
 import static ru.ms.second.team.registration.model.RegistrationStatus.PENDING;
@@ -59,6 +70,8 @@ import static ru.ms.second.team.registration.model.RegistrationStatus.WAITING;
 })
 public class RegistrationServiceImplIntegrateTest {
 
+    private static final String CALLER = "127.0.0.1";
+
     @Container
     @ServiceConnection
     static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
@@ -66,6 +79,15 @@ public class RegistrationServiceImplIntegrateTest {
     @Autowired
     RegistrationServiceImpl registrationService;
 
+    @Autowired
+    RegistrationQueueRepository registrationQueueRepository;
+
+    @Autowired
+    RegistrationQueueWorker registrationQueueWorker;
+
+    @Autowired
+    JpaRegistrationRepository registrationRepository;
+
     private Long userId;
 
     private ObjectMapper objectMapper;
@@ -171,7 +193,7 @@ public class RegistrationServiceImplIntegrateTest {
         UpdateRegistrationDto updateUsername = createUpdateRegistrationDto(
                 "user2", null, null, registration.id(), registration.password());
 
-        UpdatedRegistrationResponseDto usernameUpdated = registrationService.updateRegistration(updateUsername);
+        UpdatedRegistrationResponseDto usernameUpdated = registrationService.updateRegistration(updateUsername, CALLER);
 
         assertEquals(updateUsername.username(), usernameUpdated.username(), "usernames must be th same");
         assertEquals(registrationDto.email(), usernameUpdated.email(), "emails must be the same");
@@ -197,7 +219,7 @@ public class RegistrationServiceImplIntegrateTest {
         UpdateRegistrationDto updateEmail = createUpdateRegistrationDto(
                 null, "mail@gmail.com", null, registration.id(), registration.password());
 
-        UpdatedRegistrationResponseDto emailUpdated = registrationService.updateRegistration(updateEmail);
+        UpdatedRegistrationResponseDto emailUpdated = registrationService.updateRegistration(updateEmail, CALLER);
 
         assertEquals(registrationDto.username(), emailUpdated.username(), "usernames must be the same");
         assertEquals(updateEmail.email(), emailUpdated.email(), "emails must be the same");
@@ -223,7 +245,7 @@ public class RegistrationServiceImplIntegrateTest {
         UpdateRegistrationDto updatePhone = createUpdateRegistrationDto(
                 null, null, "78887776655", registration.id(), registration.password());
 
-        UpdatedRegistrationResponseDto phoneUpdated = registrationService.updateRegistration(updatePhone);
+        UpdatedRegistrationResponseDto phoneUpdated = registrationService.updateRegistration(updatePhone, CALLER);
 
         assertEquals(registrationDto.username(), phoneUpdated.username(), "usernames must be the same");
         assertEquals(registrationDto.email(), phoneUpdated.email(), "emails must be the same");
@@ -249,7 +271,7 @@ public class RegistrationServiceImplIntegrateTest {
         UpdateRegistrationDto failPasswordUpdate = createUpdateRegistrationDto(
                 "this gonna fail", null, null, registration.id(), "fake");
 
-        assertThrows(PasswordIncorrectException.class, () -> registrationService.updateRegistration(failPasswordUpdate));
+        assertThrows(PasswordIncorrectException.class, () -> registrationService.updateRegistration(failPasswordUpdate, CALLER));
     }
 
     @Test
@@ -270,7 +292,7 @@ public class RegistrationServiceImplIntegrateTest {
         UpdateRegistrationDto notFoundObject = createUpdateRegistrationDto(
                 "this gonna fail", null, null, registration.id() + 1, registration.password());
 
-        assertThrows(NotFoundException.class, () -> registrationService.updateRegistration(notFoundObject));
+        assertThrows(NotFoundException.class, () -> registrationService.updateRegistration(notFoundObject, CALLER));
     }
 
     @Test
@@ -302,6 +324,89 @@ public class RegistrationServiceImplIntegrateTest {
                 "must throw not found exception if object not found");
     }
 
+    @Test
+    @SneakyThrows
+    void findRegistrationsByIds_shouldKeepRequestedOrderAndReportMissingIds() {
+        NewRegistrationDto registrationDto =
+                createNewRegistrationDto("user1", "mail@mail.com", "78005553535", 1L);
+        EventDto eventDto = createEvent(userId, 0, EventRegistrationStatus.OPEN);
+
+        stubFor(get(urlEqualTo("/events/" + registrationDto.eventId()))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(eventDto))
+                        .withStatus(HttpStatus.OK.value())));
+        CreatedRegistrationResponseDto registration = registrationService.createRegistration(registrationDto, 1L);
+
+        NewRegistrationDto registrationDto2 =
+                createNewRegistrationDto("user2", "mail2@mail.com", "78885553535", 1L);
+        CreatedRegistrationResponseDto registration2 = registrationService.createRegistration(registrationDto2, 1L);
+        Long missingId = registration2.id() + 1;
+
+        RegistrationBatchResponseDto result = registrationService.findRegistrationsByIds(
+                List.of(registration2.id(), missingId, registration.id()));
+
+        assertEquals(List.of(registration2.id(), registration.id()), List.copyOf(result.registrations().keySet()),
+                "Both existing registrations must be found in requested order");
+        assertEquals(registrationDto2.username(), result.registrations().get(registration2.id()).username());
+        assertEquals(registrationDto.username(), result.registrations().get(registration.id()).username());
+        assertEquals(List.of(missingId), result.missingIds(), "Missing id must be reported");
+    }
+
+    @Test
+    @SneakyThrows
+    void enqueueRegistration_shouldBeCreatedByWorker() {
+        NewRegistrationDto registrationDto =
+                createNewRegistrationDto("user1", "mail@mail.com", "78005553535", 1L);
+        EventDto eventDto = createEvent(userId, 0, EventRegistrationStatus.OPEN);
+
+        stubFor(get(urlEqualTo("/events/" + registrationDto.eventId()))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(eventDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        RegistrationTicketDto ticket = registrationService.enqueueRegistration(registrationDto, 1L, "key-1");
+        assertEquals(RegistrationTicketState.QUEUED,
+                registrationService.findRegistrationTicket(ticket.ticket(), 1L).state());
+        assertEquals(ticket.ticket(), registrationService.enqueueRegistration(registrationDto, 1L, "key-1").ticket(),
+                "Repeated request must get the same ticket");
+        assertThrows(NotFoundException.class, () -> registrationService.findRegistrationTicket(ticket.ticket(), 2L),
+                "Ticket must not be shown to another user");
+
+        List<QueuedRegistration> batch = registrationQueueRepository.claimBatch(10);
+        assertEquals(1, batch.size(), "Queued request must be claimed");
+        assertEquals(registrationDto, batch.get(0).registration());
+        assertEquals(0, registrationQueueRepository.claimBatch(10).size(), "Claimed request can't be claimed again");
+
+        registrationQueueWorker.process(batch.get(0));
+
+        RegistrationTicketDto processed = registrationService.findRegistrationTicket(ticket.ticket(), 1L);
+        assertEquals(RegistrationTicketState.CREATED, processed.state());
+        assertEquals(registrationDto.email(), registrationService.findRegistrationById(processed.id()).email());
+        assertEquals(4, processed.password().length());
+        assertEquals(processed, registrationService.enqueueRegistration(registrationDto, 1L, "key-1"),
+                "Request repeated after it was processed must get the created registration");
+    }
+
+    @Test
+    void insertAllIfAbsent_shouldInsertNewRegistrationsInOneStatement() {
+        Registration existing = createBatchRegistration("user1", "mail@mail.com");
+        registrationRepository.insertIfAbsent(existing);
+
+        List<Optional<Registration>> result = registrationRepository.insertAllIfAbsent(List.of(
+                createBatchRegistration("user2", "second@mail.com"),
+                createBatchRegistration("user1", "mail@mail.com"),
+                createBatchRegistration("user3", "third@mail.com")));
+
+        assertTrue(result.get(0).isPresent(), "New registration must be inserted");
+        assertTrue(result.get(1).isEmpty(), "Existing registration must not be inserted again");
+        assertTrue(result.get(2).isPresent(), "New registration must be inserted");
+        assertNotNull(result.get(0).get().getId(), "id can't be null");
+        assertNotEquals(result.get(0).get().getId(), result.get(2).get().getId(), "ids must be different");
+        assertEquals("user3", registrationService.findRegistrationById(result.get(2).get().getId()).username());
+    }
+
     @Test
     void findRegistrationsByEventIdSuccessWhenEmpty() {
         List<RegistrationResponseDto> emptyList =
@@ -379,7 +484,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationCredentials registrationNotExistDeleteDto =
                 createRegistrationCredentials(registration.id() + 1, registration.password());
 
-        assertThrows(NotFoundException.class, () -> registrationService.deleteRegistration(registrationNotExistDeleteDto));
+        assertThrows(NotFoundException.class, () -> registrationService.deleteRegistration(registrationNotExistDeleteDto, CALLER));
     }
 
     @Test
@@ -400,7 +505,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationCredentials wrongPasswordDeleteDto =
                 createRegistrationCredentials(registration.id(), "fail");
 
-        assertThrows(PasswordIncorrectException.class, () -> registrationService.deleteRegistration(wrongPasswordDeleteDto));
+        assertThrows(PasswordIncorrectException.class, () -> registrationService.deleteRegistration(wrongPasswordDeleteDto, CALLER));
     }
 
     @Test
@@ -421,7 +526,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationCredentials deleteDto =
                 createRegistrationCredentials(registration.id(), registration.password());
 
-        registrationService.deleteRegistration(deleteDto);
+        registrationService.deleteRegistration(deleteDto, CALLER);
 
         assertThrows(NotFoundException.class, () -> registrationService.findRegistrationById(registration.id()));
     }
@@ -459,7 +564,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationStatus newStatus = APPROVED;
 
         RegistrationStatus updatedStatus = registrationService.updateRegistrationStatus(userId, createdRegistration.id(),
-                newStatus, credentials);
+                newStatus, credentials, CALLER);
 
         assertEquals(newStatus, updatedStatus);
     }
@@ -491,7 +596,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         RegistrationStatus updatedStatus = registrationService.updateRegistrationStatus(userId, createdRegistration.id(),
-                newStatus, credentials);
+                newStatus, credentials, CALLER);
 
         assertEquals(newStatus, updatedStatus);
     }
@@ -525,7 +630,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         RegistrationStatus updatedStatus = registrationService.updateRegistrationStatus(userId, createdRegistration.id(),
-                newStatus, credentials);
+                newStatus, credentials, CALLER);
 
         assertEquals(newStatus, updatedStatus);
     }
@@ -558,7 +663,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.updateRegistrationStatus(userId, createdRegistration.id(),
-                        newStatus, credentials));
+                        newStatus, credentials, CALLER));
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
                 userId, registrationDto.eventId()), ex.getMessage());
@@ -594,7 +699,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.updateRegistrationStatus(userId, createdRegistration.id(),
-                        newStatus, credentials));
+                        newStatus, credentials, CALLER));
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
                 userId, registrationDto.eventId()), ex.getMessage());
@@ -627,7 +732,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.updateRegistrationStatus(userId, createdRegistration.id(),
-                        newStatus, credentials));
+                        newStatus, credentials, CALLER));
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
                 userId, registrationDto.eventId()), ex.getMessage());
@@ -651,7 +756,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationCredentials credentials = createRegistrationCredentials(createdRegistration.id(), createdRegistration.password());
 
         RegistrationStatus approved = APPROVED;
-        registrationService.updateRegistrationStatus(userId, createdRegistration.id(), approved, credentials);
+        registrationService.updateRegistrationStatus(userId, createdRegistration.id(), approved, credentials, CALLER);
 
         NewRegistrationDto registrationDto2 =
                 createNewRegistrationDto("user2", "mail2@mail.com", "78005553535", 1L);
@@ -666,7 +771,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, createdRegistration2.id(),
-                approved, credentials2);
+                approved, credentials2, CALLER);
 
         assertEquals(WAITING, result);
     }
@@ -689,7 +794,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationCredentials credentials = createRegistrationCredentials(createdRegistration.id(), createdRegistration.password());
 
         RegistrationStatus approved = APPROVED;
-        registrationService.updateRegistrationStatus(userId, createdRegistration.id(), approved, credentials);
+        registrationService.updateRegistrationStatus(userId, createdRegistration.id(), approved, credentials, CALLER);
 
         NewRegistrationDto registrationDto2 =
                 createNewRegistrationDto("user2", "mail2@mail.com", "78005553535", 1L);
@@ -697,7 +802,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationCredentials credentials2 = createRegistrationCredentials(createdRegistration2.id(),
                 createdRegistration2.password());
         registrationService.updateRegistrationStatus(userId, createdRegistration2.id(),
-                approved, credentials2);
+                approved, credentials2, CALLER);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto.eventId()))
                 .willReturn(aResponse()
@@ -706,7 +811,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         NewRegistrationDto registrationDto3 =
-                createNewRegistrationDto("user3", "mail2@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user3", "mail3@mail.com", "78005553535", 1L);
         CreatedRegistrationResponseDto createdRegistration3 = registrationService.createRegistration(registrationDto3, 1L);
         RegistrationCredentials credentials3 = createRegistrationCredentials(createdRegistration3.id(),
                 createdRegistration3.password());
@@ -718,7 +823,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, createdRegistration3.id(),
-                approved, credentials3);
+                approved, credentials3, CALLER);
 
         assertEquals(WAITING, result);
         assertEquals(WAITING, registrationService.findRegistrationById(createdRegistration2.id()).status());
@@ -750,7 +855,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotFoundException ex = assertThrows(NotFoundException.class,
                 () -> registrationService.updateRegistrationStatus(userId, createdRegistration.id(), newStatus,
-                        credentials));
+                        credentials, CALLER));
 
         assertEquals("Event was not found", ex.getLocalizedMessage());
     }
@@ -775,7 +880,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationStatus newStatus = APPROVED;
 
         PasswordIncorrectException ex = assertThrows(PasswordIncorrectException.class,
-                () -> registrationService.updateRegistrationStatus(userId, createdRegistration.id(), newStatus, credentials));
+                () -> registrationService.updateRegistrationStatus(userId, createdRegistration.id(), newStatus, credentials, CALLER));
 
         assertEquals("Password=" + incorrectPassword + " for registrationId=" +
                 createdRegistration.id() + " is not correct", ex.getLocalizedMessage());
@@ -801,7 +906,7 @@ public class RegistrationServiceImplIntegrateTest {
         RegistrationStatus newStatus = APPROVED;
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> registrationService.updateRegistrationStatus(userId, unknownId, newStatus, credentials));
+                () -> registrationService.updateRegistrationStatus(userId, unknownId, newStatus, credentials, CALLER));
 
         assertEquals("Registration with id=" + unknownId + " was not found", ex.getLocalizedMessage());
     }
@@ -824,7 +929,7 @@ public class RegistrationServiceImplIntegrateTest {
         String reason = "reason";
 
         RegistrationStatus updatedStatus = registrationService.declineRegistration(userId, createdRegistration.id(),
-                reason, credentials);
+                reason, credentials, CALLER);
 
         assertEquals(DECLINED, updatedStatus);
     }
@@ -856,7 +961,7 @@ public class RegistrationServiceImplIntegrateTest {
         String reason = "reason";
 
         RegistrationStatus updatedStatus = registrationService.declineRegistration(userId, createdRegistration.id(),
-                reason, credentials);
+                reason, credentials, CALLER);
 
         assertEquals(DECLINED, updatedStatus);
     }
@@ -890,7 +995,7 @@ public class RegistrationServiceImplIntegrateTest {
         String reason = "reason";
 
         RegistrationStatus updatedStatus = registrationService.declineRegistration(userId, createdRegistration.id(),
-                reason, credentials);
+                reason, credentials, CALLER);
 
         assertEquals(DECLINED, updatedStatus);
     }
@@ -923,7 +1028,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.declineRegistration(userId, createdRegistration.id(),
-                        reason, credentials));
+                        reason, credentials, CALLER));
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
                 userId, registrationDto.eventId()), ex.getMessage());
@@ -956,7 +1061,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.declineRegistration(userId, createdRegistration.id(),
-                        reason, credentials));
+                        reason, credentials, CALLER));
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
                 userId, registrationDto.eventId()), ex.getMessage());
@@ -992,7 +1097,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.declineRegistration(userId, createdRegistration.id(),
-                        reason, credentials));
+                        reason, credentials, CALLER));
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
                 userId, registrationDto.eventId()), ex.getMessage());
@@ -1017,7 +1122,7 @@ public class RegistrationServiceImplIntegrateTest {
         String reason = "reason";
 
         PasswordIncorrectException ex = assertThrows(PasswordIncorrectException.class,
-                () -> registrationService.declineRegistration(userId, createdRegistration.id(), reason, credentials));
+                () -> registrationService.declineRegistration(userId, createdRegistration.id(), reason, credentials, CALLER));
 
         assertEquals("Password=" + incorrectPassword + " for registrationId=" +
                 createdRegistration.id() + " is not correct", ex.getLocalizedMessage());
@@ -1043,7 +1148,7 @@ public class RegistrationServiceImplIntegrateTest {
 
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> registrationService.declineRegistration(userId, unknownId, reason, credentials));
+                () -> registrationService.declineRegistration(userId, unknownId, reason, credentials, CALLER));
 
         assertEquals("Registration with id=" + unknownId + " was not found", ex.getLocalizedMessage());
     }
@@ -1054,9 +1159,9 @@ public class RegistrationServiceImplIntegrateTest {
         NewRegistrationDto registrationDto1 =
                 createNewRegistrationDto("user1", "mail@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto2 =
-                createNewRegistrationDto("user2", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user2", "mail2@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto3 =
-                createNewRegistrationDto("user3", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user3", "mail3@mail.com", "78005553535", 1L);
         EventDto eventDto = createEvent(userId, 0, EventRegistrationStatus.OPEN);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto1.eventId()))
@@ -1070,7 +1175,7 @@ public class RegistrationServiceImplIntegrateTest {
         CreatedRegistrationResponseDto createdRegistration3 = registrationService.createRegistration(registrationDto3, 1L);
 
         registrationService.updateRegistrationStatus(userId, createdRegistration2.id(), APPROVED,
-                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()));
+                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()), CALLER);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto2.eventId()))
                 .willReturn(aResponse()
@@ -1079,7 +1184,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         registrationService.updateRegistrationStatus(userId, createdRegistration3.id(), WAITING,
-                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()));
+                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()), CALLER);
 
         List<RegistrationResponseDto> result = registrationService
                 .searchRegistrations(List.of(PENDING, WAITING), registrationDto1.eventId());
@@ -1095,9 +1200,9 @@ public class RegistrationServiceImplIntegrateTest {
         NewRegistrationDto registrationDto1 =
                 createNewRegistrationDto("user1", "mail@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto2 =
-                createNewRegistrationDto("user2", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user2", "mail2@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto3 =
-                createNewRegistrationDto("user3", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user3", "mail3@mail.com", "78005553535", 1L);
         EventDto eventDto = createEvent(userId, 0, EventRegistrationStatus.OPEN);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto2.eventId()))
@@ -1111,7 +1216,7 @@ public class RegistrationServiceImplIntegrateTest {
         CreatedRegistrationResponseDto createdRegistration3 = registrationService.createRegistration(registrationDto3, 1L);
 
         registrationService.updateRegistrationStatus(userId, createdRegistration2.id(), APPROVED,
-                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()));
+                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()), CALLER);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto3.eventId()))
                 .willReturn(aResponse()
@@ -1120,7 +1225,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         registrationService.updateRegistrationStatus(userId, createdRegistration3.id(), WAITING,
-                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()));
+                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()), CALLER);
 
         List<RegistrationResponseDto> result = registrationService
                 .searchRegistrations(List.of(APPROVED), registrationDto1.eventId());
@@ -1135,9 +1240,9 @@ public class RegistrationServiceImplIntegrateTest {
         NewRegistrationDto registrationDto1 =
                 createNewRegistrationDto("user1", "mail@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto2 =
-                createNewRegistrationDto("user2", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user2", "mail2@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto3 =
-                createNewRegistrationDto("user3", "mail@mail.com", "78005553535", 2L);
+                createNewRegistrationDto("user3", "mail3@mail.com", "78005553535", 2L);
         EventDto eventDto = createEvent(userId, 0, EventRegistrationStatus.OPEN);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto2.eventId()))
@@ -1150,7 +1255,7 @@ public class RegistrationServiceImplIntegrateTest {
         CreatedRegistrationResponseDto createdRegistration2 = registrationService.createRegistration(registrationDto2, 1L);
 
         registrationService.updateRegistrationStatus(userId, createdRegistration2.id(), APPROVED,
-                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()));
+                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()), CALLER);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto3.eventId()))
                 .willReturn(aResponse()
@@ -1160,7 +1265,7 @@ public class RegistrationServiceImplIntegrateTest {
 
         CreatedRegistrationResponseDto createdRegistration3 = registrationService.createRegistration(registrationDto3, 1L);
         registrationService.updateRegistrationStatus(userId, createdRegistration3.id(), WAITING,
-                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()));
+                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()), CALLER);
 
         List<RegistrationResponseDto> result = registrationService
                 .searchRegistrations(List.of(PENDING, WAITING), registrationDto1.eventId());
@@ -1183,11 +1288,11 @@ public class RegistrationServiceImplIntegrateTest {
         NewRegistrationDto registrationDto1 =
                 createNewRegistrationDto("user1", "mail@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto2 =
-                createNewRegistrationDto("user2", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user2", "mail2@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto3 =
-                createNewRegistrationDto("user3", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user3", "mail3@mail.com", "78005553535", 1L);
         NewRegistrationDto registrationDto4 =
-                createNewRegistrationDto("user4", "mail@mail.com", "78005553535", 1L);
+                createNewRegistrationDto("user4", "mail4@mail.com", "78005553535", 1L);
         EventDto eventDto = createEvent(userId, 0, EventRegistrationStatus.OPEN);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto2.eventId()))
@@ -1202,7 +1307,7 @@ public class RegistrationServiceImplIntegrateTest {
         CreatedRegistrationResponseDto createdRegistration4 = registrationService.createRegistration(registrationDto4, 1L);
 
         registrationService.updateRegistrationStatus(userId, createdRegistration2.id(), APPROVED,
-                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()));
+                new RegistrationCredentials(createdRegistration2.id(), createdRegistration2.password()), CALLER);
 
         stubFor(get(urlEqualTo("/events/" + registrationDto3.eventId()))
                 .willReturn(aResponse()
@@ -1211,7 +1316,7 @@ public class RegistrationServiceImplIntegrateTest {
                         .withStatus(HttpStatus.OK.value())));
 
         registrationService.updateRegistrationStatus(userId, createdRegistration3.id(), WAITING,
-                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()));
+                new RegistrationCredentials(createdRegistration3.id(), createdRegistration3.password()), CALLER);
         registrationService.findAllRegistrationsByEventId(0, 10, registrationDto1.eventId());
 
         RegistrationCount count = registrationService.getRegistrationsCountByEventId(registrationDto1.eventId());
@@ -1268,4 +1373,15 @@ public class RegistrationServiceImplIntegrateTest {
                 .role(role)
                 .build();
     }
+
+    private Registration createBatchRegistration(String username, String email) {
+        return Registration.builder()
+                .username(username)
+                .email(email)
+                .phone("78005553535")
+                .eventId(1L)
+                .password("1234")
+                .status(PENDING)
+                .build();
+    }
 }
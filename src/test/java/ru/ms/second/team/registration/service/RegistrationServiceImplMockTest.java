@@ -1,5 +1,6 @@
 package ru.ms.second.team.registration.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -15,6 +17,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.ms.second.team.registration.client.EventClient;
 import ru.ms.second.team.registration.dto.event.EventDto;
 import ru.ms.second.team.registration.dto.event.EventRegistrationStatus;
@@ -24,30 +27,51 @@ import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
 import ru.ms.second.team.registration.dto.request.RegistrationCredentials;
 import ru.ms.second.team.registration.dto.request.UpdateRegistrationDto;
 import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationBatchResponseDto;
 import ru.ms.second.team.registration.dto.response.RegistrationCount;
 import ru.ms.second.team.registration.dto.response.RegistrationResponseDto;
+import ru.ms.second.team.registration.dto.response.RegistrationTicketDto;
 import ru.ms.second.team.registration.dto.response.UpdatedRegistrationResponseDto;
+import ru.ms.second.team.registration.exception.exceptions.AlreadyExistsException;
+import ru.ms.second.team.registration.exception.exceptions.IdempotencyKeyReusedException;
 import ru.ms.second.team.registration.exception.exceptions.NotAuthorizedException;
 import ru.ms.second.team.registration.exception.exceptions.NotFoundException;
 import ru.ms.second.team.registration.exception.exceptions.PasswordIncorrectException;
+import ru.ms.second.team.registration.exception.exceptions.TooManyPasswordAttemptsException;
 import ru.ms.second.team.registration.mapper.RegistrationMapper;
 import ru.ms.second.team.registration.model.DeclinedRegistration;
+import ru.ms.second.team.registration.model.QueuedRequest;
 import ru.ms.second.team.registration.model.Registration;
 import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.model.RegistrationTicketState;
+import ru.ms.second.team.registration.repository.jdbc.RegistrationQueueRepository;
 import ru.ms.second.team.registration.repository.jpa.DeclinedRegistrationRepository;
 import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+import ru.ms.second.team.registration.service.dedup.RegistrationEmailFilter;
+import ru.ms.second.team.registration.service.executor.EventTransitionExecutor;
+import ru.ms.second.team.registration.service.executor.LocalEventOwnership;
+import ru.ms.second.team.registration.service.admission.WaitingRoom;
+import ru.ms.second.team.registration.service.batch.RegistrationInsertBatcher;
+import ru.ms.second.team.registration.service.idempotency.IdempotencyStore;
+import ru.ms.second.team.registration.service.metrics.RegistrationMetrics;
+import ru.ms.second.team.registration.service.security.PasswordAttemptGuard;
 import ru.ms.second.team.registration.service.impl.RegistrationServiceImpl;
+import ru.ms.second.team.registration.service.version.EventVersionRegistry;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -61,6 +85,8 @@ import static ru.ms.second.team.registration.model.RegistrationStatus.WAITING;
 @ExtendWith(MockitoExtension.class)
 public class RegistrationServiceImplMockTest {
 
+    private static final String CALLER = "127.0.0.1";
+
     @InjectMocks
     private RegistrationServiceImpl registrationService;
     @Mock
@@ -71,6 +97,28 @@ public class RegistrationServiceImplMockTest {
     private RegistrationMapper mapper;
     @Mock
     private EventClient eventClient;
+    @Spy
+    private EventTransitionExecutor transitionExecutor =
+            new EventTransitionExecutor(2, 16, TransactionOperations.withoutTransaction(), new LocalEventOwnership());
+    @Mock
+    private RegistrationEmailFilter registrationEmailFilter;
+    @Mock
+    private RegistrationQueueRepository registrationQueueRepository;
+    @Mock
+    private RegistrationInsertBatcher insertBatcher;
+    @Spy
+    private WaitingRoom waitingRoom = new WaitingRoom(false, 50, 100, 100, Duration.ofMinutes(10),
+            Duration.ofSeconds(30), "");
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore(Duration.ofMinutes(1), 100, Duration.ofSeconds(5));
+    @Spy
+    private EventVersionRegistry eventVersionRegistry = new EventVersionRegistry(10_000);
+    @Spy
+    private PasswordAttemptGuard passwordAttemptGuard =
+            new PasswordAttemptGuard(4, 3, 10, Duration.ofMinutes(1), Duration.ofHours(1), 100);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private RegistrationMetrics registrationMetrics = new RegistrationMetrics(meterRegistry);
 
     private UpdateRegistrationDto updateRegistrationDto;
     private UpdatedRegistrationResponseDto updatedRegistrationResponseDto;
@@ -101,7 +149,7 @@ public class RegistrationServiceImplMockTest {
 
         when(mapper.toModel(newRegistrationDto)).thenReturn(registrationFromMapper);
         when(mapper.toCreatedDto(registration)).thenReturn(createdRegistrationResponseDto);
-        when(registrationRepository.save(registrationFromMapper)).thenReturn(registration);
+        when(registrationRepository.insertIfAbsent(registrationFromMapper)).thenReturn(Optional.of(registration));
         when(eventClient.getEventById(1L, newRegistrationDto.eventId()))
                 .thenReturn(new ResponseEntity<>(event, HttpStatus.OK));
 
@@ -112,7 +160,233 @@ public class RegistrationServiceImplMockTest {
 
         verify(mapper, times(1)).toModel(newRegistrationDto);
         verify(mapper, times(1)).toCreatedDto(registration);
-        verify(registrationRepository, times(1)).save(registrationFromMapper);
+        verify(registrationRepository, times(1)).insertIfAbsent(registrationFromMapper);
+        verify(eventVersionRegistry, times(1)).bump(registration.getEventId());
+        assertEquals(1, transitions("NONE", PENDING));
+    }
+
+    @Test
+    @DisplayName("Created registration through the insert batcher when batching is enabled")
+    void createRegistration_whenBatchingEnabled_shouldInsertThroughBatcher() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        registration = createRegistration(
+                1L, "user1", "mail@mail.com", "78005553535");
+        CreatedRegistrationResponseDto createdRegistrationResponseDto = createNewRegistrationResponseDto(registration.getId());
+        Registration registrationFromMapper = createRegistration(
+                0L, "user1", "mail@mail.com", "78005553535");
+        EventDto event = createEvent(2L, 10, OPEN);
+
+        when(mapper.toModel(newRegistrationDto)).thenReturn(registrationFromMapper);
+        when(mapper.toCreatedDto(registration)).thenReturn(createdRegistrationResponseDto);
+        when(insertBatcher.isEnabled()).thenReturn(true);
+        when(insertBatcher.insertIfAbsent(registrationFromMapper)).thenReturn(Optional.of(registration));
+        when(eventClient.getEventById(1L, newRegistrationDto.eventId()))
+                .thenReturn(new ResponseEntity<>(event, HttpStatus.OK));
+
+        CreatedRegistrationResponseDto result = registrationService.createRegistration(newRegistrationDto, 1L);
+
+        assertEquals(result.id(), createdRegistrationResponseDto.id(), "id's must be same");
+        verify(insertBatcher, times(1)).insertIfAbsent(registrationFromMapper);
+        verify(registrationRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    @DisplayName("Repeated registration with the same idempotency key is replayed")
+    void createRegistrationWithIdempotencyKey_whenKeyRepeated_ShouldCreateOnce() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        registration = createRegistration(
+                1L, "user1", "mail@mail.com", "78005553535");
+        CreatedRegistrationResponseDto createdRegistrationResponseDto = createNewRegistrationResponseDto(registration.getId());
+        Registration registrationFromMapper = createRegistration(
+                0L, "user1", "mail@mail.com", "78005553535");
+        EventDto event = createEvent(2L, 10, OPEN);
+
+        when(mapper.toModel(newRegistrationDto)).thenReturn(registrationFromMapper);
+        when(mapper.toCreatedDto(registration)).thenReturn(createdRegistrationResponseDto);
+        when(registrationRepository.insertIfAbsent(registrationFromMapper)).thenReturn(Optional.of(registration));
+        when(eventClient.getEventById(1L, newRegistrationDto.eventId()))
+                .thenReturn(new ResponseEntity<>(event, HttpStatus.OK));
+
+        CreatedRegistrationResponseDto first = registrationService.createRegistration(newRegistrationDto, 1L, "key");
+        CreatedRegistrationResponseDto second = registrationService.createRegistration(newRegistrationDto, 1L, "key");
+
+        assertEquals(first, second, "replayed response must be same");
+
+        verify(eventClient, times(1)).getEventById(1L, newRegistrationDto.eventId());
+        verify(registrationRepository, times(1)).insertIfAbsent(registrationFromMapper);
+    }
+
+    @Test
+    @DisplayName("Idempotency key reused for a different registration")
+    void createRegistrationWithIdempotencyKey_whenKeyReusedForOtherRequest_ShouldThrowException() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        NewRegistrationDto otherRegistrationDto = NewRegistrationDto.builder()
+                .username("user2")
+                .email("mail2@mail.com")
+                .phone("78005553535")
+                .eventId(1L)
+                .build();
+
+        idempotencyStore.execute("1:key", newRegistrationDto, () -> createNewRegistrationResponseDto(1L));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> registrationService.createRegistration(otherRegistrationDto, 1L, "key"));
+
+        verify(registrationRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    @DisplayName("Registration with already registered email is rejected before calling event service")
+    void createRegistration_whenEmailAlreadyRegistered_ShouldThrowException() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+
+        when(registrationEmailFilter.mightContain(newRegistrationDto.eventId(), newRegistrationDto.email()))
+                .thenReturn(true);
+        when(registrationRepository.existsByEventIdAndEmail(newRegistrationDto.eventId(), newRegistrationDto.email()))
+                .thenReturn(true);
+
+        assertThrows(AlreadyExistsException.class,
+                () -> registrationService.createRegistration(newRegistrationDto, 1L));
+
+        verify(eventClient, never()).getEventById(any(), any());
+        verify(registrationRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    @DisplayName("Concurrent registration with the same email loses on unique constraint")
+    void createRegistration_whenInsertConflicts_ShouldThrowException() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        Registration registrationFromMapper = createRegistration(
+                0L, "user1", "mail@mail.com", "78005553535");
+        EventDto event = createEvent(2L, 10, OPEN);
+
+        when(mapper.toModel(newRegistrationDto)).thenReturn(registrationFromMapper);
+        when(registrationRepository.insertIfAbsent(registrationFromMapper)).thenReturn(Optional.empty());
+        when(eventClient.getEventById(1L, newRegistrationDto.eventId()))
+                .thenReturn(new ResponseEntity<>(event, HttpStatus.OK));
+
+        assertThrows(AlreadyExistsException.class,
+                () -> registrationService.createRegistration(newRegistrationDto, 1L));
+
+        verify(registrationEmailFilter, never()).put(any(), any());
+    }
+
+    @Test
+    @DisplayName("Queued registration request is stored with a new ticket without calling event service")
+    void enqueueRegistration() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        when(registrationQueueRepository.enqueue(any(), any(), any(), any())).thenReturn(true);
+
+        RegistrationTicketDto result = registrationService.enqueueRegistration(newRegistrationDto, 1L);
+
+        assertNotNull(result.ticket(), "ticket can't be null");
+        assertEquals(RegistrationTicketState.QUEUED, result.state());
+        verify(registrationQueueRepository, times(1)).enqueue(result.ticket(), 1L, null, newRegistrationDto);
+        verify(eventClient, never()).getEventById(any(), any());
+    }
+
+    @Test
+    @DisplayName("Repeated queued registration request gets the ticket of the first one in its current state")
+    void enqueueRegistration_whenIdempotencyKeyQueued_shouldReturnExistingTicket() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        RegistrationTicketDto existing = RegistrationTicketDto.builder()
+                .ticket(UUID.randomUUID())
+                .state(RegistrationTicketState.CREATED)
+                .id(5L)
+                .password("1234")
+                .build();
+        when(registrationQueueRepository.findByIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(new QueuedRequest(newRegistrationDto, existing)));
+
+        assertEquals(existing, registrationService.enqueueRegistration(newRegistrationDto, 1L, "key-1"));
+
+        verify(registrationQueueRepository, never()).enqueue(any(), any(), any(), any());
+        verify(registrationRepository, never()).existsByEventIdAndEmail(any(), any());
+    }
+
+    @Test
+    @DisplayName("Queued registration request racing with its repeat gets the ticket of the stored one")
+    void enqueueRegistration_whenIdempotencyKeyQueuedConcurrently_shouldReturnExistingTicket() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        RegistrationTicketDto existing = RegistrationTicketDto.builder()
+                .ticket(UUID.randomUUID())
+                .state(RegistrationTicketState.QUEUED)
+                .build();
+        when(registrationQueueRepository.findByIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new QueuedRequest(newRegistrationDto, existing)));
+        when(registrationQueueRepository.enqueue(any(), eq(1L), eq("key-1"), eq(newRegistrationDto)))
+                .thenReturn(false);
+
+        assertEquals(existing, registrationService.enqueueRegistration(newRegistrationDto, 1L, "key-1"));
+    }
+
+    @Test
+    @DisplayName("Idempotency key of a queued request can't be reused for a different request")
+    void enqueueRegistration_whenIdempotencyKeyReused_shouldThrowException() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+        NewRegistrationDto otherDto = NewRegistrationDto.builder()
+                .username("other")
+                .email(newRegistrationDto.email())
+                .phone(newRegistrationDto.phone())
+                .eventId(newRegistrationDto.eventId())
+                .build();
+        when(registrationQueueRepository.findByIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(new QueuedRequest(otherDto, RegistrationTicketDto.builder()
+                        .ticket(UUID.randomUUID())
+                        .state(RegistrationTicketState.QUEUED)
+                        .build())));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> registrationService.enqueueRegistration(newRegistrationDto, 1L, "key-1"));
+        verify(registrationQueueRepository, never()).enqueue(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Registration request with already registered email is not queued")
+    void enqueueRegistration_whenEmailAlreadyRegistered_ShouldThrowException() {
+        NewRegistrationDto newRegistrationDto = createNewRegistrationDto();
+
+        when(registrationEmailFilter.mightContain(newRegistrationDto.eventId(), newRegistrationDto.email()))
+                .thenReturn(true);
+        when(registrationRepository.existsByEventIdAndEmail(newRegistrationDto.eventId(), newRegistrationDto.email()))
+                .thenReturn(true);
+
+        assertThrows(AlreadyExistsException.class,
+                () -> registrationService.enqueueRegistration(newRegistrationDto, 1L));
+
+        verify(registrationQueueRepository, never()).enqueue(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Unknown registration ticket is not found")
+    void findRegistrationTicket_whenUnknown_ShouldThrowNotFoundException() {
+        UUID ticket = UUID.randomUUID();
+
+        when(registrationQueueRepository.findByTicket(ticket, 1L)).thenReturn(Optional.empty());
+
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> registrationService.findRegistrationTicket(ticket, 1L));
+
+        assertEquals("Registration ticket=" + ticket + " was not found", ex.getLocalizedMessage());
+    }
+
+    @Test
+    @DisplayName("Registrations found by ids in requested order with missing ids reported")
+    void findRegistrationsByIds() {
+        RegistrationResponseDto first = RegistrationResponseDto.builder().username("user1").eventId(1L).build();
+        RegistrationResponseDto second = RegistrationResponseDto.builder().username("user2").eventId(1L).build();
+
+        when(registrationRepository.findRegistrationsByIds(any())).thenReturn(Map.of(1L, first, 3L, second));
+
+        RegistrationBatchResponseDto result = registrationService.findRegistrationsByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(3L, 1L), List.copyOf(result.registrations().keySet()),
+                "registrations must follow requested order");
+        assertEquals(second, result.registrations().get(3L));
+        assertEquals(first, result.registrations().get(1L));
+        assertEquals(List.of(2L), result.missingIds(), "missing ids must be reported");
+        verify(registrationRepository, times(1)).findRegistrationsByIds(any());
     }
 
     @Test
@@ -133,7 +407,7 @@ public class RegistrationServiceImplMockTest {
         when(mapper.toUpdatedDto(updatedRegistration)).thenReturn(updatedRegistrationResponseDto);
         when(registrationRepository.save(registration)).thenReturn(updatedRegistration);
 
-        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto);
+        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto, CALLER);
 
         assertEquals(updateRegistrationDto.username(), result.username(), "usernames must be same");
         assertEquals(registration.getEmail(), result.email(), "emails must be same");
@@ -162,7 +436,7 @@ public class RegistrationServiceImplMockTest {
         when(mapper.toUpdatedDto(updatedRegistration)).thenReturn(updatedRegistrationResponseDto);
         when(registrationRepository.save(registration)).thenReturn(updatedRegistration);
 
-        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto);
+        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto, CALLER);
 
         assertEquals(registration.getUsername(), result.username(), "usernames must be same");
         assertEquals(updateRegistrationDto.email(), result.email(), "emails must be same");
@@ -191,7 +465,7 @@ public class RegistrationServiceImplMockTest {
         when(mapper.toUpdatedDto(updatedRegistration)).thenReturn(updatedRegistrationResponseDto);
         when(registrationRepository.save(registration)).thenReturn(updatedRegistration);
 
-        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto);
+        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto, CALLER);
 
         assertEquals(registration.getUsername(), result.username(), "usernames must be same");
         assertEquals(registration.getEmail(), result.email(), "emails must be same");
@@ -221,7 +495,7 @@ public class RegistrationServiceImplMockTest {
         when(mapper.toUpdatedDto(updatedRegistration)).thenReturn(updatedRegistrationResponseDto);
         when(registrationRepository.save(registration)).thenReturn(updatedRegistration);
 
-        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto);
+        UpdatedRegistrationResponseDto result = registrationService.updateRegistration(updateRegistrationDto, CALLER);
 
         assertEquals(updateRegistrationDto.username(), result.username(), "usernames must be same");
         assertEquals(updateRegistrationDto.email(), result.email(), "emails must be same");
@@ -243,7 +517,7 @@ public class RegistrationServiceImplMockTest {
 
         when(registrationRepository.findById(registration.getId())).thenReturn(Optional.of(registration));
 
-        assertThrows(PasswordIncorrectException.class, () -> registrationService.updateRegistration(updateRegistrationDto));
+        assertThrows(PasswordIncorrectException.class, () -> registrationService.updateRegistration(updateRegistrationDto, CALLER));
 
         verify(registrationRepository, times(1)).findById(registration.getId());
     }
@@ -327,14 +601,50 @@ public class RegistrationServiceImplMockTest {
 
         when(registrationRepository.findById(registration.getId())).thenReturn(Optional.of(registration));
 
-        registrationService.deleteRegistration(registrationCredentials);
+        registrationService.deleteRegistration(registrationCredentials, CALLER);
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).deleteById(registrationCredentials.id());
         verify(declinedRegistrationRepository, times(1))
                 .deleteAllByRegistrationId(registrationCredentials.id());
     }
 
+    @Test
+    @DisplayName("Deleting an approved registration moves the earliest waiting registration of its event to pending")
+    void deleteApprovedRegistration_shouldPromoteEarliestWaitingRegistrationOfEvent() {
+        registrationCredentials = createRegistrationCredentials("1234");
+        registration = createRegistrationWithStatus(1L, "user1", "mail@mail.com", "78005553535", APPROVED);
+        final Registration waitingRegistration =
+                createRegistrationWithStatus(2L, "user2", "mail2@mail.com", "78005553536", WAITING);
+
+        when(registrationRepository.findById(registration.getId())).thenReturn(Optional.of(registration));
+        when(registrationRepository.findFirstByEventIdAndStatusOrderByCreatedAtAsc(1L, WAITING))
+                .thenReturn(Optional.of(waitingRegistration));
+
+        registrationService.deleteRegistration(registrationCredentials, CALLER);
+
+        verify(registrationRepository, times(1)).deleteById(registration.getId());
+        verify(registrationRepository, times(1)).save(captor.capture());
+        assertEquals(2L, captor.getValue().getId());
+        assertEquals(PENDING, captor.getValue().getStatus());
+    }
+
+    @Test
+    @DisplayName("Deleting an approved registration of an event without waiting registrations promotes nothing")
+    void deleteApprovedRegistration_whenNoWaitingRegistrations_shouldNotPromote() {
+        registrationCredentials = createRegistrationCredentials("1234");
+        registration = createRegistrationWithStatus(1L, "user1", "mail@mail.com", "78005553535", APPROVED);
+
+        when(registrationRepository.findById(registration.getId())).thenReturn(Optional.of(registration));
+        when(registrationRepository.findFirstByEventIdAndStatusOrderByCreatedAtAsc(1L, WAITING))
+                .thenReturn(Optional.empty());
+
+        registrationService.deleteRegistration(registrationCredentials, CALLER);
+
+        verify(registrationRepository, times(1)).deleteById(registration.getId());
+        verify(registrationRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Deletion failed due to incorrect password")
     void deleteFailIncorrectPassword() {
@@ -345,13 +655,35 @@ public class RegistrationServiceImplMockTest {
 
         when(registrationRepository.findById(registration.getId())).thenReturn(Optional.of(registration));
 
-        assertThrows(PasswordIncorrectException.class, () -> registrationService.deleteRegistration(registrationCredentials));
+        assertThrows(PasswordIncorrectException.class, () -> registrationService.deleteRegistration(registrationCredentials, CALLER));
 
         verify(registrationRepository, times(1)).findById(registration.getId());
         verify(registrationRepository, never()).deleteById(registrationCredentials.id());
         verify(declinedRegistrationRepository, never()).deleteAllByRegistrationId(registrationCredentials.id());
     }
 
+    @Test
+    @DisplayName("Deletion is rejected without database access after too many incorrect passwords")
+    void deleteAfterTooManyIncorrectPasswords_shouldThrowTooManyPasswordAttemptsException() {
+        registrationCredentials = createRegistrationCredentials("4321");
+        registration = createRegistration(
+                1L, "user1", "mail@mail.com", "78005553535"
+        );
+
+        when(registrationRepository.findById(registration.getId())).thenReturn(Optional.of(registration));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(PasswordIncorrectException.class,
+                    () -> registrationService.deleteRegistration(registrationCredentials, CALLER));
+        }
+        TooManyPasswordAttemptsException ex = assertThrows(TooManyPasswordAttemptsException.class,
+                () -> registrationService.deleteRegistration(createRegistrationCredentials("1234"), CALLER));
+
+        assertEquals(60, ex.getRetryAfterSeconds());
+        verify(registrationRepository, times(3)).findById(registration.getId());
+        verify(registrationRepository, never()).deleteById(any());
+    }
+
     @Test
     @DisplayName("Deletion failed due to object was not found")
     void deleteFailNotFound() {
@@ -359,7 +691,7 @@ public class RegistrationServiceImplMockTest {
 
         when(registrationRepository.findById(registrationCredentials.id())).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> registrationService.deleteRegistration(registrationCredentials));
+        assertThrows(NotFoundException.class, () -> registrationService.deleteRegistration(registrationCredentials, CALLER));
 
         verify(registrationRepository, times(1)).findById(registrationCredentials.id());
         verify(registrationRepository, never()).deleteById(registrationCredentials.id());
@@ -384,7 +716,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(new ResponseEntity<>(event, HttpStatus.OK));
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration.getId(), status,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -393,7 +725,7 @@ public class RegistrationServiceImplMockTest {
 
         assertEquals(status, registrationToSave.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
     }
@@ -419,7 +751,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(new ResponseEntity<>(List.of(teamMemberDto), HttpStatus.OK));
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration.getId(), status,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -428,7 +760,7 @@ public class RegistrationServiceImplMockTest {
 
         assertEquals(status, registrationToSave.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
         verify(eventClient, times(1)).getTeamsByEventId(userId, registration.getEventId());
@@ -457,7 +789,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(new ResponseEntity<>(List.of(teamMemberDto1, teamMemberDto2), HttpStatus.OK));
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration.getId(), status,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -466,7 +798,7 @@ public class RegistrationServiceImplMockTest {
 
         assertEquals(status, registrationToSave.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
         verify(eventClient, times(1)).getTeamsByEventId(userId, registration.getEventId());
@@ -492,7 +824,7 @@ public class RegistrationServiceImplMockTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.updateRegistrationStatus(
-                        userId, registration.getId(), status, registrationCredentials)
+                        userId, registration.getId(), status, registrationCredentials, CALLER)
         );
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
@@ -521,7 +853,7 @@ public class RegistrationServiceImplMockTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.updateRegistrationStatus(
-                        userId, registration.getId(), status, registrationCredentials)
+                        userId, registration.getId(), status, registrationCredentials, CALLER)
         );
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
@@ -552,7 +884,7 @@ public class RegistrationServiceImplMockTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.updateRegistrationStatus(
-                        userId, registration.getId(), status, registrationCredentials)
+                        userId, registration.getId(), status, registrationCredentials, CALLER)
         );
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
@@ -582,7 +914,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(registration);
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration.getId(), status,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -591,7 +923,7 @@ public class RegistrationServiceImplMockTest {
 
         assertEquals(status, registrationToSave.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
     }
 
@@ -615,7 +947,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(registration);
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration.getId(), status,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -624,7 +956,7 @@ public class RegistrationServiceImplMockTest {
 
         assertEquals(status, registrationToSave.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
     }
 
@@ -653,7 +985,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(registration1);
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration1.getId(), APPROVED,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(WAITING, result);
 
@@ -662,8 +994,9 @@ public class RegistrationServiceImplMockTest {
 
         assertEquals(WAITING, registrationToSave.getStatus());
         assertEquals(WAITING, registration3.getStatus());
+        assertEquals(2, transitions("APPROVED", WAITING));
 
-        verify(registrationRepository, times(1)).findById(registration1.getId());
+        verify(registrationRepository, times(2)).findById(registration1.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
     }
 
@@ -692,7 +1025,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(registration1);
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration1.getId(), APPROVED,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(APPROVED, result);
 
@@ -702,7 +1035,7 @@ public class RegistrationServiceImplMockTest {
         assertEquals(APPROVED, registrationToSave.getStatus());
         assertEquals(APPROVED, registration3.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration1.getId());
+        verify(registrationRepository, times(2)).findById(registration1.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
     }
 
@@ -731,7 +1064,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(registration1);
 
         RegistrationStatus result = registrationService.updateRegistrationStatus(userId, registration1.getId(), APPROVED,
-                registrationCredentials);
+                registrationCredentials, CALLER);
 
         assertEquals(APPROVED, result);
 
@@ -741,7 +1074,7 @@ public class RegistrationServiceImplMockTest {
         assertEquals(APPROVED, registrationToSave.getStatus());
         assertEquals(APPROVED, registration3.getStatus());
 
-        verify(registrationRepository, times(1)).findById(registration1.getId());
+        verify(registrationRepository, times(2)).findById(registration1.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
     }
 
@@ -758,7 +1091,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(Optional.empty());
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> registrationService.updateRegistrationStatus(userId, registration.getId(), status, registrationCredentials));
+                () -> registrationService.updateRegistrationStatus(userId, registration.getId(), status, registrationCredentials, CALLER));
 
         assertEquals("Registration with id=" + registration.getId() + " was not found", ex.getLocalizedMessage());
 
@@ -779,7 +1112,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(Optional.of(registration));
 
         PasswordIncorrectException ex = assertThrows(PasswordIncorrectException.class,
-                () -> registrationService.updateRegistrationStatus(userId, registration.getId(), status, registrationCredentials));
+                () -> registrationService.updateRegistrationStatus(userId, registration.getId(), status, registrationCredentials, CALLER));
 
         assertEquals("Password=" + registrationCredentials.password() + " for registrationId=" +
                 registration.getId() + " is not correct", ex.getLocalizedMessage());
@@ -806,9 +1139,9 @@ public class RegistrationServiceImplMockTest {
         when(eventClient.getEventById(userId, registration.getEventId()))
                 .thenReturn(new ResponseEntity<>(eventDto, HttpStatus.OK));
         when(declinedRegistrationRepository.save(any()))
-                .thenReturn(any());
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
-        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials);
+        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -823,10 +1156,11 @@ public class RegistrationServiceImplMockTest {
         assertEquals(registration.getId(), declinedRegistrationToSave.getRegistration().getId());
         assertEquals(reason, declinedRegistrationToSave.getReason());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(declinedRegistrationRepository, times(1)).save(declinedRegistrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
+        assertEquals(1, transitions("PENDING", DECLINED));
     }
 
     @Test
@@ -850,10 +1184,10 @@ public class RegistrationServiceImplMockTest {
         when(eventClient.getTeamsByEventId(userId, registration.getEventId()))
                 .thenReturn(new ResponseEntity<>(List.of(teamMemberDto), HttpStatus.OK));
         when(declinedRegistrationRepository.save(any()))
-                .thenReturn(any());
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
 
-        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials);
+        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -868,7 +1202,7 @@ public class RegistrationServiceImplMockTest {
         assertEquals(registration.getId(), declinedRegistrationToSave.getRegistration().getId());
         assertEquals(reason, declinedRegistrationToSave.getReason());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(declinedRegistrationRepository, times(1)).save(declinedRegistrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
@@ -898,10 +1232,10 @@ public class RegistrationServiceImplMockTest {
         when(eventClient.getTeamsByEventId(userId, registration.getEventId()))
                 .thenReturn(new ResponseEntity<>(List.of(teamMemberDto, teamMemberDto1), HttpStatus.OK));
         when(declinedRegistrationRepository.save(any()))
-                .thenReturn(any());
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
 
-        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials);
+        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -916,7 +1250,7 @@ public class RegistrationServiceImplMockTest {
         assertEquals(registration.getId(), declinedRegistrationToSave.getRegistration().getId());
         assertEquals(reason, declinedRegistrationToSave.getReason());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(declinedRegistrationRepository, times(1)).save(declinedRegistrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
@@ -946,10 +1280,10 @@ public class RegistrationServiceImplMockTest {
         when(eventClient.getTeamsByEventId(userId, registration.getEventId()))
                 .thenReturn(new ResponseEntity<>(List.of(teamMemberDto, teamMemberDto1), HttpStatus.OK));
         when(declinedRegistrationRepository.save(any()))
-                .thenReturn(any());
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
 
-        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials);
+        RegistrationStatus result = registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials, CALLER);
 
         assertEquals(status, result);
 
@@ -964,7 +1298,7 @@ public class RegistrationServiceImplMockTest {
         assertEquals(registration.getId(), declinedRegistrationToSave.getRegistration().getId());
         assertEquals(reason, declinedRegistrationToSave.getReason());
 
-        verify(registrationRepository, times(1)).findById(registration.getId());
+        verify(registrationRepository, times(2)).findById(registration.getId());
         verify(registrationRepository, times(1)).save(registrationToSave);
         verify(declinedRegistrationRepository, times(1)).save(declinedRegistrationToSave);
         verify(eventClient, times(1)).getEventById(userId, registration.getEventId());
@@ -992,7 +1326,7 @@ public class RegistrationServiceImplMockTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.declineRegistration(
-                        userId, registration.getId(), reason, registrationCredentials)
+                        userId, registration.getId(), reason, registrationCredentials, CALLER)
         );
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
@@ -1025,7 +1359,7 @@ public class RegistrationServiceImplMockTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.declineRegistration(
-                        userId, registration.getId(), reason, registrationCredentials)
+                        userId, registration.getId(), reason, registrationCredentials, CALLER)
         );
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
@@ -1054,7 +1388,7 @@ public class RegistrationServiceImplMockTest {
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
                 () -> registrationService.declineRegistration(
-                        userId, registration.getId(), reason, registrationCredentials)
+                        userId, registration.getId(), reason, registrationCredentials, CALLER)
         );
 
         assertEquals(String.format("User id=%d has no rights to change registration status for event id=%d",
@@ -1077,7 +1411,7 @@ public class RegistrationServiceImplMockTest {
                 .thenReturn(Optional.empty());
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials));
+                () -> registrationService.declineRegistration(userId, registration.getId(), reason, registrationCredentials, CALLER));
 
         assertEquals("Registration with id=" + registration.getId() + " was not found", ex.getLocalizedMessage());
 
@@ -1188,6 +1522,14 @@ public class RegistrationServiceImplMockTest {
                 .build();
     }
 
+    private double transitions(String from, RegistrationStatus to) {
+        return meterRegistry.get("registration.status.transitions")
+                .tag("from", from)
+                .tag("to", to.name())
+                .counter()
+                .count();
+    }
+
     private Registration createRegistration(Long id,
                                             String userName,
                                             String email,
@@ -0,0 +1,131 @@
+package ru.ms.second.team.registration.service.admission;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ms.second.team.registration.exception.exceptions.EventFullException;
+import ru.ms.second.team.registration.exception.exceptions.NotAdmittedException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WaitingRoomTest {
+
+    private static final Long USER_ID = 7L;
+
+    private WaitingRoom waitingRoom;
+
+    @BeforeEach
+    void init() {
+        waitingRoom = new WaitingRoom(true, 1, 1, 2, Duration.ofMinutes(10), Duration.ofMinutes(1), "secret");
+    }
+
+    @Test
+    @DisplayName("Requests over the burst get positions in arrival order")
+    void admit_shouldQueueRequestsOverBurstInArrivalOrder() {
+        assertDoesNotThrow(() -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+        assertDoesNotThrow(() -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+
+        NotAdmittedException third = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+        NotAdmittedException fourth = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+
+        assertTrue(third.getRetryAfterSeconds() < fourth.getRetryAfterSeconds(),
+                "later arrivals must wait longer");
+        assertDoesNotThrow(() -> waitingRoom.admitOrThrow(2L, USER_ID, null), "events must have separate rooms");
+    }
+
+    @Test
+    @DisplayName("Retrying with the position token keeps the place in the queue")
+    void admit_withToken_shouldKeepPosition() {
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+        NotAdmittedException first = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+
+        NotAdmittedException retry = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID, first.getToken()));
+
+        assertEquals(first.getToken(), retry.getToken(), "retry must keep the same position");
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("A position token admits only once, a replay goes to the back of the queue")
+    void admit_withUsedToken_shouldIssueNewPosition() {
+        waitingRoom = new WaitingRoom(true, 10, 1, 2, Duration.ofMinutes(10), Duration.ofMinutes(1), "secret");
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+        NotAdmittedException waiting = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+        Thread.sleep(TimeUnit.SECONDS.toMillis(waiting.getRetryAfterSeconds()));
+
+        assertDoesNotThrow(() -> waitingRoom.admitOrThrow(1L, USER_ID, waiting.getToken()));
+        for (int i = 0; i < 10; i++) {
+            try {
+                waitingRoom.admitOrThrow(1L, USER_ID, null);
+            } catch (NotAdmittedException e) {
+                break;
+            }
+        }
+
+        NotAdmittedException replay = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID, waiting.getToken()));
+        assertNotEquals(waiting.getToken(), replay.getToken(), "a used token must not keep its position");
+    }
+
+    @Test
+    @DisplayName("Tampered tokens, tokens of other events or users and tokens of another secret get a new position")
+    void admit_withInvalidToken_shouldIssueNewPosition() {
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+        String token = assertThrows(NotAdmittedException.class, () -> waitingRoom.admitOrThrow(1L, USER_ID, null)).getToken();
+        WaitingRoom otherSecret = new WaitingRoom(true, 1, 1, 2, Duration.ofMinutes(10), Duration.ofMinutes(1),
+                "other");
+        otherSecret.admitOrThrow(1L, USER_ID, null);
+        otherSecret.admitOrThrow(1L, USER_ID, null);
+        String foreignToken = assertThrows(NotAdmittedException.class,
+                () -> otherSecret.admitOrThrow(1L, USER_ID, null)).getToken();
+
+        assertDoesNotThrow(() -> waitingRoom.admitOrThrow(2L, USER_ID, token));
+        for (String invalid : List.of(token + "x", "garbage", "", foreignToken)) {
+            NotAdmittedException retry = assertThrows(NotAdmittedException.class,
+                    () -> waitingRoom.admitOrThrow(1L, USER_ID, invalid));
+            assertNotEquals(token, retry.getToken());
+        }
+        NotAdmittedException otherUser = assertThrows(NotAdmittedException.class,
+                () -> waitingRoom.admitOrThrow(1L, USER_ID + 1, token));
+        assertNotEquals(token, otherUser.getToken());
+    }
+
+    @Test
+    @DisplayName("An enabled waiting room requires a secret")
+    void create_withoutSecret_shouldFail() {
+        assertThrows(IllegalStateException.class, () -> new WaitingRoom(true, 1, 1, 2, Duration.ofMinutes(10),
+                Duration.ofMinutes(1), " "));
+        assertDoesNotThrow(() -> new WaitingRoom(false, 1, 1, 2, Duration.ofMinutes(10), Duration.ofMinutes(1), ""));
+    }
+
+    @Test
+    @DisplayName("Requests for an event with full capacity and waitlist are rejected without a position")
+    void admit_whenEventIsFull_shouldThrowEventFullException() {
+        waitingRoom.admitOrThrow(1L, USER_ID, null);
+
+        waitingRoom.updateOccupancy(1L, 10, 12);
+
+        assertThrows(EventFullException.class, () -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+
+        waitingRoom.updateOccupancy(1L, 10, 11);
+
+        assertDoesNotThrow(() -> waitingRoom.admitOrThrow(1L, USER_ID, null));
+    }
+}
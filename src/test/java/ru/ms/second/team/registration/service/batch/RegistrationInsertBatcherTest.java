@@ -0,0 +1,126 @@
+package ru.ms.second.team.registration.service.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import ru.ms.second.team.registration.model.Registration;
+import ru.ms.second.team.registration.model.RegistrationStatus;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RegistrationInsertBatcherTest {
+
+    @Mock
+    private JpaRegistrationRepository registrationRepository;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+    private RegistrationInsertBatcher batcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        batcher.destroy();
+        callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Concurrent registrations are inserted with one statement and get their own ids")
+    void concurrentInserts_shouldBeInsertedInOneBatch() {
+        batcher = new RegistrationInsertBatcher(registrationRepository, true, 1, 3, Duration.ofSeconds(5), 10);
+        final AtomicLong ids = new AtomicLong();
+        when(registrationRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<Registration> registrations = invocation.getArgument(0);
+            registrations.forEach(registration -> registration.setId(ids.incrementAndGet()));
+            return registrations.stream().map(Optional::of).toList();
+        });
+
+        List<CompletableFuture<Optional<Registration>>> results = List.of(
+                insertAsync(createRegistration("first@mail.com")),
+                insertAsync(createRegistration("second@mail.com")),
+                insertAsync(createRegistration("third@mail.com")));
+
+        List<Long> insertedIds = results.stream()
+                .map(result -> result.join().orElseThrow().getId())
+                .sorted()
+                .toList();
+        assertEquals(List.of(1L, 2L, 3L), insertedIds);
+        verify(registrationRepository, times(1)).insertAllIfAbsent(anyList());
+    }
+
+    @Test
+    @DisplayName("Second registration with the same event and e-mail in a batch is reported as existing")
+    void duplicateInBatch_shouldNotBeInserted() {
+        batcher = new RegistrationInsertBatcher(registrationRepository, true, 1, 2, Duration.ofSeconds(5), 10);
+        when(registrationRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<Registration> registrations = invocation.getArgument(0);
+            assertEquals(1, registrations.size(), "duplicate must not reach the database");
+            return registrations.stream().map(Optional::of).toList();
+        });
+
+        CompletableFuture<Optional<Registration>> first = insertAsync(createRegistration("mail@mail.com"));
+        CompletableFuture<Optional<Registration>> second = insertAsync(createRegistration("mail@mail.com"));
+
+        assertEquals(1, (first.join().isPresent() ? 1 : 0) + (second.join().isPresent() ? 1 : 0));
+    }
+
+    @Test
+    @DisplayName("Failed batch insert fails every registration of the batch")
+    void failedBatch_shouldFailAllCallers() {
+        batcher = new RegistrationInsertBatcher(registrationRepository, true, 1, 2, Duration.ofSeconds(5), 10);
+        when(registrationRepository.insertAllIfAbsent(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        CompletableFuture<Optional<Registration>> first = insertAsync(createRegistration("first@mail.com"));
+        CompletableFuture<Optional<Registration>> second = insertAsync(createRegistration("second@mail.com"));
+
+        CompletionException exception = assertThrows(CompletionException.class, first::join);
+        assertInstanceOf(DataAccessResourceFailureException.class, exception.getCause());
+        assertThrows(CompletionException.class, second::join);
+    }
+
+    @Test
+    @DisplayName("Single registration is flushed after the maximum delay")
+    void singleInsert_shouldBeFlushedAfterMaxDelay() {
+        batcher = new RegistrationInsertBatcher(registrationRepository, true, 1, 100, Duration.ofMillis(5), 10);
+        when(registrationRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation ->
+                invocation.<List<Registration>>getArgument(0).stream().map(Optional::of).toList());
+
+        assertTrue(batcher.insertIfAbsent(createRegistration("mail@mail.com")).isPresent());
+    }
+
+    private CompletableFuture<Optional<Registration>> insertAsync(Registration registration) {
+        return CompletableFuture.supplyAsync(() -> batcher.insertIfAbsent(registration), callers);
+    }
+
+    private Registration createRegistration(String email) {
+        return Registration.builder()
+                .username("user")
+                .email(email)
+                .phone("78005553535")
+                .eventId(1L)
+                .password("1234")
+                .status(RegistrationStatus.PENDING)
+                .build();
+    }
+}
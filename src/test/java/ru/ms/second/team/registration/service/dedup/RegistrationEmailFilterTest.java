@@ -0,0 +1,64 @@
+package ru.ms.second.team.registration.service.dedup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.ms.second.team.registration.repository.jpa.JpaRegistrationRepository;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class RegistrationEmailFilterTest {
+
+    @Mock
+    private JpaRegistrationRepository registrationRepository;
+
+    @Test
+    @DisplayName("Filter of an event is loaded once on first check and ignores the case of emails")
+    void mightContain_shouldLoadFilterOnceAndIgnoreCase() {
+        final RegistrationEmailFilter filter =
+                new RegistrationEmailFilter(registrationRepository, 1024, 3, Duration.ofHours(1));
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(1).accept("Mail@Mail.com");
+            return null;
+        }).when(registrationRepository).forEachEmailOfEvent(eq(1L), any());
+
+        assertTrue(filter.mightContain(1L, " mail@mail.COM"));
+        filter.put(1L, "Other@Mail.com");
+        assertTrue(filter.mightContain(1L, "other@mail.com"));
+
+        verify(registrationRepository, times(1)).forEachEmailOfEvent(eq(1L), any());
+    }
+
+    @Test
+    @DisplayName("Emails of events without a held filter are not kept, idle filters are reloaded")
+    void filters_shouldOnlyBeHeldForActiveEvents() throws InterruptedException {
+        final RegistrationEmailFilter filter =
+                new RegistrationEmailFilter(registrationRepository, 1024, 3, Duration.ZERO);
+
+        filter.put(1L, "mail@mail.com");
+        verify(registrationRepository, never()).forEachEmailOfEvent(anyLong(), any());
+
+        assertFalse(filter.mightContain(1L, "mail@mail.com"));
+        filter.put(1L, "mail@mail.com");
+        assertTrue(filter.mightContain(1L, "mail@mail.com"));
+
+        Thread.sleep(5);
+        filter.evictIdleFilters();
+        assertFalse(filter.mightContain(1L, "mail@mail.com"));
+        verify(registrationRepository, times(2)).forEachEmailOfEvent(eq(1L), any());
+    }
+}
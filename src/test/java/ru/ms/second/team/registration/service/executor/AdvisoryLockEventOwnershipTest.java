@@ -0,0 +1,192 @@
+package ru.ms.second.team.registration.service.executor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.ms.second.team.registration.exception.exceptions.EventOwnedByAnotherNodeException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes are modelled by two ownership instances with their own pools on the same database.
+ */
+@Testcontainers
+public class AdvisoryLockEventOwnershipTest {
+
+    private static final AtomicInteger EVENT_IDS = new AtomicInteger(1000);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
+
+    private static Node first;
+    private static Node second;
+    private static JdbcTemplate observer;
+    private static HikariDataSource observerDataSource;
+
+    @BeforeAll
+    static void init() {
+        first = Node.of(dataSource());
+        second = Node.of(dataSource());
+        observerDataSource = dataSource();
+        observer = new JdbcTemplate(observerDataSource);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        first.dataSource().close();
+        second.dataSource().close();
+        observerDataSource.close();
+    }
+
+    @Test
+    @DisplayName("A claim holds the event until the transaction commits or rolls back")
+    void claim_shouldBeReleasedWithTransaction() {
+        final long eventId = EVENT_IDS.incrementAndGet();
+
+        first.transactions().executeWithoutResult(status -> {
+            first.ownership().claimOrThrow(eventId);
+            assertFalse(isFree(eventId), "claimed event must be locked");
+        });
+        assertTrue(isFree(eventId), "commit must release the event");
+
+        first.transactions().executeWithoutResult(status -> {
+            first.ownership().claimOrThrow(eventId);
+            status.setRollbackOnly();
+        });
+        assertTrue(isFree(eventId), "rollback must release the event");
+    }
+
+    @Test
+    @DisplayName("A claim outside of a transaction is refused")
+    void claim_withoutTransaction_shouldThrow() {
+        assertThrows(IllegalStateException.class, () -> first.ownership().claimOrThrow(1L));
+    }
+
+    @Test
+    @DisplayName("Another node waits for the running transition instead of failing")
+    void claim_whenChangedByOtherNode_shouldWaitForIt() throws Exception {
+        final long eventId = EVENT_IDS.incrementAndGet();
+        final CountDownLatch claimed = new CountDownLatch(1);
+        final CompletableFuture<Void> running = CompletableFuture.runAsync(() ->
+                first.transactions().executeWithoutResult(status -> {
+                    first.ownership().claimOrThrow(eventId);
+                    claimed.countDown();
+                    sleep(300);
+                }));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        final long start = System.nanoTime();
+        second.transactions().executeWithoutResult(status -> second.ownership().claimOrThrow(eventId));
+
+        final long waited = System.nanoTime() - start;
+        assertTrue(waited > TimeUnit.MILLISECONDS.toNanos(200), "second node must wait for the first one");
+        assertTrue(waited < TimeUnit.SECONDS.toNanos(2));
+        running.get();
+    }
+
+    @Test
+    @DisplayName("Another node gives up after the wait timeout and can claim the event once it is free")
+    void claim_whenHeldLongerThanWaitTimeout_shouldThrowAndReclaimLater() throws Exception {
+        final long eventId = EVENT_IDS.incrementAndGet();
+        final CountDownLatch claimed = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final CompletableFuture<Void> running = CompletableFuture.runAsync(() ->
+                first.transactions().executeWithoutResult(status -> {
+                    first.ownership().claimOrThrow(eventId);
+                    claimed.countDown();
+                    await(finish);
+                }));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        assertThrows(EventOwnedByAnotherNodeException.class, () -> second.transactions()
+                .executeWithoutResult(status -> second.ownership().claimOrThrow(eventId)));
+
+        finish.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        second.transactions().executeWithoutResult(status -> second.ownership().claimOrThrow(eventId));
+    }
+
+    @Test
+    @DisplayName("A claim is lost with the connection of its node and the event can be claimed again")
+    void claim_whenConnectionDies_shouldBeReleased() throws Exception {
+        final long eventId = EVENT_IDS.incrementAndGet();
+        final CountDownLatch claimed = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final CompletableFuture<Void> running = CompletableFuture.runAsync(() ->
+                first.transactions().executeWithoutResult(status -> {
+                    first.ownership().claimOrThrow(eventId);
+                    claimed.countDown();
+                    await(finish);
+                    first.jdbcTemplate().queryForObject("SELECT 1", Integer.class);
+                }));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        final int terminated = observer.queryForObject("SELECT count(pg_terminate_backend(pid)) FROM pg_locks "
+                + "WHERE locktype = 'advisory' AND objid = ? AND granted", Integer.class, eventId);
+        assertEquals(1, terminated);
+        second.transactions().executeWithoutResult(status -> second.ownership().claimOrThrow(eventId));
+
+        finish.countDown();
+        assertThrows(Exception.class, () -> running.get(5, TimeUnit.SECONDS),
+                "the transition of the lost claim must not commit");
+        first.transactions().executeWithoutResult(status -> first.ownership().claimOrThrow(eventId));
+    }
+
+    private static boolean isFree(long eventId) {
+        return Boolean.TRUE.equals(observer.queryForObject(
+                "SELECT pg_try_advisory_lock(?) AND pg_advisory_unlock(?)", Boolean.class, eventId, eventId));
+    }
+
+    private static HikariDataSource dataSource() {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Node(HikariDataSource dataSource, JdbcTemplate jdbcTemplate, TransactionTemplate transactions,
+                        AdvisoryLockEventOwnership ownership) {
+
+        static Node of(HikariDataSource dataSource) {
+            final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            return new Node(dataSource, jdbcTemplate,
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                    new AdvisoryLockEventOwnership(jdbcTemplate, Duration.ofMillis(500)));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.ms.second.team.registration.service.idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ms.second.team.registration.exception.exceptions.IdempotencyKeyReusedException;
+import ru.ms.second.team.registration.exception.exceptions.IdempotentRequestInProgressException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class IdempotencyStoreTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Request with the same key and hash code but different content is rejected")
+    void execute_whenHashCodesCollide_shouldRejectOtherRequest() {
+        final IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100, Duration.ofSeconds(1));
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        assertEquals("first", store.execute("key", "Aa", () -> "first"));
+
+        assertEquals("first", store.execute("key", "Aa", () -> "second"));
+        assertThrows(IdempotencyKeyReusedException.class, () -> store.execute("key", "BB", () -> "second"));
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicate gets the error of the first request instead of waiting forever")
+    void execute_whenActionThrowsError_shouldReleaseDuplicates() throws Exception {
+        final IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100, Duration.ofSeconds(10));
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch fail = new CountDownLatch(1);
+        final Future<?> first = executor.submit(() -> store.execute("key", "request", () -> {
+            started.countDown();
+            awaitQuietly(fail);
+            throw new OutOfMemoryError("test");
+        }));
+        started.await(1, TimeUnit.SECONDS);
+
+        final Future<?> duplicate = executor.submit(() -> store.execute("key", "request", () -> "executed twice"));
+        Thread.sleep(100);
+        fail.countDown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            final Exception e = assertThrows(Exception.class, duplicate::get);
+            assertEquals(OutOfMemoryError.class, e.getCause().getClass());
+            assertThrows(Exception.class, first::get);
+        });
+        assertEquals("retried", store.execute("key", "request", () -> "retried"));
+    }
+
+    @Test
+    @DisplayName("Duplicate gives up waiting for a request that is still in progress after the await timeout")
+    void execute_whenFirstRequestIsSlow_shouldThrowInProgress() throws Exception {
+        final IdempotencyStore store = new IdempotencyStore(Duration.ofMinutes(1), 100, Duration.ofMillis(50));
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        executor.submit(() -> store.execute("key", "request", () -> {
+            started.countDown();
+            awaitQuietly(finish);
+            return "first";
+        }));
+        started.await(1, TimeUnit.SECONDS);
+
+        assertThrows(IdempotentRequestInProgressException.class,
+                () -> store.execute("key", "request", () -> "second"));
+        finish.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
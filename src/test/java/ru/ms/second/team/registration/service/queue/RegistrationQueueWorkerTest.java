@@ -0,0 +1,117 @@
+package ru.ms.second.team.registration.service.queue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.ms.second.team.registration.dto.request.NewRegistrationDto;
+import ru.ms.second.team.registration.dto.response.CreatedRegistrationResponseDto;
+import ru.ms.second.team.registration.exception.exceptions.AlreadyExistsException;
+import ru.ms.second.team.registration.model.QueuedRegistration;
+import ru.ms.second.team.registration.repository.jdbc.RegistrationQueueRepository;
+import ru.ms.second.team.registration.service.RegistrationService;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RegistrationQueueWorkerTest {
+
+    @Mock
+    private RegistrationQueueRepository queueRepository;
+    @Mock
+    private RegistrationService registrationService;
+
+    private RegistrationQueueWorker worker;
+    private NewRegistrationDto registration;
+
+    @BeforeEach
+    void init() {
+        worker = new RegistrationQueueWorker(queueRepository, registrationService, true, 1, 10, 3,
+                Duration.ofMillis(100), Duration.ofMinutes(5), Duration.ofDays(1));
+        registration = NewRegistrationDto.builder()
+                .username("user1")
+                .email("mail@mail.com")
+                .phone("78005553535")
+                .eventId(1L)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Created registration completes the ticket with the credentials")
+    void process_whenCreated_shouldCompleteTicket() {
+        when(registrationService.createRegistration(registration, 5L))
+                .thenReturn(new CreatedRegistrationResponseDto(7L, "1234"));
+
+        worker.process(new QueuedRegistration(1L, 5L, registration, 1));
+
+        verify(queueRepository).complete(1L, 7L, "1234");
+    }
+
+    @Test
+    @DisplayName("Rejected registration fails the ticket without a retry")
+    void process_whenRejected_shouldFailTicket() {
+        when(registrationService.createRegistration(registration, 5L))
+                .thenThrow(new AlreadyExistsException("Registration with this email already exists"));
+
+        worker.process(new QueuedRegistration(1L, 5L, registration, 1));
+
+        verify(queueRepository).fail(1L, "Registration with this email already exists");
+        verify(queueRepository, never()).release(anyLong());
+        verify(queueRepository, never()).completeWithExisting(anyLong());
+    }
+
+    @Test
+    @DisplayName("Retry of a request whose registration was created completes the ticket with it")
+    void process_whenRetryFindsCreatedRegistration_shouldCompleteTicket() {
+        when(registrationService.createRegistration(registration, 5L))
+                .thenThrow(new AlreadyExistsException("Registration with this email already exists"));
+        when(queueRepository.completeWithExisting(1L)).thenReturn(true);
+
+        worker.process(new QueuedRegistration(1L, 5L, registration, 2));
+
+        verify(queueRepository).completeWithExisting(1L);
+        verify(queueRepository, never()).fail(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Retry of a request whose e-mail was taken by another registration fails the ticket")
+    void process_whenRetryFindsOtherRegistration_shouldFailTicket() {
+        when(registrationService.createRegistration(registration, 5L))
+                .thenThrow(new AlreadyExistsException("Registration with this email already exists"));
+        when(queueRepository.completeWithExisting(1L)).thenReturn(false);
+
+        worker.process(new QueuedRegistration(1L, 5L, registration, 2));
+
+        verify(queueRepository).fail(1L, "Registration with this email already exists");
+    }
+
+    @Test
+    @DisplayName("Unexpected error puts the request back into the queue until attempts are exhausted")
+    void process_whenUnexpectedError_shouldReleaseUntilMaxAttempts() {
+        when(registrationService.createRegistration(registration, 5L))
+                .thenThrow(new IllegalStateException("Event service is unavailable"));
+
+        worker.process(new QueuedRegistration(1L, 5L, registration, 1));
+        verify(queueRepository).release(1L);
+
+        worker.process(new QueuedRegistration(1L, 5L, registration, 3));
+        verify(queueRepository).fail(1L, "Registration failed, try again later");
+    }
+
+    @Test
+    @DisplayName("Request claimed more often than allowed fails without another attempt")
+    void process_whenAttemptsExceeded_shouldFailWithoutCreating() {
+        worker.process(new QueuedRegistration(1L, 5L, registration, 4));
+
+        verify(queueRepository).fail(1L, "Gave up after 3 attempts");
+        verify(registrationService, never()).createRegistration(any(), anyLong());
+    }
+}
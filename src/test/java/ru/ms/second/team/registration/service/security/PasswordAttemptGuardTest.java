@@ -0,0 +1,109 @@
+package ru.ms.second.team.registration.service.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ms.second.team.registration.exception.exceptions.TooManyPasswordAttemptsException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PasswordAttemptGuardTest {
+
+    private static final String CALLER = "10.0.0.1";
+
+    private PasswordAttemptGuard guard;
+
+    @BeforeEach
+    void init() {
+        guard = new PasswordAttemptGuard(4, 2, 3, Duration.ofMinutes(1), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    @DisplayName("Lockout of a registration doubles with every further failure up to the maximum")
+    void lockout_shouldGrowExponentially() {
+        guard.recordFailure(1L, CALLER);
+        guard.recordSuccess(2L, CALLER);
+        assertDoesNotThrow(() -> guard.checkNotLockedOrThrow(1L, CALLER));
+
+        guard.recordFailure(1L, CALLER);
+        assertEquals(60, assertThrows(TooManyPasswordAttemptsException.class,
+                () -> guard.checkNotLockedOrThrow(1L, CALLER)).getRetryAfterSeconds());
+
+        guard.recordSuccess(2L, CALLER);
+        guard.recordFailure(1L, CALLER);
+        assertEquals(120, assertThrows(TooManyPasswordAttemptsException.class,
+                () -> guard.checkNotLockedOrThrow(1L, CALLER)).getRetryAfterSeconds());
+
+        for (int i = 0; i < 5; i++) {
+            guard.recordSuccess(2L, CALLER);
+            guard.recordFailure(1L, CALLER);
+        }
+        assertEquals(300, assertThrows(TooManyPasswordAttemptsException.class,
+                () -> guard.checkNotLockedOrThrow(1L, CALLER)).getRetryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("A lockout at the maximum outlives eviction, the next failure is locked out at the maximum again")
+    void lockoutAtMaximum_shouldSurviveEviction() {
+        final AtomicLong now = new AtomicLong();
+        guard = new PasswordAttemptGuard(4, 2, 100, Duration.ofMinutes(1), Duration.ofMinutes(5), 100, now::get);
+        for (int i = 0; i < 5; i++) {
+            guard.recordFailure(1L, CALLER);
+        }
+        assertEquals(300, assertThrows(TooManyPasswordAttemptsException.class,
+                () -> guard.checkNotLockedOrThrow(1L, CALLER)).getRetryAfterSeconds());
+
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        guard.evictExpired();
+        assertDoesNotThrow(() -> guard.checkNotLockedOrThrow(1L, CALLER));
+
+        guard.recordFailure(1L, CALLER);
+        assertEquals(300, assertThrows(TooManyPasswordAttemptsException.class,
+                () -> guard.checkNotLockedOrThrow(1L, CALLER)).getRetryAfterSeconds());
+
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+        guard.evictExpired();
+        guard.recordFailure(1L, CALLER);
+        assertDoesNotThrow(() -> guard.checkNotLockedOrThrow(1L, CALLER),
+                "failures are forgotten after a quiet period");
+    }
+
+    @Test
+    @DisplayName("A caller guessing passwords of different registrations is locked out for all of them")
+    void callerLockout_shouldApplyToAllRegistrations() {
+        guard.recordFailure(1L, CALLER);
+        guard.recordFailure(2L, CALLER);
+        guard.recordFailure(3L, CALLER);
+
+        assertThrows(TooManyPasswordAttemptsException.class, () -> guard.checkNotLockedOrThrow(4L, CALLER));
+        assertDoesNotThrow(() -> guard.checkNotLockedOrThrow(4L, "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Without a caller only the registration is locked out")
+    void withoutCaller_shouldOnlyLockOutRegistration() {
+        guard.recordFailure(1L, null);
+        guard.recordFailure(2L, null);
+        guard.recordFailure(3L, null);
+
+        assertDoesNotThrow(() -> guard.checkNotLockedOrThrow(4L, null));
+
+        guard.recordFailure(1L, null);
+        assertThrows(TooManyPasswordAttemptsException.class, () -> guard.checkNotLockedOrThrow(1L, "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("A correct password resets the failures of the registration")
+    void success_shouldResetFailures() {
+        guard.recordFailure(1L, CALLER);
+        guard.recordSuccess(1L, CALLER);
+        guard.recordFailure(1L, CALLER);
+
+        assertDoesNotThrow(() -> guard.checkNotLockedOrThrow(1L, CALLER));
+    }
+}
@@ -0,0 +1,59 @@
+package ru.ms.second.team.registration.service.version;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class EventVersionRegistryTest {
+
+    @Test
+    @DisplayName("Evicted events never return to a version they had before a change")
+    void evictOldest_shouldKeepVersionsOfEvictedEventsMonotonic() {
+        final EventVersionRegistry registry = new EventVersionRegistry(2);
+        final String untouchedTag = registry.getETag(1L);
+        registry.bump(1L);
+        final String changedTag = registry.getETag(1L);
+        registry.bump(2L);
+        registry.bump(3L);
+        registry.bump(4L);
+
+        registry.evictOldest();
+
+        assertNotEquals(untouchedTag, registry.getETag(1L));
+        assertNotEquals(changedTag, registry.getETag(1L));
+        assertEquals(registry.getVersion(1L), registry.getVersion(2L));
+        assertNotEquals(registry.getVersion(3L), registry.getVersion(4L));
+    }
+
+    @Test
+    @DisplayName("No tags are handed out while changes of other nodes are not tracked, old tags miss afterwards")
+    void suspendAndResume_shouldInvalidateTags() {
+        final EventVersionRegistry registry = new EventVersionRegistry(10);
+        final String tag = registry.getETag(1L);
+        final long version = registry.getVersion(1L);
+
+        registry.suspend();
+        assertNull(registry.getETag(1L));
+        assertNull(registry.parseEventId(tag));
+
+        registry.resume();
+        assertNotEquals(tag, registry.getETag(1L));
+        assertNotEquals(version, registry.getVersion(1L));
+        assertNull(registry.parseEventId(tag));
+        assertEquals(1L, registry.parseEventId(registry.getETag(1L)));
+    }
+
+    @Test
+    @DisplayName("Changes made through other nodes change the version")
+    void markChanged_shouldChangeVersion() {
+        final EventVersionRegistry registry = new EventVersionRegistry(10);
+        final String tag = registry.getETag(1L);
+
+        registry.markChanged(1L);
+
+        assertNotEquals(tag, registry.getETag(1L));
+    }
+}
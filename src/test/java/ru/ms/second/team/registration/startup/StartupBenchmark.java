@@ -0,0 +1,274 @@
+package ru.ms.second.team.registration.startup;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup benchmark: starts the service repeatedly as a separate JVM and reports the time from process start until
+ * {@code /actuator/health/readiness} is up, and the resident set size at that moment.
+ * <p>
+ * Three variants are compared: {@code jar} runs the fat jar, {@code extracted} runs the layout of the container
+ * image, and {@code cds} runs that layout with an AppCDS archive made by the same training run as the
+ * {@code Dockerfile}. Arguments are {@code key=value} pairs that become system properties, see
+ * {@link #main(String[])}. Without {@code startup.jdbc-url} Postgres is started with Testcontainers. RSS is read
+ * from {@code /proc}, so it is only reported on Linux.
+ */
+public final class StartupBenchmark {
+
+    private static final String APPLICATION_JAR = "application.jar";
+    private static final String CDS_ARCHIVE = "application.jsa";
+    private static final List<String> LAYERS = List.of("dependencies", "spring-boot-loader", "snapshot-dependencies",
+            "application");
+
+    private final Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final Path workDirectory;
+    private final List<String> jvmArgs;
+    private final List<String> applicationArgs;
+    private final Duration timeout;
+
+    private StartupBenchmark(Path workDirectory, List<String> jvmArgs, List<String> applicationArgs,
+                             Duration timeout) {
+        this.workDirectory = workDirectory;
+        this.jvmArgs = jvmArgs;
+        this.applicationArgs = applicationArgs;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Settings: {@code startup.jar} (default: the jar in {@code target}), {@code startup.variants}
+     * ({@code jar,extracted,cds}), {@code startup.runs} ({@code 5}), {@code startup.jvm-args} (none),
+     * {@code startup.timeout} ({@code 120s}) and {@code startup.jdbc-url}, {@code startup.jdbc-username},
+     * {@code startup.jdbc-password}.
+     */
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            System.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        final Path jar = Path.of(property("jar", findJar().toString()));
+        final List<String> variants = Arrays.asList(property("variants", "jar,extracted,cds").split(","));
+        final int runs = Integer.parseInt(property("runs", "5"));
+        final String jvmArgs = property("jvm-args", "").trim();
+        final Duration timeout = DurationStyle.detectAndParse(property("timeout", "120s"));
+
+        PostgreSQLContainer<?> postgres = null;
+        try {
+            final List<String> datasource;
+            if (property("jdbc-url", null) == null) {
+                postgres = new PostgreSQLContainer<>("postgres:13.7-alpine");
+                postgres.start();
+                datasource = datasource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+            } else {
+                datasource = datasource(property("jdbc-url", null), property("jdbc-username", "postgres"),
+                        property("jdbc-password", "postgres"));
+            }
+            final StartupBenchmark benchmark = new StartupBenchmark(Path.of("target", "startup-benchmark"),
+                    jvmArgs.isEmpty() ? List.of() : List.of(jvmArgs.split("\\s+")), datasource, timeout);
+            benchmark.prepare(jar, variants.contains("cds"));
+            System.out.printf("%nJava %s, %d CPUs, %d runs per variant%n", Runtime.version(),
+                    Runtime.getRuntime().availableProcessors(), runs);
+            System.out.printf("%-10s %12s %12s %12s %12s%n", "variant", "ready p50", "ready min", "ready max",
+                    "RSS p50");
+            for (String variant : variants) {
+                benchmark.run(variant, runs);
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+
+    private void prepare(Path jar, boolean cds) throws Exception {
+        deleteRecursively(workDirectory);
+        Files.createDirectories(workDirectory);
+        Files.copy(jar, workDirectory.resolve(APPLICATION_JAR), StandardCopyOption.REPLACE_EXISTING);
+        exec(workDirectory, "extract", java.toString(), "-Djarmode=tools", "-jar", APPLICATION_JAR, "extract",
+                "--layers", "--destination", "extracted");
+        final Path application = workDirectory.resolve("application");
+        for (String layer : LAYERS) {
+            copyRecursively(workDirectory.resolve("extracted").resolve(layer), application);
+        }
+        if (cds) {
+            exec(application, "training", java.toString(), "-XX:ArchiveClassesAtExit=" + CDS_ARCHIVE,
+                    "-Xlog:cds=error", "-Dspring.context.exit=onRefresh", "-Dspring.profiles.active=training",
+                    "-jar", APPLICATION_JAR);
+        }
+    }
+
+    private void run(String variant, int runs) throws Exception {
+        final List<Long> readyMillis = new ArrayList<>();
+        final List<Long> rssKilobytes = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            final Startup startup = start(variant, i);
+            readyMillis.add(startup.readyMillis());
+            if (startup.rssKilobytes() >= 0) {
+                rssKilobytes.add(startup.rssKilobytes());
+            }
+        }
+        readyMillis.sort(Comparator.naturalOrder());
+        rssKilobytes.sort(Comparator.naturalOrder());
+        System.out.printf("%-10s %10d ms %10d ms %10d ms %12s%n", variant, median(readyMillis), readyMillis.get(0),
+                readyMillis.get(readyMillis.size() - 1),
+                rssKilobytes.isEmpty() ? "n/a" : median(rssKilobytes) / 1024 + " MB");
+    }
+
+    private Startup start(String variant, int run) throws Exception {
+        final int port = freePort();
+        final List<String> command = new ArrayList<>();
+        command.add(java.toString());
+        command.addAll(jvmArgs);
+        final Path directory;
+        switch (variant) {
+            case "jar" -> directory = workDirectory;
+            case "extracted" -> directory = workDirectory.resolve("application");
+            case "cds" -> {
+                directory = workDirectory.resolve("application");
+                command.add("-XX:SharedArchiveFile=" + CDS_ARCHIVE);
+            }
+            default -> throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+        command.addAll(List.of("-jar", APPLICATION_JAR, "--server.port=" + port,
+                "--app.event-service.url=localhost:1", "--spring.jpa.show-sql=false"));
+        command.addAll(applicationArgs);
+        final Path log = workDirectory.resolve(variant + "-" + run + ".log");
+        final long startedAt = System.nanoTime();
+        final Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            awaitReady(process, port, startedAt, log);
+            final long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            return new Startup(readyMillis, rssKilobytes(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitReady(Process process, int port, long startedAt, Path log) throws Exception {
+        final HttpRequest readiness = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        while (System.nanoTime() - startedAt < timeout.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Service exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Service was not ready within " + timeout + ", see " + log);
+    }
+
+    private static long rssKilobytes(long pid) throws IOException {
+        final Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .findFirst()
+                    .orElse(-1L);
+        }
+    }
+
+    private void exec(Path directory, String name, String... command) throws Exception {
+        final Path log = workDirectory.resolve(name + ".log");
+        final Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(name + " failed with " + process.exitValue() + ", see " + log);
+        }
+    }
+
+    private static List<String> datasource(String url, String username, String password) {
+        return List.of("--spring.datasource.url=" + url, "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password);
+    }
+
+    private static Path findJar() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("target"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in target, run mvn package first"));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> sorted) {
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("startup." + name, defaultValue);
+    }
+
+    private static void copyRecursively(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                final Path destination = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private record Startup(long readyMillis, long rssKilobytes) {
+    }
+}
@@ -0,0 +1,53 @@
+package ru.ms.second.team.registration.statistics;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the statements executed through the data source of a test context, from every thread; a batch counts as
+ * one statement.
+ */
+public class SqlStatementCounter {
+
+    private final SingleQueryCountHolder holder = new SingleQueryCountHolder();
+
+    SingleQueryCountHolder getHolder() {
+        return holder;
+    }
+
+    public void reset() {
+        holder.clear();
+    }
+
+    public long getTotal() {
+        return holder.getQueryCountMap().values().stream().mapToLong(QueryCount::getTotal).sum();
+    }
+
+    /**
+     * Fails when more than {@code budget} statements were executed since the last reset.
+     */
+    public void assertAtMost(long budget, String description) {
+        final long total = getTotal();
+        assertTrue(total <= budget, () -> description + " executed " + total + " statements, budget is " + budget
+                + " (" + breakdown() + ")");
+    }
+
+    private String breakdown() {
+        long select = 0;
+        long insert = 0;
+        long update = 0;
+        long delete = 0;
+        long other = 0;
+        for (QueryCount count : holder.getQueryCountMap().values()) {
+            select += count.getSelect();
+            insert += count.getInsert();
+            update += count.getUpdate();
+            delete += count.getDelete();
+            other += count.getOther();
+        }
+        return "select=" + select + ", insert=" + insert + ", update=" + update + ", delete=" + delete
+                + ", other=" + other;
+    }
+}